@@ -0,0 +1,115 @@
+package org.lds.media;
+
+import org.lds.io.AbstractSeekableBinaryReader;
+
+import java.io.IOException;
+
+public class FileFormat {
+
+    public static final int UNKNOWN = 0;
+    public static final int JPEG = 1;
+    public static final int HEIF = 2;
+    public static final int TIFF = 3;
+    public static final int PNG = 4;
+    public static final int WEBP = 5;
+    public static final int MP4 = 6;
+    public static final int QUICKTIME = 7;
+
+    public static final int HEADER_LENGTH = 32;
+
+    private static final String[] HEIF_BRANDS = new String[]{
+            "heic", "heix", "heim", "heis", "hevc", "hevx", "hevm", "hevs", "mif1", "msf1", "avif", "avis"};
+    private static final String[] MP4_BRANDS = new String[]{
+            "isom", "iso2", "iso3", "iso4", "iso5", "iso6", "mp41", "mp42", "avc1", "M4V ", "M4A ", "MSNV",
+            "3gp4", "3gp5", "3gp6", "3g2a", "dash"};
+    private static final String[] QUICKTIME_ATOMS = new String[]{"moov", "mdat", "wide", "free", "skip", "pnot"};
+
+    private static final String[] NAMES = new String[]{"unknown", "jpeg", "heif", "tiff", "png", "webp", "mp4", "quicktime"};
+
+    public static String getName(int format) {
+        return format >= 0 && format < NAMES.length ? NAMES[format] : NAMES[UNKNOWN];
+    }
+
+    public static int detect(AbstractSeekableBinaryReader reader) throws IOException {
+        int length = (int) Math.min(HEADER_LENGTH, reader.getLength());
+        reader.seek(0);
+        return detect(reader.readByteArray(length), length);
+    }
+
+    public static int detect(byte[] header, int length) {
+        if (length >= 3 && u8(header, 0) == 0xff && u8(header, 1) == 0xd8 && u8(header, 2) == 0xff) {
+            return JPEG;
+        }
+        if (length >= 4 && (matches(header, 0, "II") && u8(header, 2) == 0x2a && u8(header, 3) == 0
+                || matches(header, 0, "MM") && u8(header, 2) == 0 && u8(header, 3) == 0x2a)) {
+            return TIFF;
+        }
+        if (length >= 8 && u8(header, 0) == 0x89 && matches(header, 1, "PNG")
+                && u8(header, 4) == 0x0d && u8(header, 5) == 0x0a && u8(header, 6) == 0x1a && u8(header, 7) == 0x0a) {
+            return PNG;
+        }
+        if (length >= 12 && matches(header, 0, "RIFF") && matches(header, 8, "WEBP")) {
+            return WEBP;
+        }
+        if (length >= 8 && matches(header, 4, "ftyp")) {
+            return detectBrand(header, length);
+        }
+        if (length >= 8) {
+            for (String atom : QUICKTIME_ATOMS) {
+                if (matches(header, 4, atom)) {
+                    return QUICKTIME;
+                }
+            }
+        }
+        return UNKNOWN;
+    }
+
+    private static int detectBrand(byte[] header, int length) {
+        if (length < 12) {
+            return UNKNOWN;
+        }
+        if (matchesAny(header, 8, HEIF_BRANDS)) {
+            return HEIF;
+        }
+        if (matches(header, 8, "qt  ")) {
+            return QUICKTIME;
+        }
+        if (matchesAny(header, 8, MP4_BRANDS)) {
+            return MP4;
+        }
+        long size = (long) u8(header, 0) << 24 | u8(header, 1) << 16 | u8(header, 2) << 8 | u8(header, 3);
+        int end = (int) Math.min(size, length);
+        for (int off = 16; off + 4 <= end; off += 4) {
+            if (matchesAny(header, off, HEIF_BRANDS)) {
+                return HEIF;
+            }
+        }
+        return MP4;
+    }
+
+    private static boolean matchesAny(byte[] b, int off, String[] values) {
+        for (String value : values) {
+            if (matches(b, off, value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean matches(byte[] b, int off, String value) {
+        if (off + value.length() > b.length) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (b[off + i] != (byte) value.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int u8(byte[] b, int off) {
+        return b[off] & 0xff;
+    }
+
+}
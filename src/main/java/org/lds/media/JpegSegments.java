@@ -0,0 +1,87 @@
+package org.lds.media;
+
+import org.lds.io.AbstractSeekableBinaryReader;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+
+/**
+ * Walks the marker segments of a JPEG header up to the start of scan. Every segment is visited, so callers can
+ * pick out the APP1/APP2 payloads they want (Exif, XMP, ICC, MPF) in any order.
+ */
+public class JpegSegments {
+
+    public static final int SOI = 0xffd8;
+    public static final int APP1 = 0xffe1;
+    public static final int APP2 = 0xffe2;
+    public static final int SOS = 0xffda;
+    public static final int EOI = 0xffd9;
+
+    private final AbstractSeekableBinaryReader reader;
+    private final ParseBudget.Tracker tracker;
+    private final long length;
+    private long next;
+    private int marker;
+    private long dataOffset;
+    private int dataLength;
+
+    public JpegSegments(AbstractSeekableBinaryReader reader, ParseBudget.Tracker tracker) throws IOException {
+        this.reader = reader;
+        this.tracker = tracker;
+        this.length = reader.getLength();
+        reader.setOrder(ByteOrder.BIG_ENDIAN);
+        reader.seek(0);
+        next = length >= 2 && reader.readUnsignedShortValue() == SOI ? 2 : -1;
+    }
+
+    /**
+     * Advances to the next segment; returns false at the start of scan, the end of image or a malformed marker.
+     */
+    public boolean next() throws IOException {
+        if (next < 0 || next + 4 > length) {
+            return false;
+        }
+        tracker.segment();
+        tracker.read(4);
+        reader.seek(next);
+        marker = reader.readUnsignedShortValue();
+        int size = reader.readUnsignedShortValue();
+        if ((marker & 0xff00) != 0xff00 || marker == SOS || marker == EOI || size < 2) {
+            next = -1;
+            return false;
+        }
+        dataOffset = next + 4;
+        dataLength = (int) Math.min(size - 2, length - dataOffset);
+        next = dataOffset + size - 2;
+        return true;
+    }
+
+    public int getMarker() {
+        return marker;
+    }
+
+    public long getDataOffset() {
+        return dataOffset;
+    }
+
+    public int getDataLength() {
+        return dataLength;
+    }
+
+    /**
+     * Returns whether the segment payload starts with {@code prefix}, leaving the reader just after it if so.
+     */
+    public boolean startsWith(byte[] prefix) throws IOException {
+        if (dataLength < prefix.length) {
+            return false;
+        }
+        tracker.read(prefix.length);
+        reader.seek(dataOffset);
+        for (byte b : prefix) {
+            if (reader.read() != b) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,147 @@
+package org.lds.media;
+
+public class ParseBudget {
+
+    public static final ParseBudget DEFAULT = new ParseBudget(64L << 20, 64, 16 << 20, 4096, 10000);
+    public static final ParseBudget UNLIMITED = new ParseBudget(Long.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE, 0);
+
+    public static class Tracker {
+        private final ParseBudget budget;
+        private final long deadline;
+        private long bytesRead;
+        private int segmentCount;
+        private int ifdCount;
+        private long[] ifdOffsets = new long[8];
+        private boolean frozen;
+
+        private Tracker(ParseBudget budget) {
+            this.budget = budget;
+            deadline = budget.timeLimit > 0 ? System.nanoTime() + budget.timeLimit * 1000000L : 0;
+        }
+
+        public ParseBudget getBudget() {
+            return budget;
+        }
+
+        public long getBytesRead() {
+            return bytesRead;
+        }
+
+        public int getSegmentCount() {
+            return segmentCount;
+        }
+
+        public int getIFDCount() {
+            return ifdCount;
+        }
+
+        /**
+         * Stops applying the byte and time limits once the parse is over; reads are still counted, and value sizes
+         * and ranges are still checked.
+         */
+        public void freeze() {
+            frozen = true;
+        }
+
+        public boolean isFrozen() {
+            return frozen;
+        }
+
+        public void read(long bytes) throws ParseLimitException {
+            bytesRead += bytes;
+            if (!frozen && bytesRead > budget.maxBytesRead) {
+                throw new ParseLimitException(ParseLimitException.BYTES_READ,
+                        "more than " + budget.maxBytesRead + " bytes read");
+            }
+        }
+
+        public void segment() throws ParseLimitException {
+            if (++segmentCount > budget.maxSegmentCount) {
+                throw new ParseLimitException(ParseLimitException.SEGMENT_COUNT,
+                        "more than " + budget.maxSegmentCount + " markers, chunks or boxes");
+            }
+            checkTime();
+        }
+
+        public void visitIFD(long offset) throws ParseLimitException {
+            for (int i = 0; i < ifdCount; i++) {
+                if (ifdOffsets[i] == offset) {
+                    throw new ParseLimitException(ParseLimitException.CYCLE, "IFD at " + offset + " visited twice");
+                }
+            }
+            if (ifdCount >= budget.maxIFDCount) {
+                throw new ParseLimitException(ParseLimitException.IFD_COUNT,
+                        "more than " + budget.maxIFDCount + " IFDs");
+            }
+            if (ifdCount == ifdOffsets.length) {
+                long[] array = new long[ifdCount * 2];
+                System.arraycopy(ifdOffsets, 0, array, 0, ifdCount);
+                ifdOffsets = array;
+            }
+            ifdOffsets[ifdCount++] = offset;
+            checkTime();
+        }
+
+        public void checkValueSize(long size) throws ParseLimitException {
+            if (size > budget.maxValueSize) {
+                throw new ParseLimitException(ParseLimitException.VALUE_SIZE,
+                        "value of " + size + " bytes exceeds " + budget.maxValueSize);
+            }
+        }
+
+        public void checkRange(long offset, long length, long limit) throws ParseLimitException {
+            if (offset < 0 || length < 0 || offset + length > limit) {
+                throw new ParseLimitException(ParseLimitException.OUT_OF_BOUNDS,
+                        "range " + offset + "+" + length + " is outside 0-" + limit);
+            }
+        }
+
+        public void checkTime() throws ParseLimitException {
+            if (deadline != 0 && !frozen && System.nanoTime() - deadline > 0) {
+                throw new ParseLimitException(ParseLimitException.TIME,
+                        "time limit of " + budget.timeLimit + " ms exceeded");
+            }
+        }
+    }
+
+    private final long maxBytesRead;
+    private final int maxIFDCount;
+    private final int maxValueSize;
+    private final int maxSegmentCount;
+    private final long timeLimit;
+
+    /**
+     * @param timeLimit milliseconds per file, or 0 for no limit
+     */
+    public ParseBudget(long maxBytesRead, int maxIFDCount, int maxValueSize, int maxSegmentCount, long timeLimit) {
+        this.maxBytesRead = maxBytesRead;
+        this.maxIFDCount = maxIFDCount;
+        this.maxValueSize = maxValueSize;
+        this.maxSegmentCount = maxSegmentCount;
+        this.timeLimit = timeLimit;
+    }
+
+    public long getMaxBytesRead() {
+        return maxBytesRead;
+    }
+
+    public int getMaxIFDCount() {
+        return maxIFDCount;
+    }
+
+    public int getMaxValueSize() {
+        return maxValueSize;
+    }
+
+    public int getMaxSegmentCount() {
+        return maxSegmentCount;
+    }
+
+    public long getTimeLimit() {
+        return timeLimit;
+    }
+
+    public Tracker start() {
+        return new Tracker(this);
+    }
+}
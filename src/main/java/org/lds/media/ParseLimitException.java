@@ -0,0 +1,27 @@
+package org.lds.media;
+
+import java.io.IOException;
+
+public class ParseLimitException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final int BYTES_READ = 1;
+    public static final int IFD_COUNT = 2;
+    public static final int VALUE_SIZE = 3;
+    public static final int SEGMENT_COUNT = 4;
+    public static final int TIME = 5;
+    public static final int CYCLE = 6;
+    public static final int OUT_OF_BOUNDS = 7;
+
+    private final int reason;
+
+    public ParseLimitException(int reason, String message) {
+        super(message);
+        this.reason = reason;
+    }
+
+    public int getReason() {
+        return reason;
+    }
+}
@@ -0,0 +1,340 @@
+package org.lds.media.cli;
+
+import org.lds.io.AbstractSeekableBinaryReader;
+import org.lds.io.FileBinaryReader;
+import org.lds.media.FileFormat;
+import org.lds.media.ParseBudget;
+import org.lds.media.exif.Exif;
+import org.lds.media.exif.ExifFingerprint;
+import org.lds.media.exif.ExifRecord;
+import org.lds.media.index.DuplicateIndex;
+import org.lds.media.io.MappedFileBinaryReader;
+import org.lds.media.io.ZipArchive;
+import org.lds.media.video.VideoMetadata;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class Extract {
+
+    private static final String USAGE = "usage: extract [-t threads] [-io file|mmap] [-f jsonl|csv|columnar] [-o output] [-z] [-d] path...";
+
+    public static void main(String[] args) throws Exception {
+        List<File> paths = new ArrayList<File>();
+        Extract extract = parse(args, paths);
+        if (extract == null) {
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+        extract.run(paths, System.err);
+    }
+
+    /**
+     * Parses the command line, adding the paths to {@code paths}; returns null if the arguments are not valid.
+     */
+    public static Extract parse(String[] args, List<File> paths) {
+        Extract extract = new Extract();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (i + 1 < args.length && "-t".equals(arg)) {
+                try {
+                    extract.threads = Integer.parseInt(args[++i]);
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+            } else if (i + 1 < args.length && "-io".equals(arg)) {
+                extract.io = args[++i];
+            } else if (i + 1 < args.length && "-f".equals(arg)) {
+                extract.format = args[++i];
+            } else if (i + 1 < args.length && "-o".equals(arg)) {
+                extract.output = new File(args[++i]);
+            } else if ("-z".equals(arg)) {
+                extract.archives = true;
+            } else if ("-d".equals(arg)) {
+                extract.dedup = true;
+            } else if (arg.startsWith("-")) {
+                return null;
+            } else {
+                paths.add(new File(arg));
+            }
+        }
+        if (paths.isEmpty() || extract.threads <= 0 || !("file".equals(extract.io) || "mmap".equals(extract.io))
+                || !("jsonl".equals(extract.format) || "csv".equals(extract.format)
+                || "columnar".equals(extract.format))) {
+            return null;
+        }
+        return extract;
+    }
+
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private String io = "file";
+    private String format = "jsonl";
+    private File output;
+    private boolean archives;
+    // -d keeps an index slot per distinct fingerprint and the path of the first file with it, so unlike the rest
+    // of the scan its memory grows with the number of distinct photos, by roughly 100 bytes plus the path each
+    private boolean dedup;
+    private boolean records;
+    private final ParseBudget budget = ParseBudget.DEFAULT;
+
+    private long fileCount;
+    private long errorCount;
+    private long bytesRead;
+    private long duplicateCount;
+    private DuplicateIndex duplicates;
+    private List<String> originals;
+    private LatencyHistogram latencies;
+
+    public void run(List<File> paths, PrintStream report) throws IOException, InterruptedException {
+        OutputStream stream = output == null ? System.out : new FileOutputStream(output);
+        final ResultWriter writer = ResultWriter.create(format, stream);
+        records = writer.needsRecord();
+        final BlockingQueue<Result> results = new ArrayBlockingQueue<Result>(threads * 4);
+        final AtomicReference<Throwable> writeError = new AtomicReference<Throwable>();
+        fileCount = 0;
+        errorCount = 0;
+        bytesRead = 0;
+        duplicateCount = 0;
+        duplicates = new DuplicateIndex();
+        originals = new ArrayList<String>();
+        latencies = new LatencyHistogram();
+        Thread writerThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    writer.begin();
+                } catch (Throwable e) {
+                    writeError.compareAndSet(null, e);
+                }
+                try {
+                    // keep taking results after a failure so workers blocked on a full queue can finish
+                    for (Result result = results.take(); result != Result.END; result = results.take()) {
+                        if (writeError.get() == null) {
+                            try {
+                                record(result);
+                                writer.write(result);
+                            } catch (Throwable e) {
+                                writeError.compareAndSet(null, e);
+                            }
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                if (writeError.get() == null) {
+                    try {
+                        writer.end();
+                    } catch (Throwable e) {
+                        writeError.compareAndSet(null, e);
+                    }
+                }
+            }
+        }, "extract-writer");
+        writerThread.start();
+
+        long start = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        final Semaphore inFlight = new Semaphore(threads * 4);
+        try {
+            LinkedList<File> pending = new LinkedList<File>(paths);
+            while (!pending.isEmpty() && writeError.get() == null) {
+                final File file = pending.removeFirst();
+                if (file.isDirectory()) {
+                    File[] children = file.listFiles();
+                    if (children != null) {
+                        Arrays.sort(children);
+                        pending.addAll(0, Arrays.asList(children));
+                    }
+                    continue;
+                }
+                if (archives && file.getName().toLowerCase().endsWith(".zip")) {
+                    ZipArchive archive = readArchive(file, results);
+                    if (archive != null) {
+                        for (ZipArchive.Entry entry : archive.getEntries()) {
+                            if (!entry.isDirectory()) {
+                                submit(executor, inFlight, results, file, archive, entry);
+                            }
+                        }
+                    }
+                    continue;
+                }
+                submit(executor, inFlight, results, file, null, null);
+            }
+            executor.shutdown();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            results.put(Result.END);
+            writerThread.join();
+        } finally {
+            if (output != null) {
+                stream.close();
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        Throwable error = writeError.get();
+        if (error instanceof IOException) {
+            throw (IOException) error;
+        } else if (error instanceof RuntimeException) {
+            throw (RuntimeException) error;
+        } else if (error instanceof Error) {
+            throw (Error) error;
+        } else if (error != null) {
+            throw new IOException(error);
+        }
+        report(report, elapsed);
+    }
+
+    private void submit(ExecutorService executor, final Semaphore inFlight, final BlockingQueue<Result> results,
+                        final File file, final ZipArchive archive, final ZipArchive.Entry entry) throws InterruptedException {
+        inFlight.acquire();
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Result result = extract(file, archive, entry);
+                    if (result != null) {
+                        results.put(result);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    inFlight.release();
+                }
+            }
+        });
+    }
+
+    private ZipArchive readArchive(File file, BlockingQueue<Result> results) throws InterruptedException {
+        AbstractSeekableBinaryReader reader = null;
+        try {
+            reader = open(file);
+            return ZipArchive.read(reader);
+        } catch (IOException e) {
+            Result result = new Result(file.getPath(), file.length());
+            result.error = e.toString();
+            results.put(result);
+            return null;
+        } finally {
+            close(reader);
+        }
+    }
+
+    private AbstractSeekableBinaryReader open(File file) throws IOException {
+        return "mmap".equals(io) ? new MappedFileBinaryReader(file) : new FileBinaryReader(file);
+    }
+
+    private static void close(AbstractSeekableBinaryReader reader) {
+        if (reader != null) {
+            try {
+                reader.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private Result extract(File file, ZipArchive archive, ZipArchive.Entry entry) {
+        Result result = entry == null ? new Result(file.getPath(), file.length())
+                : new Result(file.getPath() + "!/" + entry.getName(), entry.getSize());
+        long start = System.nanoTime();
+        ParseBudget.Tracker tracker = budget.start();
+        AbstractSeekableBinaryReader parent = null;
+        AbstractSeekableBinaryReader reader = null;
+        try {
+            if (entry == null) {
+                reader = open(file);
+            } else {
+                parent = open(file);
+                reader = archive.open(parent, entry);
+            }
+            reader.setOrder(ByteOrder.BIG_ENDIAN);
+            result.format = FileFormat.detect(reader);
+            if (result.format == FileFormat.UNKNOWN) {
+                return null;
+            } else if (result.format == FileFormat.MP4 || result.format == FileFormat.QUICKTIME) {
+                VideoMetadata video = VideoMetadata.parse(reader, tracker);
+                if (video != null) {
+                    result.make = video.getMake();
+                    result.model = video.getModel();
+                    if (video.getCreationTime() != null) {
+                        result.captureTime = video.getCreationTime();
+                    }
+                    result.latitude = video.getGPSLatitude();
+                    result.longitude = video.getGPSLongitude();
+                    result.duration = video.getDuration();
+                }
+            } else {
+                Exif exif = Exif.parse(reader, tracker);
+                if (exif != null && records) {
+                    result.record = ExifRecord.of(exif);
+                } else if (exif != null) {
+                    result.make = exif.getMake();
+                    result.model = exif.getModel();
+                    result.captureTime = exif.getCaptureTime();
+                    result.exposureTime = exif.getExposureTime();
+                    result.fNumber = exif.getFNumber();
+                    result.latitude = exif.getGPSLatitude();
+                    result.longitude = exif.getGPSLongitude();
+                    result.lens = exif.getLens();
+                }
+                if (exif != null && dedup) {
+                    result.fingerprint = ExifFingerprint.of(exif);
+                }
+            }
+        } catch (IOException e) {
+            result.error = e.toString();
+        } catch (RuntimeException e) {
+            result.error = e.toString();
+        } finally {
+            close(reader);
+            close(parent);
+            result.bytesRead = tracker.getBytesRead();
+            result.nanos = System.nanoTime() - start;
+        }
+        return result;
+    }
+
+    private void record(Result result) {
+        if (result.error != null) {
+            errorCount++;
+        }
+        bytesRead += result.bytesRead;
+        if (result.fingerprint != ExifFingerprint.NONE) {
+            int first = duplicates.putIfAbsent(result.fingerprint, originals.size());
+            if (first == DuplicateIndex.ABSENT) {
+                originals.add(result.path);
+            } else {
+                result.duplicateOf = originals.get(first);
+                duplicateCount++;
+            }
+        }
+        fileCount++;
+        latencies.record(result.nanos);
+    }
+
+    private void report(PrintStream out, long elapsed) {
+        double seconds = elapsed / 1e9;
+        out.printf("files: %d, errors: %d, elapsed: %.3f s%n", fileCount, errorCount, seconds);
+        if (dedup) {
+            out.printf("duplicates: %d%n", duplicateCount);
+        }
+        out.printf("files/sec: %.1f%n", seconds > 0 ? fileCount / seconds : 0);
+        out.printf("MB read/file: %.4f%n", fileCount > 0 ? bytesRead / 1048576.0 / fileCount : 0);
+        out.printf("latency p50: %.3f ms, p99: %.3f ms%n", latencies.percentile(50) / 1e6,
+                latencies.percentile(99) / 1e6);
+    }
+}
@@ -0,0 +1,62 @@
+package org.lds.media.cli;
+
+/**
+ * Counts latencies in fixed log-scale buckets: exact below 8 ns, then eight buckets per power of two, so any
+ * percentile is within 12.5% and the memory does not grow with the number of files.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKETS = 8;
+    private static final int SUB_BUCKET_BITS = 3;
+
+    private final long[] counts = new long[bucket(Long.MAX_VALUE) + 1];
+    private long count;
+
+    static int bucket(long nanos) {
+        if (nanos < SUB_BUCKETS) {
+            return (int) Math.max(nanos, 0);
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        int mantissa = (int) (nanos >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + mantissa;
+    }
+
+    /**
+     * Returns the largest value that falls into {@code bucket}.
+     */
+    static long highestValue(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lowest = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    public void record(long nanos) {
+        counts[bucket(nanos)]++;
+        count++;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the upper bound of the bucket holding the {@code p}th percentile, or 0 if nothing was recorded.
+     */
+    public long percentile(int p) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.min(count - 1, count * p / 100);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen > rank) {
+                return highestValue(i);
+            }
+        }
+        return highestValue(counts.length - 1);
+    }
+}
@@ -0,0 +1,32 @@
+package org.lds.media.cli;
+
+import org.lds.media.exif.ExifDateTime;
+import org.lds.media.exif.ExifRecord;
+
+class Result {
+    static final Result END = new Result(null, 0);
+
+    final String path;
+    final long size;
+    int format;
+    String make;
+    String model;
+    long captureTime = ExifDateTime.UNKNOWN;
+    String exposureTime;
+    Float fNumber;
+    Double latitude;
+    Double longitude;
+    String lens;
+    ExifRecord record;
+    Long duration;
+    long fingerprint;
+    String duplicateOf;
+    String error;
+    long bytesRead;
+    long nanos;
+
+    Result(String path, long size) {
+        this.path = path;
+        this.size = size;
+    }
+}
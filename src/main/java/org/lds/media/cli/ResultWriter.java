@@ -0,0 +1,227 @@
+package org.lds.media.cli;
+
+import org.lds.media.FileFormat;
+import org.lds.media.exif.ExifColumnWriter;
+import org.lds.media.exif.ExifDateTime;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+abstract class ResultWriter {
+
+    static ResultWriter create(String format, OutputStream out) throws IOException {
+        if ("jsonl".equals(format)) {
+            return new JsonLines(text(out));
+        } else if ("csv".equals(format)) {
+            return new Csv(text(out));
+        } else if ("columnar".equals(format)) {
+            return new Columnar(new BufferedOutputStream(out, 1 << 16));
+        }
+        throw new IllegalArgumentException("unknown output format: " + format);
+    }
+
+    private static Writer text(OutputStream out) throws IOException {
+        return new BufferedWriter(new OutputStreamWriter(out, "UTF-8"), 1 << 16);
+    }
+
+    void begin() throws IOException {
+    }
+
+    abstract void write(Result result) throws IOException;
+
+    abstract void end() throws IOException;
+
+    /**
+     * Returns whether results must carry an {@link org.lds.media.exif.ExifRecord}.
+     */
+    boolean needsRecord() {
+        return false;
+    }
+
+    private abstract static class Text extends ResultWriter {
+        protected final Writer out;
+
+        Text(Writer out) {
+            this.out = out;
+        }
+
+        @Override
+        void end() throws IOException {
+            out.flush();
+        }
+    }
+
+    /**
+     * Writes the Exif fields of every result in row groups; see {@link ExifColumnWriter}.
+     */
+    private static class Columnar extends ResultWriter {
+        private final ExifColumnWriter writer;
+
+        Columnar(OutputStream out) throws IOException {
+            writer = new ExifColumnWriter(out);
+        }
+
+        @Override
+        boolean needsRecord() {
+            return true;
+        }
+
+        @Override
+        void write(Result r) throws IOException {
+            if (r.error != null) {
+                writer.writeFailed(r.path);
+            } else if (r.format == FileFormat.MP4 || r.format == FileFormat.QUICKTIME) {
+                writer.writeNotPhoto(r.path);
+            } else {
+                writer.write(r.path, r.record);
+            }
+        }
+
+        @Override
+        void end() throws IOException {
+            writer.finish();
+        }
+    }
+
+    private static class JsonLines extends Text {
+        private boolean first;
+
+        JsonLines(Writer out) {
+            super(out);
+        }
+
+        @Override
+        void write(Result r) throws IOException {
+            first = true;
+            out.write('{');
+            string("path", r.path);
+            number("size", r.size);
+            string("format", FileFormat.getName(r.format));
+            string("make", r.make);
+            string("model", r.model);
+            if (r.captureTime != ExifDateTime.UNKNOWN) {
+                number("captureTime", r.captureTime);
+            }
+            string("exposureTime", r.exposureTime);
+            number("fNumber", r.fNumber);
+            number("latitude", r.latitude);
+            number("longitude", r.longitude);
+            string("lens", r.lens);
+            number("duration", r.duration);
+            string("duplicateOf", r.duplicateOf);
+            string("error", r.error);
+            out.write("}\n");
+        }
+
+        private void name(String name) throws IOException {
+            if (!first) {
+                out.write(',');
+            }
+            first = false;
+            out.write('"');
+            out.write(name);
+            out.write("\":");
+        }
+
+        private void number(String name, Number value) throws IOException {
+            if (value != null) {
+                name(name);
+                out.write(value.toString());
+            }
+        }
+
+        private void string(String name, String value) throws IOException {
+            if (value == null) {
+                return;
+            }
+            name(name);
+            out.write('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"' || c == '\\') {
+                    out.write('\\');
+                    out.write(c);
+                } else if (c < 0x20) {
+                    out.write(String.format("\\u%04x", (int) c));
+                } else {
+                    out.write(c);
+                }
+            }
+            out.write('"');
+        }
+    }
+
+    private static class Csv extends Text {
+
+        Csv(Writer out) {
+            super(out);
+        }
+
+        @Override
+        void begin() throws IOException {
+            out.write("path,size,format,make,model,captureTime,exposureTime,fNumber,latitude,longitude,lens,duration,duplicateOf,error\n");
+        }
+
+        @Override
+        void write(Result r) throws IOException {
+            field(r.path);
+            out.write(',');
+            out.write(Long.toString(r.size));
+            out.write(',');
+            field(FileFormat.getName(r.format));
+            out.write(',');
+            field(r.make);
+            out.write(',');
+            field(r.model);
+            out.write(',');
+            if (r.captureTime != ExifDateTime.UNKNOWN) {
+                out.write(Long.toString(r.captureTime));
+            }
+            out.write(',');
+            field(r.exposureTime);
+            out.write(',');
+            number(r.fNumber);
+            out.write(',');
+            number(r.latitude);
+            out.write(',');
+            number(r.longitude);
+            out.write(',');
+            field(r.lens);
+            out.write(',');
+            number(r.duration);
+            out.write(',');
+            field(r.duplicateOf);
+            out.write(',');
+            field(r.error);
+            out.write('\n');
+        }
+
+        private void number(Number value) throws IOException {
+            if (value != null) {
+                out.write(value.toString());
+            }
+        }
+
+        private void field(String value) throws IOException {
+            if (value == null) {
+                return;
+            }
+            boolean quote = false;
+            for (int i = 0; i < value.length() && !quote; i++) {
+                char c = value.charAt(i);
+                quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (!quote) {
+                out.write(value);
+                return;
+            }
+            out.write('"');
+            out.write(value.replace("\"", "\"\""));
+            out.write('"');
+        }
+    }
+}
@@ -1,100 +1,147 @@
 package org.lds.media.exif;
 
-import org.lds.ByteArrayUtil;
 import org.lds.io.AbstractSeekableBinaryReader;
 import org.lds.io.FileBinaryReader;
 import org.lds.math.Fraction;
-import org.lds.media.isobmff.*;
+import org.lds.media.FileFormat;
+import org.lds.media.JpegSegments;
+import org.lds.media.ParseBudget;
+import org.lds.media.ParseLimitException;
+import org.lds.media.isobmff.HeifItems;
+import org.lds.media.isobmff.ItemLocationBox;
 import org.lds.media.tiff.IFD;
 import org.lds.media.tiff.TIFF;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.ByteOrder;
-import java.text.DecimalFormat;
 import java.util.Arrays;
 
 public class Exif {
-    private static final int SOI = 0xffd8;
-    private static final int APP1 = 0xffe1;
-    private static final int SOS = 0xffda;
-    private static final String MAKE_CANON = "Canon";
-    private static final String MAKE_NIKON = "NIKON CORPORATION";
     private static final byte[] EXIF_MARKER = new byte[]{0x45, 0x78, 0x69, 0x66, 0x00, 0x00};
-    private static final byte[] NIKON_TYPE_1_MARKER = new byte[]{0x4e, 0x69, 0x6b, 0x6f, 0x6e, 0x00, 0x01, 0x00};
-    private static final byte[] NIKON_TYPE_2_A_MARKER = new byte[]{0x4e, 0x69, 0x6b, 0x6f, 0x6e, 0x00, 0x02, 0x10, 0x00, 0x00};
-    private static final byte[] NIKON_TYPE_2_B_MARKER = new byte[]{0x4e, 0x69, 0x6b, 0x6f, 0x6e, 0x00, 0x02, 0x00, 0x00, 0x00};
+    private static final int PNG_SIGNATURE_LENGTH = 8;
+    private static final int PNG_EXIF = 0x65584966;
+    private static final int PNG_IEND = 0x49454e44;
+    private static final int RIFF_HEADER_LENGTH = 12;
+    private static final int WEBP_EXIF = 0x46495845;
 
     public static Exif parse(File file) throws IOException {
-        return parse(new FileBinaryReader(file));
+        return parse(file, ParseBudget.DEFAULT);
     }
 
-    private static Exif parse(AbstractSeekableBinaryReader reader) throws IOException {
+    public static Exif parse(File file, ParseBudget budget) throws IOException {
+        return parse(new FileBinaryReader(file), budget.start());
+    }
+
+    public static Exif parse(AbstractSeekableBinaryReader reader) throws IOException {
+        return parse(reader, ParseBudget.DEFAULT.start());
+    }
+
+    public static Exif parse(AbstractSeekableBinaryReader reader, ParseBudget.Tracker tracker) throws IOException {
+        long offset = findTIFF(reader, tracker);
+        if (offset < 0) {
+            return null;
+        }
+        TIFF tiff = TIFF.parse(reader, offset, tracker);
+        if (tiff == null) {
+            return null;
+        }
+        Exif exif = new Exif(tiff);
+        // the directories are read; later getters read single values and must not run into the file's budget
+        tracker.freeze();
+        return exif;
+    }
+
+    static long findTIFF(AbstractSeekableBinaryReader reader, ParseBudget.Tracker tracker) throws IOException {
         reader.setOrder(ByteOrder.BIG_ENDIAN);
-        long offset = findTIFFInJPEG(reader);
-        if (offset == 0) {
-            offset = findTIFFInHEIC(reader);
-        }
-        TIFF tiff = TIFF.parse(reader, offset);
-        return tiff == null ? null : new Exif(tiff);
-    }
-
-    private static long findTIFFInJPEG(AbstractSeekableBinaryReader reader) throws IOException {
-        reader.seek(0);
-        if ((reader.readUnsignedShortValue()) == SOI) {
-            while (true) {
-                int id = reader.readUnsignedShortValue();
-                int size = reader.readUnsignedShortValue();
-                if (id == APP1) {
-                    byte[] exifMarker = reader.readByteArray(6);
-                    if (Arrays.equals(exifMarker, EXIF_MARKER)) {
-                        return reader.getPosition();
-                    }
-                    break;
-                } else if (id == SOS) {
-                    break;
-                } else {
-                    reader.skip(size - 2);
-                }
+        tracker.read(FileFormat.HEADER_LENGTH);
+        switch (FileFormat.detect(reader)) {
+            case FileFormat.JPEG:
+                return findTIFFInJPEG(reader, tracker);
+            case FileFormat.HEIF:
+                return findTIFFInHEIC(reader, tracker);
+            case FileFormat.TIFF:
+                return 0;
+            case FileFormat.PNG:
+                return findTIFFInPNG(reader, tracker);
+            case FileFormat.WEBP:
+                return findTIFFInWebP(reader, tracker);
+            default:
+                return -1;
+        }
+    }
+
+    private static long findTIFFInJPEG(AbstractSeekableBinaryReader reader, ParseBudget.Tracker tracker) throws IOException {
+        JpegSegments segments = new JpegSegments(reader, tracker);
+        while (segments.next()) {
+            if (segments.getMarker() == JpegSegments.APP1 && segments.startsWith(EXIF_MARKER)) {
+                return segments.getDataOffset() + EXIF_MARKER.length;
             }
         }
-        return 0;
-    }
-
-    private static long findTIFFInHEIC(AbstractSeekableBinaryReader reader) throws IOException {
-        reader.seek(0);
-        Box box = Box.read(reader);
-        if (box instanceof FileTypeBox) {
-            FileTypeBox ftyp = (FileTypeBox) box;
-            if ("heic".equals(ftyp.getMajorBrand())) {
-                box = Box.read(reader);
-                if (box instanceof MetaBox) {
-                    MetaBox meta = (MetaBox) box;
-                    int itemId = 0;
-                    for (long offset = meta.getDataOffset(); offset < meta.getSize(); offset += box.getSize()) {
-                        box = Box.read(reader);
-                        if (box instanceof ItemInfoBox) {
-                            ItemInfoBox iinf = (ItemInfoBox) box;
-                            for (int i = 0; i < iinf.getEntryCount(); i++) {
-                                ItemInfoEntry infe = (ItemInfoEntry) Box.read(reader);
-                                if ("Exif".equals(infe.getItemType())) {
-                                    itemId = infe.getItemId();
-                                }
-                                infe.skip();
-                            }
-                        } else if (box instanceof ItemLocationBox) {
-                            ItemLocationBox iloc = (ItemLocationBox) box;
-                            ItemLocationBox.Item item = iloc.getItemById(itemId);
-                            ItemLocationBox.Extent extent = item.getExtent(0);
-                            return extent.getExtentOffset() + 10;
-                        } else {
-                            box.skip();
-                        }
-                    }
-                }
+        return -1;
+    }
+
+    private static long findTIFFInPNG(AbstractSeekableBinaryReader reader, ParseBudget.Tracker tracker) throws IOException {
+        long length = reader.getLength();
+        long position = PNG_SIGNATURE_LENGTH;
+        while (position + 12 <= length) {
+            tracker.segment();
+            tracker.read(8);
+            reader.seek(position);
+            long size = reader.readUnsignedIntValue();
+            int type = reader.readIntValue();
+            if (type == PNG_EXIF) {
+                return skipExifMarker(reader, position + 8, size);
+            } else if (type == PNG_IEND) {
+                break;
+            }
+            position += 12 + size;
+        }
+        return -1;
+    }
+
+    private static long findTIFFInWebP(AbstractSeekableBinaryReader reader, ParseBudget.Tracker tracker) throws IOException {
+        reader.setOrder(ByteOrder.LITTLE_ENDIAN);
+        reader.seek(4);
+        long length = Math.min(reader.getLength(), reader.readUnsignedIntValue() + 8);
+        long position = RIFF_HEADER_LENGTH;
+        while (position + 8 <= length) {
+            tracker.segment();
+            tracker.read(8);
+            reader.seek(position);
+            int type = reader.readIntValue();
+            long size = reader.readUnsignedIntValue();
+            if (type == WEBP_EXIF) {
+                return skipExifMarker(reader, position + 8, size);
+            }
+            position += 8 + size + (size & 1);
+        }
+        return -1;
+    }
+
+    private static long skipExifMarker(AbstractSeekableBinaryReader reader, long position, long size) throws IOException {
+        if (size >= EXIF_MARKER.length) {
+            reader.seek(position);
+            if (Arrays.equals(reader.readByteArray(EXIF_MARKER.length), EXIF_MARKER)) {
+                return position + EXIF_MARKER.length;
             }
         }
-        return 0;
+        return position;
+    }
+
+    private static long findTIFFInHEIC(AbstractSeekableBinaryReader reader, ParseBudget.Tracker tracker) throws IOException {
+        ItemLocationBox.Extent extent = HeifItems.find(reader, tracker, "Exif", null);
+        if (extent == null || extent.getExtentLength() < 4) {
+            return -1;
+        }
+        // the item starts with the offset of the TIFF header past the usual "Exif\0\0" prefix
+        tracker.read(4);
+        reader.seek(extent.getExtentOffset());
+        long headerOffset = reader.readUnsignedIntValue();
+        if (headerOffset > extent.getExtentLength() - 4) {
+            return -1;
+        }
+        return extent.getExtentOffset() + 4 + headerOffset;
     }
 
     private final TIFF tiff;
@@ -103,14 +150,16 @@ public class Exif {
     private final IFD exifIFD;
     private final IFD gpsInfoIFD;
     private final IFD makerNoteIFD;
+    private final byte[] buffer = new byte[32];
 
     public Exif(TIFF tiff) throws IOException {
         this.tiff = tiff;
         ifd0 = tiff.readIFD(tiff.getOffsetOfIFD());
-        ifd1 = getIFD1();
         exifIFD = getExifIFD();
         gpsInfoIFD = getGPSInfoIFD();
         makerNoteIFD = getMakerNoteIFD();
+        // last, so a next pointer into another directory costs only the thumbnail
+        ifd1 = getIFD1();
     }
 
     public String getMake() throws IOException {
@@ -134,18 +183,30 @@ public class Exif {
         return ifd0.getString(0x132);
     }
 
-    public String getExposureTime() throws IOException {
+    public long getCaptureTime() throws IOException {
+        long time = getTime(exifIFD, 0x9003, 0x9291, 0x9011);
+        if (time == ExifDateTime.UNKNOWN) {
+            time = getTime(ifd0, 0x132, 0x9290, 0x9010);
+        }
+        return time;
+    }
+
+    public Fraction getExposureTimeValue() throws IOException {
         if (exifIFD == null) {
             return null;
         }
-        Fraction value = exifIFD.getRational(0x829a);
+        return exifIFD.getRational(0x829a);
+    }
+
+    public String getExposureTime() throws IOException {
+        Fraction value = getExposureTimeValue();
         if (value == null) {
             return null;
         }
         if (value.getNumerator() > value.getDenominator()) {
-            return new DecimalFormat().format(value.floatValue());
+            return appendDecimal(new StringBuilder(8), value.floatValue()).toString();
         }
-        return String.format("1/%d", value.reciprocal().longValue());
+        return "1/" + value.reciprocal().longValue();
     }
 
     public Float getFNumber() throws IOException {
@@ -159,35 +220,131 @@ public class Exif {
         return value.floatValue();
     }
 
+    /**
+     * Returns a 64-bit hash of the IFD1 JPEG thumbnail bytes, or 0 if there is no thumbnail.
+     */
+    public long getThumbnailHash() throws IOException {
+        if (ifd1 == null) {
+            return 0;
+        }
+        Long offset = ifd1.getLong(0x201);
+        Long length = ifd1.getLong(0x202);
+        if (offset == null || length == null || length <= 0) {
+            return 0;
+        }
+        AbstractSeekableBinaryReader reader = tiff.getReader();
+        long position = tiff.getOffset() + offset;
+        tiff.getTracker().checkValueSize(length);
+        tiff.getTracker().checkRange(position, length, reader.getLength());
+        tiff.getTracker().read(length);
+        reader.seek(position);
+        byte[] chunk = new byte[(int) Math.min(length, 8192)];
+        long hash = ExifFingerprint.FNV_OFFSET;
+        for (long remaining = length; remaining > 0; ) {
+            int n = reader.read(chunk, 0, (int) Math.min(remaining, chunk.length));
+            if (n <= 0) {
+                break;
+            }
+            hash = ExifFingerprint.update(hash, chunk, 0, n);
+            remaining -= n;
+        }
+        return hash;
+    }
+
     public Double getGPSLatitude() throws IOException {
+        return getGPSCoordinate(0x2, 0x1, "S");
+    }
+
+    public Double getGPSLongitude() throws IOException {
+        return getGPSCoordinate(0x4, 0x3, "W");
+    }
+
+    public Double getGPSAltitude() throws IOException {
         if (gpsInfoIFD == null) {
             return null;
         }
-        Object value = gpsInfoIFD.getValue(0x2);
-        if (value instanceof Fraction[]) {
-            return dms((Fraction[]) value);
+        Fraction value = gpsInfoIFD.getRational(0x6);
+        if (value == null || value.getDenominator() == 0) {
+            return null;
         }
-        return null;
+        Object ref = gpsInfoIFD.getValue(0x5);
+        if (ref instanceof byte[] && ((byte[]) ref).length > 0 && ((byte[]) ref)[0] == 1) {
+            return -value.doubleValue();
+        }
+        return value.doubleValue();
     }
 
-    public Double getGPSLongitude() throws IOException {
+    public long getGPSTimestamp() throws IOException {
+        if (gpsInfoIFD == null) {
+            return ExifDateTime.UNKNOWN;
+        }
+        long day = ExifDateTime.parseDate(buffer, 0, gpsInfoIFD.read(0x1d, buffer));
+        Object value = gpsInfoIFD.getValue(0x7);
+        if (day == ExifDateTime.UNKNOWN || !(value instanceof Fraction[]) || ((Fraction[]) value).length < 3) {
+            return ExifDateTime.UNKNOWN;
+        }
+        Fraction[] time = (Fraction[]) value;
+        for (Fraction f : time) {
+            if (f.getDenominator() == 0) {
+                return ExifDateTime.UNKNOWN;
+            }
+        }
+        return day + Math.round((time[0].doubleValue() * 3600 + time[1].doubleValue() * 60 + time[2].doubleValue()) * 1000);
+    }
+
+    /**
+     * Returns the speed in kilometers per hour.
+     */
+    public Double getGPSSpeed() throws IOException {
         if (gpsInfoIFD == null) {
             return null;
         }
-        Object value = gpsInfoIFD.getValue(0x4);
-        if (value instanceof Fraction[]) {
-            return dms((Fraction[]) value);
+        Fraction value = gpsInfoIFD.getRational(0xd);
+        if (value == null || value.getDenominator() == 0) {
+            return null;
+        }
+        String ref = gpsInfoIFD.getString(0xc);
+        if ("M".equals(ref)) {
+            return value.doubleValue() * 1.609344;
+        } else if ("N".equals(ref)) {
+            return value.doubleValue() * 1.852;
         }
-        return null;
+        return value.doubleValue();
+    }
+
+    /**
+     * Returns the direction of movement in degrees; see {@link #getGPSTrackRef()}.
+     */
+    public Double getGPSTrack() throws IOException {
+        return getGPSRational(0xf);
+    }
+
+    public String getGPSTrackRef() throws IOException {
+        return gpsInfoIFD == null ? null : gpsInfoIFD.getString(0xe);
+    }
+
+    /**
+     * Returns the direction the camera was pointing in degrees; see {@link #getGPSImgDirectionRef()}.
+     */
+    public Double getGPSImgDirection() throws IOException {
+        return getGPSRational(0x11);
+    }
+
+    public String getGPSImgDirectionRef() throws IOException {
+        return gpsInfoIFD == null ? null : gpsInfoIFD.getString(0x10);
+    }
+
+    public Double getGPSDOP() throws IOException {
+        return getGPSRational(0xb);
     }
 
     public String getLens() throws IOException {
         String make = getMake();
-        if (MAKE_CANON.equals(make)) {
+        if (MakerNote.MAKE_CANON.equals(make)) {
             if (makerNoteIFD != null) {
                 return makerNoteIFD.getString(0x95);
             }
-        } else if (MAKE_NIKON.equals(make)) {
+        } else if (MakerNote.MAKE_NIKON.equals(make)) {
             if (makerNoteIFD != null) {
                 Object value = makerNoteIFD.getValue(0x84);
                 if (value instanceof Fraction[]) {
@@ -197,10 +354,15 @@ public class Exif {
                         int v2 = array[1].intValue();
                         float v3 = array[2].floatValue();
                         float v4 = array[3].floatValue();
-                        DecimalFormat df = new DecimalFormat();
-                        return String.format("%smm f/%s",
-                                v1 == v2 ? Integer.toString(v1) : String.format("%d-%d", v1, v2),
-                                v3 == v4 ? df.format(v3) : String.format("%s-%s", df.format(v3), df.format(v4)));
+                        StringBuilder sb = new StringBuilder(24).append(v1);
+                        if (v1 != v2) {
+                            sb.append('-').append(v2);
+                        }
+                        appendDecimal(sb.append("mm f/"), v3);
+                        if (v3 != v4) {
+                            appendDecimal(sb.append('-'), v4);
+                        }
+                        return sb.toString();
                     }
                 }
             }
@@ -208,11 +370,38 @@ public class Exif {
         return null;
     }
 
+    private long getTime(IFD ifd, int dateTimeTag, int subSecTimeTag, int offsetTimeTag) throws IOException {
+        if (ifd == null) {
+            return ExifDateTime.UNKNOWN;
+        }
+        long time = ExifDateTime.parse(buffer, 0, ifd.read(dateTimeTag, buffer));
+        if (time == ExifDateTime.UNKNOWN || exifIFD == null) {
+            return time;
+        }
+        int millis = ExifDateTime.parseSubSec(buffer, 0, exifIFD.read(subSecTimeTag, buffer));
+        if (millis > 0) {
+            time += millis;
+        }
+        int offset = ExifDateTime.parseOffset(buffer, 0, exifIFD.read(offsetTimeTag, buffer));
+        if (offset != ExifDateTime.NO_OFFSET) {
+            time -= offset * 60000L;
+        }
+        return time;
+    }
+
     private IFD getIFD1() throws IOException {
         if (ifd0.getOffsetOfNextIFD() <= 0) {
             return null;
         }
-        return tiff.readIFD(ifd0.getOffsetOfNextIFD());
+        try {
+            return tiff.readIFD(ifd0.getOffsetOfNextIFD());
+        } catch (ParseLimitException e) {
+            // a next pointer back to a directory already read is a broken link, not a broken file
+            if (e.getReason() != ParseLimitException.CYCLE) {
+                throw e;
+            }
+            return null;
+        }
     }
 
     private IFD getExifIFD() throws IOException {
@@ -241,28 +430,62 @@ public class Exif {
         if (exifIFD == null) {
             return null;
         }
-        Long makerNoteOffset = exifIFD.getValueOffset(0x927c);
-        if (makerNoteOffset != null && makerNoteOffset > 0) {
-            String make = getMake();
-            if (MAKE_CANON.equals(make)) {
-                return tiff.readIFD(makerNoteOffset);
-            } else if (MAKE_NIKON.equals(make)) {
-                tiff.getReader().seek(makerNoteOffset);
-                byte[] buf = tiff.getReader().readByteArray(10);
-                if (ByteArrayUtil.startsWith(buf, NIKON_TYPE_1_MARKER)) {
-                    return tiff.readIFD(makerNoteOffset + 8);
-                } else if (ByteArrayUtil.startsWith(buf, NIKON_TYPE_2_A_MARKER) ||
-                        ByteArrayUtil.startsWith(buf, NIKON_TYPE_2_B_MARKER)) {
-                    TIFF makerNoteTIFF = TIFF.parse(tiff.getReader(), tiff.getOffset() + makerNoteOffset + 10);
-                    if (makerNoteTIFF != null) {
-                        return makerNoteTIFF.readIFD(makerNoteTIFF.getOffsetOfIFD());
-                    }
-                } else {
-                    return tiff.readIFD(makerNoteOffset);
+        MakerNote makerNote = MakerNote.locate(tiff, getMake(), exifIFD.getValueOffset(0x927c));
+        if (makerNote == null) {
+            return null;
+        }
+        return makerNote.getTIFF().readIFD(makerNote.getOffsetOfIFD());
+    }
+
+    private Double getGPSCoordinate(int tag, int refTag, String negativeRef) throws IOException {
+        if (gpsInfoIFD == null) {
+            return null;
+        }
+        Object value = gpsInfoIFD.getValue(tag);
+        if (!(value instanceof Fraction[]) || ((Fraction[]) value).length < 3) {
+            return null;
+        }
+        for (Fraction f : (Fraction[]) value) {
+            if (f.getDenominator() == 0) {
+                return null;
+            }
+        }
+        double coordinate = dms((Fraction[]) value);
+        return negativeRef.equals(gpsInfoIFD.getString(refTag)) ? -coordinate : coordinate;
+    }
+
+    private Double getGPSRational(int tag) throws IOException {
+        if (gpsInfoIFD == null) {
+            return null;
+        }
+        Fraction value = gpsInfoIFD.getRational(tag);
+        if (value == null || value.getDenominator() == 0) {
+            return null;
+        }
+        return value.doubleValue();
+    }
+
+    /**
+     * Appends {@code value} with at most three fraction digits and no trailing zeros, like "#0.###".
+     */
+    private static StringBuilder appendDecimal(StringBuilder sb, double value) {
+        long scaled = Math.round(value * 1000);
+        if (scaled < 0) {
+            sb.append('-');
+            scaled = -scaled;
+        }
+        sb.append(scaled / 1000);
+        int fraction = (int) (scaled % 1000);
+        if (fraction != 0) {
+            sb.append('.').append((char) ('0' + fraction / 100));
+            if (fraction % 100 != 0) {
+                sb.append((char) ('0' + fraction / 10 % 10));
+                if (fraction % 10 != 0) {
+                    sb.append((char) ('0' + fraction % 10));
                 }
             }
         }
-        return null;
+        return sb;
     }
 
     private double dms(Fraction[] array) {
@@ -0,0 +1,176 @@
+package org.lds.media.exif;
+
+import org.lds.io.FileBinaryReader;
+import org.lds.media.ParseBudget;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class ExifCache {
+
+    public static class Stats {
+        private final long hitCount;
+        private final long missCount;
+        private final long evictionCount;
+        private final int entryCount;
+        private final long weight;
+
+        private Stats(long hitCount, long missCount, long evictionCount, int entryCount, long weight) {
+            this.hitCount = hitCount;
+            this.missCount = missCount;
+            this.evictionCount = evictionCount;
+            this.entryCount = entryCount;
+            this.weight = weight;
+        }
+
+        public long getHitCount() {
+            return hitCount;
+        }
+
+        public long getMissCount() {
+            return missCount;
+        }
+
+        public long getEvictionCount() {
+            return evictionCount;
+        }
+
+        public int getEntryCount() {
+            return entryCount;
+        }
+
+        public long getWeight() {
+            return weight;
+        }
+
+        public double getHitRate() {
+            long requestCount = hitCount + missCount;
+            return requestCount == 0 ? 1 : (double) hitCount / requestCount;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("hits=%d, misses=%d, evictions=%d, entries=%d, bytes=%d",
+                    hitCount, missCount, evictionCount, entryCount, weight);
+        }
+    }
+
+    private static class Key {
+        private final String path;
+        private final long size;
+        private final long lastModified;
+
+        private Key(String path, long size, long lastModified) {
+            this.path = path;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return size == key.size && lastModified == key.lastModified && path.equals(key.path);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * path.hashCode() + (int) (size ^ size >>> 32)) + (int) (lastModified ^ lastModified >>> 32);
+        }
+    }
+
+    private static final ExifRecord NONE = new ExifRecord(null, null, null, ExifDateTime.UNKNOWN, 0, 0, 0, 0, 0, 0);
+    private static final int ENTRY_OVERHEAD = 64;
+
+    private final long maxWeight;
+    private final ParseBudget budget;
+    private final LinkedHashMap<Key, ExifRecord> records = new LinkedHashMap<Key, ExifRecord>(256, 0.75f, true);
+    private long weight;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    public ExifCache(long maxWeight) {
+        this(maxWeight, ParseBudget.DEFAULT);
+    }
+
+    public ExifCache(long maxWeight, ParseBudget budget) {
+        this.maxWeight = maxWeight;
+        this.budget = budget;
+    }
+
+    /**
+     * Returns the cached record for the file, parsing it on a miss. Returns null if the file has no Exif.
+     * Entries are keyed by path, size and modification time, so a rewritten file is parsed again.
+     */
+    public ExifRecord get(File file) throws IOException {
+        Key key = new Key(file.getPath(), file.length(), file.lastModified());
+        ExifRecord record;
+        synchronized (this) {
+            record = records.get(key);
+            if (record != null) {
+                hitCount++;
+                return record == NONE ? null : record;
+            }
+            missCount++;
+        }
+        record = load(file);
+        synchronized (this) {
+            ExifRecord previous = records.put(key, record);
+            if (previous != null) {
+                weight -= weigh(key, previous);
+            }
+            weight += weigh(key, record);
+            evict();
+        }
+        return record == NONE ? null : record;
+    }
+
+    public synchronized void invalidate(File file) {
+        for (Iterator<Map.Entry<Key, ExifRecord>> it = records.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Key, ExifRecord> entry = it.next();
+            if (entry.getKey().path.equals(file.getPath())) {
+                weight -= weigh(entry.getKey(), entry.getValue());
+                it.remove();
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        records.clear();
+        weight = 0;
+    }
+
+    public synchronized Stats getStats() {
+        return new Stats(hitCount, missCount, evictionCount, records.size(), weight);
+    }
+
+    private ExifRecord load(File file) throws IOException {
+        FileBinaryReader reader = new FileBinaryReader(file);
+        try {
+            Exif exif = Exif.parse(reader, budget.start());
+            return exif == null ? NONE : ExifRecord.of(exif);
+        } finally {
+            reader.close();
+        }
+    }
+
+    private void evict() {
+        for (Iterator<Map.Entry<Key, ExifRecord>> it = records.entrySet().iterator();
+             weight > maxWeight && it.hasNext(); ) {
+            Map.Entry<Key, ExifRecord> entry = it.next();
+            weight -= weigh(entry.getKey(), entry.getValue());
+            it.remove();
+            evictionCount++;
+        }
+    }
+
+    private static long weigh(Key key, ExifRecord record) {
+        return ENTRY_OVERHEAD + 40 + key.path.length() * 2 + record.estimateSize();
+    }
+}
@@ -0,0 +1,410 @@
+package org.lds.media.exif;
+
+import org.lds.io.AbstractSeekableBinaryReader;
+import org.lds.io.FileBinaryReader;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reads files written by {@link ExifColumnWriter}. Row groups are decoded one at a time and only for the requested
+ * columns, and the capture time range of every group is in the footer, so time-bounded queries can skip whole
+ * groups without reading them.
+ */
+public class ExifColumnReader {
+    public static final int PATH = 1 << ExifColumns.PATH;
+    public static final int MAKE = 1 << ExifColumns.MAKE;
+    public static final int MODEL = 1 << ExifColumns.MODEL;
+    public static final int LENS = 1 << ExifColumns.LENS;
+    public static final int CAPTURE_TIME = 1 << ExifColumns.CAPTURE_TIME;
+    public static final int EXPOSURE_TIME = 1 << ExifColumns.EXPOSURE_NUMERATOR | 1 << ExifColumns.EXPOSURE_DENOMINATOR;
+    public static final int F_NUMBER = 1 << ExifColumns.F_NUMBER;
+    public static final int GPS = 1 << ExifColumns.LATITUDE | 1 << ExifColumns.LONGITUDE;
+    public static final int RECORD = MAKE | MODEL | LENS | CAPTURE_TIME | EXPOSURE_TIME | F_NUMBER | GPS;
+    public static final int ALL = PATH | RECORD;
+
+    /**
+     * Deflate cannot expand data by more than about 1032:1, so larger raw lengths mean a corrupt directory.
+     */
+    private static final int MAX_INFLATION = 1032;
+
+    /**
+     * The decoded columns of one row group. Getters for columns that were not requested throw
+     * {@link IllegalStateException}.
+     */
+    public static class RowGroup {
+        private final int size;
+        private final int[] flags;
+        private String[] paths;
+        private String[] makes;
+        private String[] models;
+        private String[] lenses;
+        private long[] captureTimes;
+        private long[] exposureNumerators;
+        private long[] exposureDenominators;
+        private float[] fNumbers;
+        private double[] latitudes;
+        private double[] longitudes;
+
+        private RowGroup(int size) {
+            this.size = size;
+            this.flags = new int[size];
+        }
+
+        public int size() {
+            return size;
+        }
+
+        private static <T> T check(T column) {
+            if (column == null) {
+                throw new IllegalStateException("column was not read");
+            }
+            return column;
+        }
+
+        public boolean hasRecord(int row) {
+            return (flags[row] & ExifColumns.HAS_RECORD) != 0;
+        }
+
+        /**
+         * Returns whether the file could not be read or parsed, as opposed to having no Exif.
+         */
+        public boolean isFailed(int row) {
+            return (flags[row] & ExifColumns.FAILED) != 0;
+        }
+
+        /**
+         * Returns whether the file is not a photo, e.g. a video.
+         */
+        public boolean isNotPhoto(int row) {
+            return (flags[row] & ExifColumns.NOT_PHOTO) != 0;
+        }
+
+        public String getPath(int row) {
+            return check(paths)[row];
+        }
+
+        public String getMake(int row) {
+            return check(makes)[row];
+        }
+
+        public String getModel(int row) {
+            return check(models)[row];
+        }
+
+        public String getLens(int row) {
+            return check(lenses)[row];
+        }
+
+        /**
+         * Returns {@link ExifDateTime#UNKNOWN} when absent.
+         */
+        public long getCaptureTime(int row) {
+            return check(captureTimes)[row];
+        }
+
+        public double getExposureTimeSeconds(int row) {
+            check(exposureNumerators);
+            return (flags[row] & ExifRecord.HAS_EXPOSURE_TIME) != 0
+                    ? (double) exposureNumerators[row] / exposureDenominators[row] : Double.NaN;
+        }
+
+        public float getFNumber(int row) {
+            return check(fNumbers)[row];
+        }
+
+        public double getGPSLatitude(int row) {
+            return check(latitudes)[row];
+        }
+
+        public double getGPSLongitude(int row) {
+            return check(longitudes)[row];
+        }
+
+        /**
+         * Returns the row as a record, or null if it was written without one. Needs the {@link #RECORD} columns.
+         */
+        public ExifRecord getRecord(int row) {
+            if (!hasRecord(row)) {
+                return null;
+            }
+            return new ExifRecord(getMake(row), getModel(row), getLens(row), getCaptureTime(row),
+                    check(exposureNumerators)[row], check(exposureDenominators)[row], getFNumber(row),
+                    getGPSLatitude(row), getGPSLongitude(row), flags[row] & ExifColumns.RECORD_FLAGS);
+        }
+    }
+
+    public static ExifColumnReader open(File file) throws IOException {
+        FileBinaryReader reader = new FileBinaryReader(file);
+        try {
+            return new ExifColumnReader(reader);
+        } catch (IOException e) {
+            reader.close();
+            throw e;
+        }
+    }
+
+    private final AbstractSeekableBinaryReader reader;
+    private final Inflater inflater = new Inflater();
+    private final String[][] dictionaries = new String[ExifColumns.DICTIONARY_COLUMNS.length][];
+    private final long[] offsets;
+    private final int[] rowCounts;
+    private final long[] minTimes;
+    private final long[] maxTimes;
+    private final long rowCount;
+
+    public ExifColumnReader(AbstractSeekableBinaryReader reader) throws IOException {
+        this.reader = reader;
+        long length = reader.getLength();
+        int headerLength = ExifColumns.MAGIC.length + 1;
+        if (length < headerLength + ExifColumns.TRAILER_LENGTH) {
+            throw new IOException("not an Exif column file");
+        }
+        reader.seek(0);
+        byte[] header = reader.readByteArray(headerLength);
+        if (!startsWithMagic(header, 0) || header[ExifColumns.MAGIC.length] != ExifColumns.VERSION) {
+            throw new IOException("not an Exif column file");
+        }
+        reader.seek(length - ExifColumns.TRAILER_LENGTH);
+        byte[] trailerBytes = reader.readByteArray(ExifColumns.TRAILER_LENGTH);
+        if (!startsWithMagic(trailerBytes, ExifColumns.TRAILER_LENGTH - ExifColumns.MAGIC.length)) {
+            throw new IOException("not an Exif column file");
+        }
+        ExifColumns.Cursor trailer = new ExifColumns.Cursor(trailerBytes, 0, ExifColumns.TRAILER_LENGTH);
+        long footerOffset = trailer.readLong();
+        int footerLength = trailer.readInt();
+        if (footerOffset < headerLength || footerLength < 0
+                || footerOffset + footerLength != length - ExifColumns.TRAILER_LENGTH) {
+            throw new IOException("malformed Exif column footer");
+        }
+        reader.seek(footerOffset);
+        ExifColumns.Cursor footer = new ExifColumns.Cursor(reader.readByteArray(footerLength), 0, footerLength);
+        for (int i = 0; i < dictionaries.length; i++) {
+            int count = footer.readVarInt();
+            if (count > footerLength) {
+                throw new IOException("malformed Exif column footer");
+            }
+            String[] values = new String[count];
+            for (int j = 0; j < values.length; j++) {
+                values[j] = footer.readString().intern();
+            }
+            dictionaries[i] = values;
+        }
+        int groupCount = footer.readVarInt();
+        if (groupCount > footerLength) {
+            throw new IOException("malformed Exif column footer");
+        }
+        offsets = new long[groupCount];
+        rowCounts = new int[groupCount];
+        minTimes = new long[groupCount];
+        maxTimes = new long[groupCount];
+        long rows = 0;
+        for (int i = 0; i < groupCount; i++) {
+            offsets[i] = footer.readVarLong();
+            rowCounts[i] = footer.readVarInt();
+            if (footer.readByte() != 0) {
+                minTimes[i] = footer.readZigZag();
+                maxTimes[i] = footer.readZigZag();
+            } else {
+                minTimes[i] = ExifDateTime.UNKNOWN;
+                maxTimes[i] = ExifDateTime.UNKNOWN;
+            }
+            if (offsets[i] < headerLength || offsets[i] + ExifColumns.GROUP_HEADER_LENGTH > footerOffset) {
+                throw new IOException("malformed Exif column footer");
+            }
+            rows += rowCounts[i];
+        }
+        rowCount = rows;
+    }
+
+    private static boolean startsWithMagic(byte[] b, int offset) {
+        for (int i = 0; i < ExifColumns.MAGIC.length; i++) {
+            if (b[offset + i] != ExifColumns.MAGIC[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public int getRowGroupCount() {
+        return offsets.length;
+    }
+
+    public int getRowCount(int group) {
+        return rowCounts[group];
+    }
+
+    /**
+     * Returns the earliest capture time in the group, or {@link ExifDateTime#UNKNOWN} if no row has one.
+     */
+    public long getMinCaptureTime(int group) {
+        return minTimes[group];
+    }
+
+    public long getMaxCaptureTime(int group) {
+        return maxTimes[group];
+    }
+
+    /**
+     * Returns whether the group may hold rows captured in {@code [from, to]}.
+     */
+    public boolean overlaps(int group, long from, long to) {
+        return minTimes[group] != ExifDateTime.UNKNOWN && minTimes[group] <= to && maxTimes[group] >= from;
+    }
+
+    /**
+     * Decodes the {@code columns} (a combination of the column constants) of a row group.
+     */
+    public RowGroup read(int group, int columns) throws IOException {
+        reader.seek(offsets[group]);
+        ExifColumns.Cursor header = new ExifColumns.Cursor(reader.readByteArray(ExifColumns.GROUP_HEADER_LENGTH), 0,
+                ExifColumns.GROUP_HEADER_LENGTH);
+        int size = header.readInt();
+        if (size != rowCounts[group]) {
+            throw new IOException("malformed Exif row group");
+        }
+        long[] blockOffsets = new long[ExifColumns.COLUMN_COUNT];
+        int[] compressedLengths = new int[ExifColumns.COLUMN_COUNT];
+        int[] rawLengths = new int[ExifColumns.COLUMN_COUNT];
+        long offset = offsets[group] + ExifColumns.GROUP_HEADER_LENGTH;
+        for (int i = 0; i < ExifColumns.COLUMN_COUNT; i++) {
+            blockOffsets[i] = offset;
+            compressedLengths[i] = header.readInt();
+            rawLengths[i] = header.readInt();
+            if (compressedLengths[i] < 0 || rawLengths[i] < 0
+                    || rawLengths[i] > (long) compressedLengths[i] * MAX_INFLATION + 64) {
+                throw new IOException("malformed Exif row group");
+            }
+            offset += compressedLengths[i];
+        }
+        if (offset > reader.getLength()) {
+            throw new IOException("malformed Exif row group");
+        }
+
+        RowGroup rows = new RowGroup(size);
+        ExifColumns.Cursor flags = column(ExifColumns.FLAGS, blockOffsets, compressedLengths, rawLengths);
+        for (int i = 0; i < size; i++) {
+            rows.flags[i] = flags.readByte();
+        }
+        if ((columns & PATH) != 0) {
+            ExifColumns.Cursor in = column(ExifColumns.PATH, blockOffsets, compressedLengths, rawLengths);
+            rows.paths = new String[size];
+            String previous = null;
+            for (int i = 0; i < size; i++) {
+                previous = rows.paths[i] = in.readFrontCoded(previous);
+            }
+        }
+        if ((columns & MAKE) != 0) {
+            rows.makes = strings(rows, 0, column(ExifColumns.MAKE, blockOffsets, compressedLengths, rawLengths));
+        }
+        if ((columns & MODEL) != 0) {
+            rows.models = strings(rows, 1, column(ExifColumns.MODEL, blockOffsets, compressedLengths, rawLengths));
+        }
+        if ((columns & LENS) != 0) {
+            rows.lenses = strings(rows, 2, column(ExifColumns.LENS, blockOffsets, compressedLengths, rawLengths));
+        }
+        if ((columns & CAPTURE_TIME) != 0) {
+            ExifColumns.Cursor in = column(ExifColumns.CAPTURE_TIME, blockOffsets, compressedLengths, rawLengths);
+            rows.captureTimes = new long[size];
+            long time = 0;
+            for (int i = 0; i < size; i++) {
+                if ((rows.flags[i] & ExifRecord.HAS_CAPTURE_TIME) != 0) {
+                    time += in.readZigZag();
+                    rows.captureTimes[i] = time;
+                } else {
+                    rows.captureTimes[i] = ExifDateTime.UNKNOWN;
+                }
+            }
+        }
+        if ((columns & EXPOSURE_TIME) != 0) {
+            ExifColumns.Cursor numerators = column(ExifColumns.EXPOSURE_NUMERATOR, blockOffsets, compressedLengths,
+                    rawLengths);
+            ExifColumns.Cursor denominators = column(ExifColumns.EXPOSURE_DENOMINATOR, blockOffsets,
+                    compressedLengths, rawLengths);
+            rows.exposureNumerators = new long[size];
+            rows.exposureDenominators = new long[size];
+            for (int i = 0; i < size; i++) {
+                if ((rows.flags[i] & ExifRecord.HAS_EXPOSURE_TIME) != 0) {
+                    rows.exposureNumerators[i] = numerators.readZigZag();
+                    rows.exposureDenominators[i] = denominators.readZigZag();
+                }
+            }
+        }
+        if ((columns & F_NUMBER) != 0) {
+            ExifColumns.Cursor in = column(ExifColumns.F_NUMBER, blockOffsets, compressedLengths, rawLengths);
+            rows.fNumbers = new float[size];
+            for (int i = 0; i < size; i++) {
+                rows.fNumbers[i] = (rows.flags[i] & ExifRecord.HAS_F_NUMBER) != 0
+                        ? Float.intBitsToFloat(in.readInt()) : Float.NaN;
+            }
+        }
+        if ((columns & GPS) != 0) {
+            ExifColumns.Cursor latitudes = column(ExifColumns.LATITUDE, blockOffsets, compressedLengths, rawLengths);
+            ExifColumns.Cursor longitudes = column(ExifColumns.LONGITUDE, blockOffsets, compressedLengths,
+                    rawLengths);
+            rows.latitudes = new double[size];
+            rows.longitudes = new double[size];
+            for (int i = 0; i < size; i++) {
+                if ((rows.flags[i] & ExifRecord.HAS_GPS) != 0) {
+                    rows.latitudes[i] = Double.longBitsToDouble(latitudes.readLong());
+                    rows.longitudes[i] = Double.longBitsToDouble(longitudes.readLong());
+                } else {
+                    rows.latitudes[i] = Double.NaN;
+                    rows.longitudes[i] = Double.NaN;
+                }
+            }
+        }
+        return rows;
+    }
+
+    private String[] strings(RowGroup rows, int dictionary, ExifColumns.Cursor in) throws IOException {
+        String[] values = dictionaries[dictionary];
+        String[] strings = new String[rows.size];
+        for (int i = 0; i < strings.length; i++) {
+            if (rows.hasRecord(i)) {
+                int code = in.readVarInt();
+                if (code > values.length) {
+                    throw new IOException("malformed dictionary code");
+                }
+                strings[i] = code == 0 ? null : values[code - 1];
+            }
+        }
+        return strings;
+    }
+
+    private ExifColumns.Cursor column(int column, long[] offsets, int[] compressedLengths, int[] rawLengths)
+            throws IOException {
+        reader.seek(offsets[column]);
+        byte[] compressed = reader.readByteArray(compressedLengths[column]);
+        byte[] raw = new byte[rawLengths[column]];
+        inflater.reset();
+        inflater.setInput(compressed);
+        try {
+            int n = 0;
+            while (n < raw.length && !inflater.finished()) {
+                int inflated = inflater.inflate(raw, n, raw.length - n);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                n += inflated;
+            }
+            if (n != raw.length) {
+                throw new IOException("truncated Exif column");
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("malformed Exif column", e);
+        }
+        return new ExifColumns.Cursor(raw, 0, raw.length);
+    }
+
+    public void close() throws IOException {
+        inflater.end();
+        reader.close();
+    }
+}
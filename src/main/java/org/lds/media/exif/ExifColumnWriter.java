@@ -0,0 +1,263 @@
+package org.lds.media.exif;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+
+/**
+ * Writes {@link ExifRecord}s in the compressed columnar layout described in {@link ExifColumns}, for bulk loading
+ * into analytics tools. Rows are buffered per column and flushed as a row group every {@code rowGroupSize} rows,
+ * so memory stays bounded by the group size plus the make/model/lens dictionaries.
+ * <p>
+ * Make, model and lens are dictionary codes, capture times are zig-zag varint deltas, the other numbers are fixed
+ * width, and absent values take no space. Paths are front-coded against the previous row.
+ */
+public class ExifColumnWriter {
+    public static final int DEFAULT_ROW_GROUP_SIZE = 65536;
+
+    private static class Dictionary {
+        private final Map<String, Integer> codes = new HashMap<String, Integer>();
+        private final List<String> values = new ArrayList<String>();
+
+        /**
+         * Returns 0 for null, otherwise the 1-based index of the value.
+         */
+        int code(String value) {
+            if (value == null) {
+                return 0;
+            }
+            Integer code = codes.get(value);
+            if (code == null) {
+                values.add(value);
+                code = values.size();
+                codes.put(value, code);
+            }
+            return code;
+        }
+    }
+
+    private final OutputStream out;
+    private final int rowGroupSize;
+    private final Deflater deflater;
+    private final ExifColumns.Buffer[] columns = new ExifColumns.Buffer[ExifColumns.COLUMN_COUNT];
+    private final Dictionary[] dictionaries = new Dictionary[ExifColumns.DICTIONARY_COLUMNS.length];
+    private final ExifColumns.Buffer blocks = new ExifColumns.Buffer(1 << 16);
+    private final ExifColumns.Buffer header = new ExifColumns.Buffer(ExifColumns.GROUP_HEADER_LENGTH);
+    private final ExifColumns.Buffer groups = new ExifColumns.Buffer(1024);
+    private long position;
+    private int groupCount;
+    private long rowCount;
+    private int rows;
+    private String previousPath;
+    private long previousTime;
+    private long minTime;
+    private long maxTime;
+    private boolean finished;
+
+    public ExifColumnWriter(OutputStream out) throws IOException {
+        this(out, DEFAULT_ROW_GROUP_SIZE, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    public ExifColumnWriter(OutputStream out, int rowGroupSize, int level) throws IOException {
+        if (rowGroupSize <= 0) {
+            throw new IllegalArgumentException();
+        }
+        this.out = out;
+        this.rowGroupSize = rowGroupSize;
+        this.deflater = new Deflater(level);
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = new ExifColumns.Buffer(1024);
+        }
+        for (int i = 0; i < dictionaries.length; i++) {
+            dictionaries[i] = new Dictionary();
+        }
+        resetGroup();
+        write(ExifColumns.MAGIC, 0, ExifColumns.MAGIC.length);
+        out.write(ExifColumns.VERSION);
+        position++;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Appends a row; {@code record} is null for photos without Exif.
+     */
+    public void write(String path, ExifRecord record) throws IOException {
+        write(path, record, 0);
+    }
+
+    /**
+     * Appends a row without a record for a file that could not be read or parsed.
+     */
+    public void writeFailed(String path) throws IOException {
+        write(path, null, ExifColumns.FAILED);
+    }
+
+    /**
+     * Appends a row without a record for a file that is not a photo, e.g. a video.
+     */
+    public void writeNotPhoto(String path) throws IOException {
+        write(path, null, ExifColumns.NOT_PHOTO);
+    }
+
+    private void write(String path, ExifRecord record, int flags) throws IOException {
+        if (finished) {
+            throw new IllegalStateException("writer is finished");
+        }
+        if (record != null) {
+            flags = ExifColumns.HAS_RECORD;
+            if (record.hasCaptureTime()) {
+                flags |= ExifRecord.HAS_CAPTURE_TIME;
+            }
+            if (record.hasExposureTime()) {
+                flags |= ExifRecord.HAS_EXPOSURE_TIME;
+            }
+            if (record.hasFNumber()) {
+                flags |= ExifRecord.HAS_F_NUMBER;
+            }
+            if (record.hasGPS()) {
+                flags |= ExifRecord.HAS_GPS;
+            }
+        }
+        columns[ExifColumns.FLAGS].writeByte(flags);
+        writePath(path);
+        if (record != null) {
+            columns[ExifColumns.MAKE].writeVarLong(dictionaries[0].code(record.getMake()));
+            columns[ExifColumns.MODEL].writeVarLong(dictionaries[1].code(record.getModel()));
+            columns[ExifColumns.LENS].writeVarLong(dictionaries[2].code(record.getLens()));
+            if (record.hasCaptureTime()) {
+                long time = record.getCaptureTime();
+                columns[ExifColumns.CAPTURE_TIME].writeZigZag(time - previousTime);
+                previousTime = time;
+                minTime = Math.min(minTime, time);
+                maxTime = Math.max(maxTime, time);
+            }
+            if (record.hasExposureTime()) {
+                columns[ExifColumns.EXPOSURE_NUMERATOR].writeZigZag(record.getExposureTimeNumerator());
+                columns[ExifColumns.EXPOSURE_DENOMINATOR].writeZigZag(record.getExposureTimeDenominator());
+            }
+            if (record.hasFNumber()) {
+                columns[ExifColumns.F_NUMBER].writeInt(Float.floatToIntBits(record.getFNumber()));
+            }
+            if (record.hasGPS()) {
+                columns[ExifColumns.LATITUDE].writeLong(Double.doubleToLongBits(record.getGPSLatitude()));
+                columns[ExifColumns.LONGITUDE].writeLong(Double.doubleToLongBits(record.getGPSLongitude()));
+            }
+        }
+        rowCount++;
+        if (++rows == rowGroupSize) {
+            flushGroup();
+        }
+    }
+
+    private void writePath(String path) {
+        int shared = 0;
+        if (previousPath != null) {
+            int max = Math.min(path.length(), previousPath.length());
+            while (shared < max && path.charAt(shared) == previousPath.charAt(shared)) {
+                shared++;
+            }
+            if (shared > 0 && Character.isHighSurrogate(path.charAt(shared - 1))) {
+                shared--;
+            }
+        }
+        ExifColumns.Buffer column = columns[ExifColumns.PATH];
+        column.writeVarLong(shared);
+        column.writeString(path.substring(shared));
+        previousPath = path;
+    }
+
+    private void flushGroup() throws IOException {
+        if (rows == 0) {
+            return;
+        }
+        header.clear();
+        header.writeInt(rows);
+        blocks.clear();
+        for (ExifColumns.Buffer column : columns) {
+            int start = blocks.size;
+            compress(column, blocks);
+            header.writeInt(blocks.size - start);
+            header.writeInt(column.size);
+        }
+        groups.writeVarLong(position);
+        groups.writeVarLong(rows);
+        if (minTime <= maxTime) {
+            groups.writeByte(1);
+            groups.writeZigZag(minTime);
+            groups.writeZigZag(maxTime);
+        } else {
+            groups.writeByte(0);
+        }
+        write(header.data, 0, header.size);
+        write(blocks.data, 0, blocks.size);
+        groupCount++;
+        resetGroup();
+    }
+
+    private void compress(ExifColumns.Buffer column, ExifColumns.Buffer target) {
+        deflater.reset();
+        deflater.setInput(column.data, 0, column.size);
+        deflater.finish();
+        while (!deflater.finished()) {
+            target.ensure(Math.max(64, column.size >> 2));
+            target.size += deflater.deflate(target.data, target.size, target.data.length - target.size);
+        }
+    }
+
+    private void resetGroup() {
+        for (ExifColumns.Buffer column : columns) {
+            column.clear();
+        }
+        rows = 0;
+        previousPath = null;
+        previousTime = 0;
+        minTime = Long.MAX_VALUE;
+        maxTime = Long.MIN_VALUE;
+    }
+
+    private void write(byte[] b, int off, int len) throws IOException {
+        out.write(b, off, len);
+        position += len;
+    }
+
+    /**
+     * Flushes the last row group and writes the footer, leaving the stream open.
+     */
+    public void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        flushGroup();
+        ExifColumns.Buffer footer = new ExifColumns.Buffer(groups.size + 1024);
+        for (Dictionary dictionary : dictionaries) {
+            footer.writeVarLong(dictionary.values.size());
+            for (String value : dictionary.values) {
+                footer.writeString(value);
+            }
+        }
+        footer.writeVarLong(groupCount);
+        footer.writeBytes(groups.data, 0, groups.size);
+        footer.writeLong(position);
+        footer.writeInt(footer.size - 8);
+        footer.writeBytes(ExifColumns.MAGIC, 0, ExifColumns.MAGIC.length);
+        write(footer.data, 0, footer.size);
+        out.flush();
+        deflater.end();
+        finished = true;
+    }
+
+    public void close() throws IOException {
+        try {
+            finish();
+        } finally {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package org.lds.media.exif;
+
+import java.io.EOFException;
+import java.io.UnsupportedEncodingException;
+import java.util.Arrays;
+
+/**
+ * Layout shared by {@link ExifColumnWriter} and {@link ExifColumnReader}.
+ * <p>
+ * A file is the magic, a version byte, a sequence of row groups, a footer and a trailer. A row group is its row
+ * count followed by a directory of (compressed length, raw length) pairs and one Deflate block per column. The
+ * footer holds the make/model/lens dictionaries and, per row group, its offset, row count and capture time range.
+ * The trailer is the footer offset, the footer length and the magic again.
+ */
+class ExifColumns {
+    static final byte[] MAGIC = {'L', 'D', 'S', 'C'};
+    static final int VERSION = 1;
+    static final int TRAILER_LENGTH = 16;
+
+    static final int PATH = 0;
+    static final int FLAGS = 1;
+    static final int MAKE = 2;
+    static final int MODEL = 3;
+    static final int LENS = 4;
+    static final int CAPTURE_TIME = 5;
+    static final int EXPOSURE_NUMERATOR = 6;
+    static final int EXPOSURE_DENOMINATOR = 7;
+    static final int F_NUMBER = 8;
+    static final int LATITUDE = 9;
+    static final int LONGITUDE = 10;
+    static final int COLUMN_COUNT = 11;
+
+    static final int GROUP_HEADER_LENGTH = 4 + COLUMN_COUNT * 8;
+
+    /**
+     * The low bits of a row's flags are {@link ExifRecord}'s presence flags.
+     */
+    static final int RECORD_FLAGS = 0xf;
+    /**
+     * Row flag set when the file could not be read or parsed; the row has no record.
+     */
+    static final int FAILED = 1 << 4;
+    /**
+     * Row flag set when the file is not a photo, e.g. a video; the row has no record.
+     */
+    static final int NOT_PHOTO = 1 << 5;
+    /**
+     * Row flag set when the row has a record.
+     */
+    static final int HAS_RECORD = 1 << 7;
+
+    static final int[] DICTIONARY_COLUMNS = {MAKE, MODEL, LENS};
+
+    /**
+     * Growable byte buffer with the primitive encodings used by the columns.
+     */
+    static class Buffer {
+        byte[] data;
+        int size;
+
+        Buffer(int capacity) {
+            data = new byte[capacity];
+        }
+
+        void clear() {
+            size = 0;
+        }
+
+        void ensure(int n) {
+            if (size + n > data.length) {
+                data = Arrays.copyOf(data, Math.max(size + n, data.length + (data.length >> 1)));
+            }
+        }
+
+        void writeByte(int value) {
+            ensure(1);
+            data[size++] = (byte) value;
+        }
+
+        void writeBytes(byte[] b, int off, int len) {
+            ensure(len);
+            System.arraycopy(b, off, data, size, len);
+            size += len;
+        }
+
+        void writeInt(int value) {
+            ensure(4);
+            data[size++] = (byte) (value >>> 24);
+            data[size++] = (byte) (value >>> 16);
+            data[size++] = (byte) (value >>> 8);
+            data[size++] = (byte) value;
+        }
+
+        void writeLong(long value) {
+            writeInt((int) (value >>> 32));
+            writeInt((int) value);
+        }
+
+        void writeVarLong(long value) {
+            ensure(10);
+            while ((value & ~0x7fL) != 0) {
+                data[size++] = (byte) (value & 0x7f | 0x80);
+                value >>>= 7;
+            }
+            data[size++] = (byte) value;
+        }
+
+        void writeZigZag(long value) {
+            writeVarLong(value << 1 ^ value >> 63);
+        }
+
+        void writeString(String value) {
+            byte[] b = utf8(value);
+            writeVarLong(b.length);
+            writeBytes(b, 0, b.length);
+        }
+    }
+
+    /**
+     * Reads the encodings written by {@link Buffer} from a byte array.
+     */
+    static class Cursor {
+        private final byte[] data;
+        private int position;
+        private final int limit;
+
+        Cursor(byte[] data, int offset, int length) {
+            this.data = data;
+            this.position = offset;
+            this.limit = offset + length;
+        }
+
+        private void require(int n) throws EOFException {
+            if (n > limit - position) {
+                throw new EOFException();
+            }
+        }
+
+        int readByte() throws EOFException {
+            require(1);
+            return data[position++] & 0xff;
+        }
+
+        int readInt() throws EOFException {
+            require(4);
+            int value = (data[position] & 0xff) << 24 | (data[position + 1] & 0xff) << 16
+                    | (data[position + 2] & 0xff) << 8 | data[position + 3] & 0xff;
+            position += 4;
+            return value;
+        }
+
+        long readLong() throws EOFException {
+            return (long) readInt() << 32 | readInt() & 0xffffffffL;
+        }
+
+        long readVarLong() throws EOFException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                value |= (long) (b & 0x7f) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new EOFException("malformed varint");
+        }
+
+        int readVarInt() throws EOFException {
+            long value = readVarLong();
+            if (value < 0 || value > Integer.MAX_VALUE) {
+                throw new EOFException("varint out of range");
+            }
+            return (int) value;
+        }
+
+        long readZigZag() throws EOFException {
+            long value = readVarLong();
+            return value >>> 1 ^ -(value & 1);
+        }
+
+        String readString() throws EOFException {
+            int length = readVarInt();
+            require(length);
+            String value = decode(data, position, length);
+            position += length;
+            return value;
+        }
+
+        /**
+         * Reads a front-coded string: the number of leading chars shared with {@code previous}, then the rest.
+         */
+        String readFrontCoded(String previous) throws EOFException {
+            int shared = readVarInt();
+            if (shared > (previous == null ? 0 : previous.length())) {
+                throw new EOFException("malformed path");
+            }
+            String suffix = readString();
+            return shared == 0 ? suffix : previous.substring(0, shared) + suffix;
+        }
+    }
+
+    static byte[] utf8(String value) {
+        try {
+            return value.getBytes("UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static String decode(byte[] b, int offset, int length) {
+        try {
+            return new String(b, offset, length, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private ExifColumns() {
+    }
+}
@@ -0,0 +1,126 @@
+package org.lds.media.exif;
+
+public class ExifDateTime {
+
+    public static final long UNKNOWN = Long.MIN_VALUE;
+    public static final int NO_OFFSET = Integer.MIN_VALUE;
+
+    private static final long MILLIS_PER_DAY = 86400000L;
+
+    /**
+     * Parses "yyyy:MM:dd HH:mm:ss" into milliseconds since the epoch, taking the wall-clock time as UTC.
+     */
+    public static long parse(byte[] b, int off, int len) {
+        if (len < 19 || b[off + 4] != ':' || b[off + 7] != ':' || b[off + 10] != ' ' || b[off + 13] != ':'
+                || b[off + 16] != ':') {
+            return UNKNOWN;
+        }
+        int year = digits(b, off, 4);
+        int month = digits(b, off + 5, 2);
+        int day = digits(b, off + 8, 2);
+        int hour = digits(b, off + 11, 2);
+        int minute = digits(b, off + 14, 2);
+        int second = digits(b, off + 17, 2);
+        if (!isValidDate(year, month, day)
+                || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 60) {
+            return UNKNOWN;
+        }
+        return toEpochMillis(year, month, day, hour, minute, second);
+    }
+
+    /**
+     * Parses a GPSDateStamp value ("yyyy:MM:dd") into milliseconds since the epoch at midnight UTC.
+     */
+    public static long parseDate(byte[] b, int off, int len) {
+        if (len < 10 || b[off + 4] != ':' || b[off + 7] != ':') {
+            return UNKNOWN;
+        }
+        int year = digits(b, off, 4);
+        int month = digits(b, off + 5, 2);
+        int day = digits(b, off + 8, 2);
+        if (!isValidDate(year, month, day)) {
+            return UNKNOWN;
+        }
+        return toEpochDay(year, month, day) * MILLIS_PER_DAY;
+    }
+
+    /**
+     * Parses the leading digits of a SubSecTime value into milliseconds, or returns -1.
+     */
+    public static int parseSubSec(byte[] b, int off, int len) {
+        int millis = 0;
+        int scale = 100;
+        int i = 0;
+        for (; i < len; i++) {
+            int d = b[off + i] - '0';
+            if (d < 0 || d > 9) {
+                break;
+            }
+            millis += d * scale;
+            scale /= 10;
+        }
+        return i == 0 ? -1 : millis;
+    }
+
+    /**
+     * Parses an OffsetTime value ("+HH:MM") into minutes east of UTC, or returns {@link #NO_OFFSET}.
+     */
+    public static int parseOffset(byte[] b, int off, int len) {
+        if (len < 6 || b[off + 3] != ':') {
+            return NO_OFFSET;
+        }
+        int sign;
+        if (b[off] == '+') {
+            sign = 1;
+        } else if (b[off] == '-') {
+            sign = -1;
+        } else {
+            return NO_OFFSET;
+        }
+        int hour = digits(b, off + 1, 2);
+        int minute = digits(b, off + 4, 2);
+        if (hour < 0 || hour > 14 || minute < 0 || minute > 59) {
+            return NO_OFFSET;
+        }
+        return sign * (hour * 60 + minute);
+    }
+
+    public static long toEpochMillis(int year, int month, int day, int hour, int minute, int second) {
+        return toEpochDay(year, month, day) * MILLIS_PER_DAY + ((hour * 60L + minute) * 60 + second) * 1000;
+    }
+
+    public static long toEpochDay(int year, int month, int day) {
+        long y = month <= 2 ? year - 1 : year;
+        long era = (y >= 0 ? y : y - 399) / 400;
+        long yoe = y - era * 400;
+        long doy = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        long doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        return era * 146097 + doe - 719468;
+    }
+
+    private static boolean isValidDate(int year, int month, int day) {
+        if (year < 0 || month < 1 || month > 12 || day < 1) {
+            return false;
+        }
+        if (month == 2) {
+            boolean leap = year % 4 == 0 && (year % 100 != 0 || year % 400 == 0);
+            return day <= (leap ? 29 : 28);
+        }
+        return day <= (month == 4 || month == 6 || month == 9 || month == 11 ? 30 : 31);
+    }
+
+    private static int digits(byte[] b, int off, int count) {
+        int value = 0;
+        for (int i = 0; i < count; i++) {
+            int d = b[off + i] - '0';
+            if (d < 0 || d > 9) {
+                return -1;
+            }
+            value = value * 10 + d;
+        }
+        return value;
+    }
+
+    private ExifDateTime() {
+    }
+}
@@ -0,0 +1,125 @@
+package org.lds.media.exif;
+
+import org.lds.io.FileBinaryReader;
+import org.lds.media.ParseBudget;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses files into {@link ExifRecord}s asynchronously with a cap on the number of parses in flight.
+ * <p>
+ * Parsing is mostly waiting on reads, so on JVMs with virtual threads every parse gets its own virtual thread and
+ * the cap alone bounds concurrency; tens of thousands of reads can be outstanding without as many OS threads.
+ * Older JVMs fall back to a fixed pool of platform threads. {@link #submit} blocks while the cap is reached, which
+ * gives producers natural back-pressure.
+ */
+public class ExifExecutor {
+
+    private final ExecutorService executor;
+    private final boolean virtual;
+    private final int maxInFlight;
+    private final Semaphore permits;
+    private final ParseBudget budget;
+    private final ExifCache cache;
+
+    /**
+     * Uses virtual threads when available, otherwise a pool of {@code platformThreads}.
+     */
+    public ExifExecutor(int maxInFlight, int platformThreads) {
+        this(maxInFlight, platformThreads, ParseBudget.DEFAULT, null);
+    }
+
+    public ExifExecutor(int maxInFlight, int platformThreads, ParseBudget budget, ExifCache cache) {
+        if (maxInFlight <= 0 || platformThreads <= 0) {
+            throw new IllegalArgumentException();
+        }
+        ExecutorService virtualExecutor = newVirtualThreadPerTaskExecutor();
+        this.virtual = virtualExecutor != null;
+        this.executor = virtual ? virtualExecutor : Executors.newFixedThreadPool(Math.min(platformThreads, maxInFlight));
+        this.maxInFlight = maxInFlight;
+        this.permits = new Semaphore(maxInFlight);
+        this.budget = budget;
+        this.cache = cache;
+    }
+
+    /**
+     * Returns {@code Executors.newVirtualThreadPerTaskExecutor()} on Java 21+, or null.
+     */
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) method.invoke(null);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    public int getInFlight() {
+        return maxInFlight - permits.availablePermits();
+    }
+
+    public ExifFuture submit(File file) throws InterruptedException {
+        return submit(file, null);
+    }
+
+    /**
+     * Schedules a parse of {@code file}, waiting for a free slot if the in-flight cap is reached.
+     */
+    public ExifFuture submit(final File file, ExifFuture.Listener listener) throws InterruptedException {
+        permits.acquire();
+        final ExifFuture future = new ExifFuture(file, new Callable<ExifRecord>() {
+            @Override
+            public ExifRecord call() throws IOException {
+                return parse(file);
+            }
+        });
+        future.addListener(new ExifFuture.Listener() {
+            @Override
+            public void completed(File file, ExifRecord record, Throwable error) {
+                permits.release();
+            }
+        });
+        if (listener != null) {
+            future.addListener(listener);
+        }
+        try {
+            executor.execute(future);
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+        return future;
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return executor.awaitTermination(timeout, unit);
+    }
+
+    private ExifRecord parse(File file) throws IOException {
+        if (cache != null) {
+            return cache.get(file);
+        }
+        FileBinaryReader reader = new FileBinaryReader(file);
+        try {
+            Exif exif = Exif.parse(reader, budget.start());
+            return exif == null ? null : ExifRecord.of(exif);
+        } finally {
+            reader.close();
+        }
+    }
+}
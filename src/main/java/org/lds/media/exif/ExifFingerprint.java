@@ -0,0 +1,86 @@
+package org.lds.media.exif;
+
+import org.lds.math.Fraction;
+
+import java.io.IOException;
+
+/**
+ * A 64-bit metadata fingerprint for spotting duplicate imports without reading image data.
+ * Combines make, model, capture time (with sub-seconds), exposure, f-number, GPS position and
+ * a hash of the IFD1 thumbnail. The hash is exact, so it matches copies whose Exif and thumbnail bytes are
+ * unchanged: renamed files, or files whose main image was recompressed by a tool that kept the thumbnail.
+ * Editors that regenerate the thumbnail, which most re-encoders do, produce a different fingerprint.
+ */
+public class ExifFingerprint {
+
+    public static final long NONE = 0;
+
+    static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    /**
+     * Returns the fingerprint, or {@link #NONE} when neither a capture time nor a thumbnail is present,
+     * since make and model alone would match every photo from the same camera.
+     */
+    public static long of(Exif exif) throws IOException {
+        long time = exif.getCaptureTime();
+        long thumbnail = exif.getThumbnailHash();
+        if (time == ExifDateTime.UNKNOWN && thumbnail == 0) {
+            return NONE;
+        }
+        long hash = FNV_OFFSET;
+        hash = update(hash, exif.getMake());
+        hash = update(hash, exif.getModel());
+        hash = update(hash, time);
+        Fraction exposure = exif.getExposureTimeValue();
+        if (exposure != null) {
+            hash = update(hash, exposure.getNumerator());
+            hash = update(hash, exposure.getDenominator());
+        }
+        Float fNumber = exif.getFNumber();
+        hash = update(hash, fNumber == null ? 0 : Float.floatToIntBits(fNumber));
+        hash = update(hash, microdegrees(exif.getGPSLatitude()));
+        hash = update(hash, microdegrees(exif.getGPSLongitude()));
+        hash = update(hash, thumbnail);
+        hash = mix(hash);
+        return hash == NONE ? 1 : hash;
+    }
+
+    static long update(long hash, byte[] b, int off, int len) {
+        for (int i = off; i < off + len; i++) {
+            hash = (hash ^ (b[i] & 0xff)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    private static long update(long hash, long value) {
+        for (int i = 0; i < 64; i += 8) {
+            hash = (hash ^ ((value >>> i) & 0xff)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    private static long update(long hash, String value) {
+        if (value == null) {
+            return update(hash, -1L);
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            hash = (hash ^ (c & 0xff)) * FNV_PRIME;
+            hash = (hash ^ (c >>> 8)) * FNV_PRIME;
+        }
+        return update(hash, value.length());
+    }
+
+    private static long microdegrees(Double value) {
+        return value == null ? Long.MIN_VALUE : Math.round(value * 1e6);
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        return h ^ (h >>> 33);
+    }
+}
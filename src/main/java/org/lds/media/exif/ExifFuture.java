@@ -0,0 +1,72 @@
+package org.lds.media.exif;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Pending result of an {@link ExifExecutor} task. Listeners run once the parse finishes, on the thread that
+ * completed it, or immediately on the calling thread if it already has.
+ */
+public class ExifFuture extends FutureTask<ExifRecord> {
+
+    public interface Listener {
+        /**
+         * Called with the record (null if the file has no Exif) or with the error that ended the parse.
+         */
+        void completed(File file, ExifRecord record, Throwable error);
+    }
+
+    private final File file;
+    private List<Listener> listeners = new ArrayList<Listener>(1);
+
+    ExifFuture(File file, Callable<ExifRecord> callable) {
+        super(callable);
+        this.file = file;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public void addListener(Listener listener) {
+        synchronized (this) {
+            if (listeners != null) {
+                listeners.add(listener);
+                return;
+            }
+        }
+        fire(listener);
+    }
+
+    @Override
+    protected void done() {
+        List<Listener> pending;
+        synchronized (this) {
+            pending = listeners;
+            listeners = null;
+        }
+        for (Listener listener : pending) {
+            fire(listener);
+        }
+    }
+
+    private void fire(Listener listener) {
+        ExifRecord record = null;
+        Throwable error = null;
+        try {
+            record = get();
+        } catch (ExecutionException e) {
+            error = e.getCause();
+        } catch (InterruptedException e) {
+            error = e;
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            error = e;
+        }
+        listener.completed(file, record, error);
+    }
+}
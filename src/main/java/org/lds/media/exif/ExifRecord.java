@@ -0,0 +1,146 @@
+package org.lds.media.exif;
+
+import org.lds.math.Fraction;
+
+import java.io.IOException;
+
+/**
+ * Detached, immutable snapshot of the commonly used Exif fields. Numbers are kept as primitives with presence bits
+ * and strings are interned, so a record costs a few dozen bytes and can be cached and shared across threads.
+ */
+public class ExifRecord {
+    public static final int SIZE = 88;
+
+    static final int HAS_CAPTURE_TIME = 1;
+    static final int HAS_EXPOSURE_TIME = 1 << 1;
+    static final int HAS_F_NUMBER = 1 << 2;
+    static final int HAS_GPS = 1 << 3;
+
+    public static ExifRecord of(Exif exif) throws IOException {
+        int flags = 0;
+        long captureTime = exif.getCaptureTime();
+        if (captureTime != ExifDateTime.UNKNOWN) {
+            flags |= HAS_CAPTURE_TIME;
+        }
+        long exposureNumerator = 0;
+        long exposureDenominator = 0;
+        Fraction exposureTime = exif.getExposureTimeValue();
+        if (exposureTime != null && exposureTime.getDenominator() != 0) {
+            exposureNumerator = exposureTime.getNumerator();
+            exposureDenominator = exposureTime.getDenominator();
+            flags |= HAS_EXPOSURE_TIME;
+        }
+        float fNumber = 0;
+        Float fNumberValue = exif.getFNumber();
+        if (fNumberValue != null && !fNumberValue.isNaN() && !fNumberValue.isInfinite()) {
+            fNumber = fNumberValue;
+            flags |= HAS_F_NUMBER;
+        }
+        double latitude = 0;
+        double longitude = 0;
+        Double latitudeValue = exif.getGPSLatitude();
+        Double longitudeValue = exif.getGPSLongitude();
+        if (latitudeValue != null && longitudeValue != null) {
+            latitude = latitudeValue;
+            longitude = longitudeValue;
+            flags |= HAS_GPS;
+        }
+        return new ExifRecord(intern(exif.getMake()), intern(exif.getModel()), intern(exif.getLens()), captureTime,
+                exposureNumerator, exposureDenominator, fNumber, latitude, longitude, flags);
+    }
+
+    private static String intern(String value) {
+        return value == null ? null : value.intern();
+    }
+
+    private final String make;
+    private final String model;
+    private final String lens;
+    private final long captureTime;
+    private final long exposureNumerator;
+    private final long exposureDenominator;
+    private final float fNumber;
+    private final double gpsLatitude;
+    private final double gpsLongitude;
+    private final int flags;
+
+    ExifRecord(String make, String model, String lens, long captureTime, long exposureNumerator,
+               long exposureDenominator, float fNumber, double gpsLatitude, double gpsLongitude, int flags) {
+        this.make = make;
+        this.model = model;
+        this.lens = lens;
+        this.captureTime = captureTime;
+        this.exposureNumerator = exposureNumerator;
+        this.exposureDenominator = exposureDenominator;
+        this.fNumber = fNumber;
+        this.gpsLatitude = gpsLatitude;
+        this.gpsLongitude = gpsLongitude;
+        this.flags = flags;
+    }
+
+    public String getMake() {
+        return make;
+    }
+
+    public String getModel() {
+        return model;
+    }
+
+    public String getLens() {
+        return lens;
+    }
+
+    public boolean hasCaptureTime() {
+        return (flags & HAS_CAPTURE_TIME) != 0;
+    }
+
+    /**
+     * Returns {@link ExifDateTime#UNKNOWN} when absent.
+     */
+    public long getCaptureTime() {
+        return captureTime;
+    }
+
+    public boolean hasExposureTime() {
+        return (flags & HAS_EXPOSURE_TIME) != 0;
+    }
+
+    public long getExposureTimeNumerator() {
+        return exposureNumerator;
+    }
+
+    public long getExposureTimeDenominator() {
+        return exposureDenominator;
+    }
+
+    public double getExposureTimeSeconds() {
+        return hasExposureTime() ? (double) exposureNumerator / exposureDenominator : Double.NaN;
+    }
+
+    public boolean hasFNumber() {
+        return (flags & HAS_F_NUMBER) != 0;
+    }
+
+    public float getFNumber() {
+        return hasFNumber() ? fNumber : Float.NaN;
+    }
+
+    public boolean hasGPS() {
+        return (flags & HAS_GPS) != 0;
+    }
+
+    public double getGPSLatitude() {
+        return hasGPS() ? gpsLatitude : Double.NaN;
+    }
+
+    public double getGPSLongitude() {
+        return hasGPS() ? gpsLongitude : Double.NaN;
+    }
+
+    /**
+     * Retained heap size in bytes, not counting the interned strings shared with other records.
+     */
+    public int estimateSize() {
+        return SIZE;
+    }
+}
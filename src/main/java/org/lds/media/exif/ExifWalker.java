@@ -0,0 +1,124 @@
+package org.lds.media.exif;
+
+import org.lds.io.AbstractSeekableBinaryReader;
+import org.lds.io.FileBinaryReader;
+import org.lds.media.ParseBudget;
+import org.lds.media.ParseLimitException;
+import org.lds.media.tiff.TIFF;
+import org.lds.media.tiff.TagValue;
+import org.lds.media.tiff.TagVisitor;
+
+import java.io.File;
+import java.io.IOException;
+
+public class ExifWalker implements TagVisitor {
+
+    public static boolean walk(File file, TagVisitor visitor) throws IOException {
+        return walk(file, visitor, ParseBudget.DEFAULT);
+    }
+
+    public static boolean walk(File file, TagVisitor visitor, ParseBudget budget) throws IOException {
+        FileBinaryReader reader = new FileBinaryReader(file);
+        try {
+            return walk(reader, visitor, budget);
+        } finally {
+            reader.close();
+        }
+    }
+
+    public static boolean walk(AbstractSeekableBinaryReader reader, TagVisitor visitor) throws IOException {
+        return walk(reader, visitor, ParseBudget.DEFAULT);
+    }
+
+    public static boolean walk(AbstractSeekableBinaryReader reader, TagVisitor visitor, ParseBudget budget) throws IOException {
+        ParseBudget.Tracker tracker = budget.start();
+        long offset = Exif.findTIFF(reader, tracker);
+        TIFF tiff = offset < 0 ? null : TIFF.parse(reader, offset, tracker);
+        if (tiff == null) {
+            return false;
+        }
+        walk(tiff, visitor);
+        return true;
+    }
+
+    public static void walk(TIFF tiff, TagVisitor visitor) throws IOException {
+        new ExifWalker(visitor).walk(tiff);
+    }
+
+    private final TagVisitor visitor;
+    private final TagValue value = new TagValue();
+    private boolean accepted;
+    private String make;
+    private long exifIFDPointer;
+    private long gpsInfoIFDPointer;
+    private long interoperabilityIFDPointer;
+    private long makerNoteOffset;
+
+    private ExifWalker(TagVisitor visitor) {
+        this.visitor = visitor;
+    }
+
+    private void walk(TIFF tiff) throws IOException {
+        long offsetOfIFD1 = tiff.walkIFD(tiff.getOffsetOfIFD(), IFD0, this, value);
+        // like Exif, a next pointer back into IFD0 or at the Exif or GPS IFD means there is no IFD1
+        if (offsetOfIFD1 > 0 && offsetOfIFD1 != exifIFDPointer && offsetOfIFD1 != gpsInfoIFDPointer) {
+            try {
+                tiff.walkIFD(offsetOfIFD1, IFD1, this, value);
+            } catch (ParseLimitException e) {
+                if (e.getReason() != ParseLimitException.CYCLE) {
+                    throw e;
+                }
+            }
+        }
+        if (exifIFDPointer > 0) {
+            tiff.walkIFD(exifIFDPointer, EXIF, this, value);
+        }
+        if (gpsInfoIFDPointer > 0) {
+            tiff.walkIFD(gpsInfoIFDPointer, GPS_INFO, this, value);
+        }
+        if (interoperabilityIFDPointer > 0) {
+            tiff.walkIFD(interoperabilityIFDPointer, INTEROPERABILITY, this, value);
+        }
+        if (makerNoteOffset > 0) {
+            MakerNote makerNote = MakerNote.locate(tiff, make, makerNoteOffset);
+            if (makerNote != null) {
+                makerNote.getTIFF().walkIFD(makerNote.getOffsetOfIFD(), MAKER_NOTE, this, value);
+            }
+        }
+    }
+
+    @Override
+    public boolean visitIFD(int directory, long offset, int entryCount) throws IOException {
+        accepted = visitor.visitIFD(directory, offset, entryCount);
+        return accepted || directory == IFD0 || directory == EXIF;
+    }
+
+    @Override
+    public void visitTag(int directory, int tag, int type, int count, TagValue value) throws IOException {
+        if (directory == IFD0) {
+            if (tag == 0x10f) {
+                make = value.getString();
+            } else if (tag == 0x8769) {
+                exifIFDPointer = value.getValueOffset();
+            } else if (tag == 0x8825) {
+                gpsInfoIFDPointer = value.getValueOffset();
+            }
+        } else if (directory == EXIF) {
+            if (tag == 0xa005) {
+                interoperabilityIFDPointer = value.getValueOffset();
+            } else if (tag == 0x927c) {
+                makerNoteOffset = value.getValueOffset();
+            }
+        }
+        if (accepted) {
+            visitor.visitTag(directory, tag, type, count, value);
+        }
+    }
+
+    @Override
+    public void endIFD(int directory) throws IOException {
+        if (accepted) {
+            visitor.endIFD(directory);
+        }
+    }
+}
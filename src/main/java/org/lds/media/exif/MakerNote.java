@@ -0,0 +1,56 @@
+package org.lds.media.exif;
+
+import org.lds.ByteArrayUtil;
+import org.lds.media.tiff.TIFF;
+
+import java.io.IOException;
+
+class MakerNote {
+    static final String MAKE_CANON = "Canon";
+    static final String MAKE_NIKON = "NIKON CORPORATION";
+    private static final byte[] NIKON_TYPE_1_MARKER = new byte[]{0x4e, 0x69, 0x6b, 0x6f, 0x6e, 0x00, 0x01, 0x00};
+    private static final byte[] NIKON_TYPE_2_A_MARKER = new byte[]{0x4e, 0x69, 0x6b, 0x6f, 0x6e, 0x00, 0x02, 0x10, 0x00, 0x00};
+    private static final byte[] NIKON_TYPE_2_B_MARKER = new byte[]{0x4e, 0x69, 0x6b, 0x6f, 0x6e, 0x00, 0x02, 0x00, 0x00, 0x00};
+
+    static MakerNote locate(TIFF tiff, String make, Long makerNoteOffset) throws IOException {
+        if (makerNoteOffset == null || makerNoteOffset <= 0) {
+            return null;
+        }
+        if (MAKE_CANON.equals(make)) {
+            return new MakerNote(tiff, makerNoteOffset);
+        } else if (MAKE_NIKON.equals(make)) {
+            tiff.getTracker().checkRange(tiff.getOffset() + makerNoteOffset, 10, tiff.getReader().getLength());
+            tiff.getTracker().read(10);
+            tiff.getReader().seek(tiff.getOffset() + makerNoteOffset);
+            byte[] buf = tiff.getReader().readByteArray(10);
+            if (ByteArrayUtil.startsWith(buf, NIKON_TYPE_1_MARKER)) {
+                return new MakerNote(tiff, makerNoteOffset + 8);
+            } else if (ByteArrayUtil.startsWith(buf, NIKON_TYPE_2_A_MARKER) ||
+                    ByteArrayUtil.startsWith(buf, NIKON_TYPE_2_B_MARKER)) {
+                TIFF makerNoteTIFF = TIFF.parse(tiff.getReader(), tiff.getOffset() + makerNoteOffset + 10, tiff.getTracker());
+                if (makerNoteTIFF != null) {
+                    return new MakerNote(makerNoteTIFF, makerNoteTIFF.getOffsetOfIFD());
+                }
+            } else {
+                return new MakerNote(tiff, makerNoteOffset);
+            }
+        }
+        return null;
+    }
+
+    private final TIFF tiff;
+    private final long offsetOfIFD;
+
+    private MakerNote(TIFF tiff, long offsetOfIFD) {
+        this.tiff = tiff;
+        this.offsetOfIFD = offsetOfIFD;
+    }
+
+    TIFF getTIFF() {
+        return tiff;
+    }
+
+    long getOffsetOfIFD() {
+        return offsetOfIFD;
+    }
+}
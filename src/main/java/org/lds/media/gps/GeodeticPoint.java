@@ -2,6 +2,10 @@ package org.lds.media.gps;
 
 public class GeodeticPoint {
 
+    public static final int WGS84 = 0;
+    public static final int GCJ02 = 1;
+    public static final int BD09 = 2;
+
     private static final double pi = Math.PI;
     private static final double xpi = Math.PI * 3000 / 180;
     private static final double a = 6378245;// 卫星椭球坐标投影到平面地图坐标系的投影因子。
@@ -35,6 +39,26 @@ public class GeodeticPoint {
         this.longitude = longitude;
     }
 
+    public double getLatitude() {
+        return latitude;
+    }
+
+    public double getLongitude() {
+        return longitude;
+    }
+
+    /**
+     * Converts a point given in {@code datum} ({@link #WGS84}, {@link #GCJ02} or {@link #BD09}) to WGS84.
+     */
+    public GeodeticPoint toWGS84(int datum) {
+        if (datum == GCJ02) {
+            return fromGCJ02ToWGS84();
+        } else if (datum == BD09) {
+            return fromBD09ToGCJ02().fromGCJ02ToWGS84();
+        }
+        return this;
+    }
+
     @Override
     public String toString() {
         return String.format("%.6f,%.6f", longitude, latitude);
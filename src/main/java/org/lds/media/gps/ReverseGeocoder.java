@@ -0,0 +1,299 @@
+package org.lds.media.gps;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * Offline nearest-place lookup over a packed, memory-mapped latitude/longitude grid.
+ * <p>
+ * Index layout (big-endian): magic, version, cell size in microdegrees, columns, rows, place count;
+ * then {@code columns * rows + 1} int offsets into the place table; then one 12 byte record per place
+ * (latitude and longitude in microdegrees, offset into the name table) grouped by cell; then the name
+ * table, each entry being a two byte country code, an unsigned short length and the UTF-8 name.
+ */
+public class ReverseGeocoder {
+
+    private static final int MAGIC = 0x4c445347; // "LDSG"
+    private static final int VERSION = 1;
+    private static final int HEADER_LENGTH = 24;
+    private static final int RECORD_LENGTH = 12;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    public static final int DEFAULT_CELL_SIZE = 500000;
+
+    /**
+     * Builds an index from a GeoNames-style TSV dump (name in column 1, latitude and longitude in columns
+     * 4 and 5, country code in column 8). Coordinates are taken as WGS84.
+     */
+    public static void build(BufferedReader tsv, File index, int cellSize) throws IOException {
+        if (cellSize <= 0 || 180000000 % cellSize != 0) {
+            throw new IllegalArgumentException("cell size must divide 180 degrees: " + cellSize);
+        }
+        int columns = 360000000 / cellSize;
+        int rows = 180000000 / cellSize;
+        if (recordsOffset(columns, rows) > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("cell size too small for a mappable index: " + cellSize);
+        }
+        int[] latitudes = new int[1024];
+        int[] longitudes = new int[1024];
+        int[] cells = new int[1024];
+        String[] names = new String[1024];
+        String[] countries = new String[1024];
+        int size = 0;
+        for (String line = tsv.readLine(); line != null; line = tsv.readLine()) {
+            String[] fields = line.split("\t", -1);
+            if (fields.length < 9 || fields[1].length() == 0) {
+                continue;
+            }
+            double latitude;
+            double longitude;
+            try {
+                latitude = Double.parseDouble(fields[4]);
+                longitude = Double.parseDouble(fields[5]);
+            } catch (NumberFormatException e) {
+                continue;
+            }
+            if (!(latitude >= -90 && latitude <= 90 && longitude >= -180 && longitude <= 180)) {
+                continue;
+            }
+            if (size == latitudes.length) {
+                int capacity = size + (size >> 1);
+                latitudes = Arrays.copyOf(latitudes, capacity);
+                longitudes = Arrays.copyOf(longitudes, capacity);
+                cells = Arrays.copyOf(cells, capacity);
+                names = Arrays.copyOf(names, capacity);
+                countries = Arrays.copyOf(countries, capacity);
+            }
+            latitudes[size] = (int) Math.round(latitude * 1e6);
+            longitudes[size] = (int) Math.round(longitude * 1e6);
+            cells[size] = cell(latitudes[size], longitudes[size], cellSize, columns, rows);
+            names[size] = fields[1];
+            countries[size] = fields[8];
+            size++;
+        }
+
+        int[] offsets = new int[columns * rows + 1];
+        for (int i = 0; i < size; i++) {
+            offsets[cells[i] + 1]++;
+        }
+        for (int i = 1; i < offsets.length; i++) {
+            offsets[i] += offsets[i - 1];
+        }
+        int[] order = new int[size];
+        int[] next = Arrays.copyOf(offsets, offsets.length - 1);
+        for (int i = 0; i < size; i++) {
+            order[next[cells[i]]++] = i;
+        }
+
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(index), 1 << 16));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(cellSize);
+            out.writeInt(columns);
+            out.writeInt(rows);
+            out.writeInt(size);
+            for (int offset : offsets) {
+                out.writeInt(offset);
+            }
+            byte[][] encoded = new byte[size][];
+            int nameOffset = 0;
+            for (int i = 0; i < size; i++) {
+                int j = order[i];
+                byte[] name = names[j].getBytes(UTF_8);
+                if (name.length > 0xffff) {
+                    name = Arrays.copyOf(name, 0xffff);
+                }
+                encoded[i] = name;
+                out.writeInt(latitudes[j]);
+                out.writeInt(longitudes[j]);
+                out.writeInt(nameOffset);
+                nameOffset += 4 + name.length;
+            }
+            for (int i = 0; i < size; i++) {
+                String country = countries[order[i]];
+                out.writeByte(country.length() > 0 ? country.charAt(0) : ' ');
+                out.writeByte(country.length() > 1 ? country.charAt(1) : ' ');
+                out.writeShort(encoded[i].length);
+                out.write(encoded[i]);
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    public static ReverseGeocoder load(File index) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(index, "r");
+        try {
+            if (raf.length() > Integer.MAX_VALUE) {
+                throw new IOException("index too large to map: " + index);
+            }
+            return new ReverseGeocoder(raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length()));
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * Returns the offset of the place records, past the header and the cell offset table, in long arithmetic so
+     * a fine grid cannot overflow it.
+     */
+    private static long recordsOffset(int columns, int rows) {
+        return HEADER_LENGTH + ((long) columns * rows + 1) * 4;
+    }
+
+    private static int cell(int latitude, int longitude, int cellSize, int columns, int rows) {
+        int row = Math.min((latitude + 90000000) / cellSize, rows - 1);
+        int column = Math.min((longitude + 180000000) / cellSize, columns - 1);
+        return row * columns + column;
+    }
+
+    private final ByteBuffer buffer;
+    private final int cellSize;
+    private final int columns;
+    private final int rows;
+    private final int size;
+    private final int records;
+    private final int names;
+
+    private ReverseGeocoder(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.limit() < HEADER_LENGTH || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("not a reverse geocoder index");
+        }
+        cellSize = buffer.getInt(8);
+        columns = buffer.getInt(12);
+        rows = buffer.getInt(16);
+        size = buffer.getInt(20);
+        if (cellSize <= 0 || columns != 360000000 / cellSize || rows != 180000000 / cellSize || size < 0) {
+            throw new IOException("corrupt reverse geocoder index");
+        }
+        long recordsOffset = recordsOffset(columns, rows);
+        long namesOffset = recordsOffset + (long) size * RECORD_LENGTH;
+        if (namesOffset > buffer.limit() || buffer.getInt((int) recordsOffset - 4) != size) {
+            throw new IOException("corrupt reverse geocoder index");
+        }
+        records = (int) recordsOffset;
+        names = (int) namesOffset;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the name of the place nearest to {@code point}, or null if the index is empty.
+     */
+    public String lookup(GeodeticPoint point, int datum) {
+        int index = find(point, datum);
+        return index < 0 ? null : getName(index);
+    }
+
+    /**
+     * Returns the index of the place nearest to {@code point}, given in {@code datum}, or -1 if the index is empty.
+     */
+    public int find(GeodeticPoint point, int datum) {
+        GeodeticPoint wgs84 = point.toWGS84(datum);
+        return find(wgs84.getLatitude(), wgs84.getLongitude());
+    }
+
+    /**
+     * Returns the index of the place nearest to a WGS84 coordinate, or -1 if the index is empty.
+     * Distances are equirectangular, which is exact enough to rank neighbouring places.
+     */
+    public int find(double latitude, double longitude) {
+        if (size == 0 || Double.isNaN(latitude) || Double.isNaN(longitude)) {
+            return -1;
+        }
+        int lat = (int) Math.round(Math.max(-90, Math.min(90, latitude)) * 1e6);
+        int lon = (int) Math.round(Math.max(-180, Math.min(180, longitude)) * 1e6);
+        int home = cell(lat, lon, cellSize, columns, rows);
+        int homeRow = home / columns;
+        int homeColumn = home % columns;
+        double scale = Math.cos(Math.toRadians(latitude));
+        double ringStep = cellSize * Math.max(scale, 1e-3);
+        int maxRing = Math.max(rows, columns / 2);
+        int best = -1;
+        double bestDistance = Double.MAX_VALUE;
+        for (int ring = 0; ring <= maxRing; ring++) {
+            double reach = (ring - 1) * ringStep;
+            if (best >= 0 && ring > 0 && reach * reach > bestDistance) {
+                break;
+            }
+            for (int row = Math.max(homeRow - ring, 0); row <= Math.min(homeRow + ring, rows - 1); row++) {
+                boolean edge = row == homeRow - ring || row == homeRow + ring;
+                if (edge && 2 * ring + 1 >= columns) {
+                    for (int column = 0; column < columns; column++) {
+                        best = nearest(row * columns + column, lat, lon, scale, best, bestDistance);
+                        bestDistance = distance(best, lat, lon, scale);
+                    }
+                } else {
+                    int step = edge || ring == 0 ? 1 : 2 * ring;
+                    for (int dc = -ring; dc <= ring; dc += step) {
+                        int column = ((homeColumn + dc) % columns + columns) % columns;
+                        best = nearest(row * columns + column, lat, lon, scale, best, bestDistance);
+                        bestDistance = distance(best, lat, lon, scale);
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    private int nearest(int cell, int lat, int lon, double scale, int best, double bestDistance) {
+        int end = buffer.getInt(HEADER_LENGTH + (cell + 1) * 4);
+        for (int i = buffer.getInt(HEADER_LENGTH + cell * 4); i < end; i++) {
+            double distance = distance(i, lat, lon, scale);
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    private double distance(int index, int lat, int lon, double scale) {
+        if (index < 0) {
+            return Double.MAX_VALUE;
+        }
+        double dLat = buffer.getInt(records + index * RECORD_LENGTH) - lat;
+        double dLon = Math.abs(buffer.getInt(records + index * RECORD_LENGTH + 4) - lon);
+        if (dLon > 180000000) {
+            dLon = 360000000 - dLon;
+        }
+        dLon *= scale;
+        return dLat * dLat + dLon * dLon;
+    }
+
+    public double getLatitude(int index) {
+        return buffer.getInt(records + index * RECORD_LENGTH) / 1e6;
+    }
+
+    public double getLongitude(int index) {
+        return buffer.getInt(records + index * RECORD_LENGTH + 4) / 1e6;
+    }
+
+    public String getCountryCode(int index) {
+        int offset = names + buffer.getInt(records + index * RECORD_LENGTH + 8);
+        return new String(new char[]{(char) (buffer.get(offset) & 0xff), (char) (buffer.get(offset + 1) & 0xff)}).trim();
+    }
+
+    public String getName(int index) {
+        int offset = names + buffer.getInt(records + index * RECORD_LENGTH + 8);
+        int length = buffer.getShort(offset + 2) & 0xffff;
+        byte[] b = new byte[length];
+        ByteBuffer name = buffer.duplicate();
+        name.position(offset + 4);
+        name.get(b);
+        return new String(b, UTF_8);
+    }
+}
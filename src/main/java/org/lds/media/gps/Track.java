@@ -0,0 +1,161 @@
+package org.lds.media.gps;
+
+import org.lds.media.index.LongRadixSort;
+
+import java.util.Arrays;
+
+/**
+ * Track points held column by column in primitive arrays, sorted by time.
+ * Missing altitude, speed and course values are stored as NaN.
+ */
+public class Track {
+
+    public static final long NO_TIME = Long.MIN_VALUE;
+
+    public static class Builder {
+        private long[] times;
+        private double[] latitudes;
+        private double[] longitudes;
+        private double[] altitudes;
+        private float[] speeds;
+        private float[] courses;
+        private int[] fileIds;
+        private int size;
+
+        public Builder() {
+            this(1024);
+        }
+
+        public Builder(int capacity) {
+            capacity = Math.max(capacity, 16);
+            times = new long[capacity];
+            latitudes = new double[capacity];
+            longitudes = new double[capacity];
+            altitudes = new double[capacity];
+            speeds = new float[capacity];
+            courses = new float[capacity];
+            fileIds = new int[capacity];
+        }
+
+        public Builder add(long time, double latitude, double longitude, int fileId) {
+            return add(time, latitude, longitude, Double.NaN, Float.NaN, Float.NaN, fileId);
+        }
+
+        /**
+         * Adds a point; points with a NaN or out-of-range coordinate are ignored.
+         */
+        public Builder add(long time, double latitude, double longitude, double altitude, float speed, float course,
+                           int fileId) {
+            if (!(latitude >= -90 && latitude <= 90 && longitude >= -180 && longitude <= 180)) {
+                return this;
+            }
+            if (size == times.length) {
+                grow();
+            }
+            times[size] = time;
+            latitudes[size] = latitude;
+            longitudes[size] = longitude;
+            altitudes[size] = altitude;
+            speeds[size] = speed;
+            courses[size] = course;
+            fileIds[size] = fileId;
+            size++;
+            return this;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Sorts the points by time in linear time; points without a time come first.
+         */
+        public Track build() {
+            long[] sortedTimes = Arrays.copyOf(times, size);
+            int[] order = new int[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            LongRadixSort.sort(sortedTimes, order, size);
+            Track track = new Track(sortedTimes);
+            for (int i = 0; i < size; i++) {
+                int j = order[i];
+                track.latitudes[i] = latitudes[j];
+                track.longitudes[i] = longitudes[j];
+                track.altitudes[i] = altitudes[j];
+                track.speeds[i] = speeds[j];
+                track.courses[i] = courses[j];
+                track.fileIds[i] = fileIds[j];
+            }
+            return track;
+        }
+
+        private void grow() {
+            int capacity = size + (size >> 1);
+            times = Arrays.copyOf(times, capacity);
+            latitudes = Arrays.copyOf(latitudes, capacity);
+            longitudes = Arrays.copyOf(longitudes, capacity);
+            altitudes = Arrays.copyOf(altitudes, capacity);
+            speeds = Arrays.copyOf(speeds, capacity);
+            courses = Arrays.copyOf(courses, capacity);
+            fileIds = Arrays.copyOf(fileIds, capacity);
+        }
+    }
+
+    private final long[] times;
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final double[] altitudes;
+    private final float[] speeds;
+    private final float[] courses;
+    private final int[] fileIds;
+
+    private Track(long[] times) {
+        int size = times.length;
+        this.times = times;
+        this.latitudes = new double[size];
+        this.longitudes = new double[size];
+        this.altitudes = new double[size];
+        this.speeds = new float[size];
+        this.courses = new float[size];
+        this.fileIds = new int[size];
+    }
+
+    public int size() {
+        return times.length;
+    }
+
+    public long getTime(int index) {
+        return times[index];
+    }
+
+    public double getLatitude(int index) {
+        return latitudes[index];
+    }
+
+    public double getLongitude(int index) {
+        return longitudes[index];
+    }
+
+    public double getAltitude(int index) {
+        return altitudes[index];
+    }
+
+    /**
+     * Returns the speed in kilometers per hour, or NaN.
+     */
+    public float getSpeed(int index) {
+        return speeds[index];
+    }
+
+    /**
+     * Returns the direction of movement in degrees, or NaN.
+     */
+    public float getCourse(int index) {
+        return courses[index];
+    }
+
+    public int getFileId(int index) {
+        return fileIds[index];
+    }
+}
@@ -0,0 +1,140 @@
+package org.lds.media.gps;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Streams a {@link Track} as GPX 1.1 or as a GeoJSON LineString feature without building an intermediate document.
+ */
+public class TrackWriter {
+
+    private final Writer out;
+    private final char[] time = new char[24];
+
+    public TrackWriter(Writer out) {
+        this.out = out;
+    }
+
+    public void writeGPX(Track track, String name) throws IOException {
+        out.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        out.write("<gpx version=\"1.1\" creator=\"lds-media\" xmlns=\"http://www.topografix.com/GPX/1/1\">\n<trk>");
+        if (name != null) {
+            out.write("<name>");
+            escape(name);
+            out.write("</name>");
+        }
+        out.write("\n<trkseg>\n");
+        for (int i = 0; i < track.size(); i++) {
+            out.write("<trkpt lat=\"");
+            out.write(Double.toString(track.getLatitude(i)));
+            out.write("\" lon=\"");
+            out.write(Double.toString(track.getLongitude(i)));
+            out.write("\">");
+            if (!Double.isNaN(track.getAltitude(i))) {
+                out.write("<ele>");
+                out.write(Double.toString(track.getAltitude(i)));
+                out.write("</ele>");
+            }
+            if (track.getTime(i) != Track.NO_TIME) {
+                out.write("<time>");
+                writeTime(track.getTime(i));
+                out.write("</time>");
+            }
+            out.write("</trkpt>\n");
+        }
+        out.write("</trkseg>\n</trk>\n</gpx>\n");
+        out.flush();
+    }
+
+    /**
+     * Writes a single Feature whose "coordTimes" property parallels the LineString coordinates.
+     */
+    public void writeGeoJSON(Track track) throws IOException {
+        out.write("{\"type\":\"Feature\",\"geometry\":{\"type\":\"LineString\",\"coordinates\":[");
+        for (int i = 0; i < track.size(); i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            out.write('[');
+            out.write(Double.toString(track.getLongitude(i)));
+            out.write(',');
+            out.write(Double.toString(track.getLatitude(i)));
+            if (!Double.isNaN(track.getAltitude(i))) {
+                out.write(',');
+                out.write(Double.toString(track.getAltitude(i)));
+            }
+            out.write(']');
+        }
+        out.write("]},\"properties\":{\"coordTimes\":[");
+        for (int i = 0; i < track.size(); i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            if (track.getTime(i) == Track.NO_TIME) {
+                out.write("null");
+            } else {
+                out.write('"');
+                writeTime(track.getTime(i));
+                out.write('"');
+            }
+        }
+        out.write("]}}\n");
+        out.flush();
+    }
+
+    private void writeTime(long millis) throws IOException {
+        long day = millis / 86400000L;
+        int ms = (int) (millis % 86400000L);
+        if (ms < 0) {
+            day--;
+            ms += 86400000;
+        }
+        // civil-from-days, proleptic Gregorian
+        day += 719468;
+        long era = (day >= 0 ? day : day - 146096) / 146097;
+        long doe = day - era * 146097;
+        long yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+        long doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        long mp = (5 * doy + 2) / 153;
+        int month = (int) (mp < 10 ? mp + 3 : mp - 9);
+        put((int) (yoe + era * 400 + (month <= 2 ? 1 : 0)), 0, 4);
+        time[4] = '-';
+        put(month, 5, 2);
+        time[7] = '-';
+        put((int) (doy - (153 * mp + 2) / 5 + 1), 8, 2);
+        time[10] = 'T';
+        put(ms / 3600000, 11, 2);
+        time[13] = ':';
+        put(ms / 60000 % 60, 14, 2);
+        time[16] = ':';
+        put(ms / 1000 % 60, 17, 2);
+        time[19] = '.';
+        put(ms % 1000, 20, 3);
+        time[23] = 'Z';
+        out.write(time, 0, time.length);
+    }
+
+    private void put(int value, int offset, int digits) {
+        for (int i = offset + digits - 1; i >= offset; i--) {
+            time[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    private void escape(String value) throws IOException {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '<') {
+                out.write("&lt;");
+            } else if (c == '>') {
+                out.write("&gt;");
+            } else if (c == '&') {
+                out.write("&amp;");
+            } else if (c == '"') {
+                out.write("&quot;");
+            } else {
+                out.write(c);
+            }
+        }
+    }
+}
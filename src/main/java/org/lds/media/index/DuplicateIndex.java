@@ -0,0 +1,79 @@
+package org.lds.media.index;
+
+/**
+ * Open-addressing map from a non-zero 64-bit fingerprint to the id of the first file that produced it.
+ */
+public class DuplicateIndex {
+
+    public static final int ABSENT = -1;
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+
+    public DuplicateIndex() {
+        this(1024);
+    }
+
+    public DuplicateIndex(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(expected, 8) * 2 - 1) << 1;
+        keys = new long[capacity];
+        values = new int[capacity];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Records {@code fileId} under {@code fingerprint} unless it is already present, and returns the id of the
+     * earlier file with the same fingerprint, or {@link #ABSENT}.
+     */
+    public int putIfAbsent(long fingerprint, int fileId) {
+        if (fingerprint == 0) {
+            throw new IllegalArgumentException("fingerprint must be non-zero");
+        }
+        int mask = keys.length - 1;
+        int i = (int) (fingerprint ^ (fingerprint >>> 32)) & mask;
+        for (; keys[i] != 0; i = (i + 1) & mask) {
+            if (keys[i] == fingerprint) {
+                return values[i];
+            }
+        }
+        keys[i] = fingerprint;
+        values[i] = fileId;
+        if (++size * 2 > keys.length) {
+            rehash(keys.length * 2);
+        }
+        return ABSENT;
+    }
+
+    public int get(long fingerprint) {
+        int mask = keys.length - 1;
+        for (int i = (int) (fingerprint ^ (fingerprint >>> 32)) & mask; keys[i] != 0; i = (i + 1) & mask) {
+            if (keys[i] == fingerprint) {
+                return values[i];
+            }
+        }
+        return ABSENT;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[capacity];
+        values = new int[capacity];
+        int mask = capacity - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            long key = oldKeys[j];
+            if (key != 0) {
+                int i = (int) (key ^ (key >>> 32)) & mask;
+                while (keys[i] != 0) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = key;
+                values[i] = oldValues[j];
+            }
+        }
+    }
+}
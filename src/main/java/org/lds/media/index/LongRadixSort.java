@@ -0,0 +1,58 @@
+package org.lds.media.index;
+
+public class LongRadixSort {
+
+    /**
+     * Sorts the first {@code length} keys in ascending signed order, permuting {@code values} alongside.
+     * Runs in linear time with one scratch copy of each array.
+     */
+    public static void sort(long[] keys, int[] values, int length) {
+        if (length < 2) {
+            return;
+        }
+        long[] srcKeys = keys;
+        int[] srcValues = values;
+        long[] dstKeys = new long[length];
+        int[] dstValues = new int[length];
+        int[] count = new int[256];
+        for (int shift = 0; shift < 64; shift += 8) {
+            for (int i = 0; i < count.length; i++) {
+                count[i] = 0;
+            }
+            for (int i = 0; i < length; i++) {
+                count[digit(srcKeys[i], shift)]++;
+            }
+            if (count[digit(srcKeys[0], shift)] == length) {
+                continue;
+            }
+            int position = 0;
+            for (int i = 0; i < count.length; i++) {
+                int n = count[i];
+                count[i] = position;
+                position += n;
+            }
+            for (int i = 0; i < length; i++) {
+                int p = count[digit(srcKeys[i], shift)]++;
+                dstKeys[p] = srcKeys[i];
+                dstValues[p] = srcValues[i];
+            }
+            long[] keysSwap = srcKeys;
+            srcKeys = dstKeys;
+            dstKeys = keysSwap;
+            int[] valuesSwap = srcValues;
+            srcValues = dstValues;
+            dstValues = valuesSwap;
+        }
+        if (srcKeys != keys) {
+            System.arraycopy(srcKeys, 0, keys, 0, length);
+            System.arraycopy(srcValues, 0, values, 0, length);
+        }
+    }
+
+    private static int digit(long key, int shift) {
+        return (int) ((key ^ Long.MIN_VALUE) >>> shift) & 0xff;
+    }
+
+    private LongRadixSort() {
+    }
+}
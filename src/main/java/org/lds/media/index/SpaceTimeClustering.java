@@ -0,0 +1,440 @@
+package org.lds.media.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Groups photos into events with DBSCAN over capture time and great-circle distance.
+ * <p>
+ * Two points are neighbours when their capture times differ by at most {@code epsMillis} and they lie within
+ * {@code epsMeters} of each other; a point with at least {@code minPoints} neighbours (itself included) is a core
+ * point. Points are bucketed in a grid over unit-sphere coordinates and time, so a neighbour query only visits the
+ * 81 surrounding cells. Clusters are kept in a lock-free union-find: adding points can only create or merge
+ * clusters, never split them, so {@link #update} only does work proportional to the points just added.
+ */
+public class SpaceTimeClustering {
+
+    public static final int NOISE = -1;
+
+    private static final double EARTH_RADIUS = 6371008.8;
+
+    private final long epsMillis;
+    private final int minPoints;
+    private final double chord;
+    private final double chordSquared;
+
+    private int size;
+    private int clustered;
+    private long[] times = new long[1024];
+    private double[] xs = new double[1024];
+    private double[] ys = new double[1024];
+    private double[] zs = new double[1024];
+    private int[] next = new int[1024];
+    private AtomicIntegerArray counts = new AtomicIntegerArray(1024);
+    private AtomicIntegerArray parents = new AtomicIntegerArray(1024);
+    private AtomicIntegerArray borders = new AtomicIntegerArray(1024);
+    private final CellMap cells = new CellMap();
+
+    public SpaceTimeClustering(double epsMeters, long epsMillis, int minPoints) {
+        if (!(epsMeters > 0) || epsMillis <= 0 || minPoints < 1) {
+            throw new IllegalArgumentException();
+        }
+        this.epsMillis = epsMillis;
+        this.minPoints = minPoints;
+        this.chord = 2 * Math.sin(Math.min(epsMeters / EARTH_RADIUS, Math.PI) / 2);
+        this.chordSquared = chord * chord;
+    }
+
+    /**
+     * Adds a point and returns its id. The point is not clustered until the next {@link #update}.
+     */
+    public int add(long time, double latitude, double longitude) {
+        if (size == times.length) {
+            int capacity = size + (size >> 1);
+            times = Arrays.copyOf(times, capacity);
+            xs = Arrays.copyOf(xs, capacity);
+            ys = Arrays.copyOf(ys, capacity);
+            zs = Arrays.copyOf(zs, capacity);
+            next = Arrays.copyOf(next, capacity);
+        }
+        double phi = Math.toRadians(latitude);
+        double lambda = Math.toRadians(longitude);
+        times[size] = time;
+        xs[size] = Math.cos(phi) * Math.cos(lambda);
+        ys[size] = Math.cos(phi) * Math.sin(lambda);
+        zs[size] = Math.sin(phi);
+        return size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void update() {
+        try {
+            update(null, 1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Clusters the points added since the last update, splitting the work into {@code parallelism} tasks on
+     * {@code executor}, or running it on the calling thread when the executor is null.
+     */
+    public void update(ExecutorService executor, int parallelism) throws InterruptedException {
+        final int first = clustered;
+        final int end = size;
+        if (first == end) {
+            return;
+        }
+        ensureCapacity(end);
+        for (int p = first; p < end; p++) {
+            parents.set(p, p);
+            borders.set(p, NOISE);
+            int cell = cells.put(cellX(p), cellY(p), cellZ(p), cellT(p));
+            next[p] = cells.heads[cell];
+            cells.heads[cell] = p;
+        }
+
+        // count neighbours of the new points and bump the counts of the old points they reach
+        final int[][] promoted = new int[1][];
+        run(executor, parallelism, first, end, new Phase() {
+            @Override
+            int[] run(int from, int to) {
+                Neighbours neighbours = new Neighbours();
+                Neighbours crossed = new Neighbours();
+                for (int p = from; p < to; p++) {
+                    neighbours.size = 0;
+                    collect(p, neighbours);
+                    counts.set(p, neighbours.size);
+                    for (int i = 0; i < neighbours.size; i++) {
+                        int q = neighbours.items[i];
+                        if (q < first && counts.incrementAndGet(q) == minPoints) {
+                            crossed.add(q);
+                        }
+                    }
+                }
+                return Arrays.copyOf(crossed.items, crossed.size);
+            }
+
+            @Override
+            void merge(int[] result) {
+                promoted[0] = promoted[0] == null ? result : concat(promoted[0], result);
+            }
+        });
+
+        // the affected points are the new points plus the old points that just became core
+        final int[] affected = new int[end - first + promoted[0].length];
+        for (int p = first; p < end; p++) {
+            affected[p - first] = p;
+        }
+        System.arraycopy(promoted[0], 0, affected, end - first, promoted[0].length);
+        run(executor, parallelism, 0, affected.length, new Phase() {
+            @Override
+            int[] run(int from, int to) {
+                Neighbours neighbours = new Neighbours();
+                for (int i = from; i < to; i++) {
+                    int p = affected[i];
+                    neighbours.size = 0;
+                    collect(p, neighbours);
+                    boolean core = isCore(p);
+                    for (int j = 0; j < neighbours.size; j++) {
+                        int q = neighbours.items[j];
+                        if (core && isCore(q)) {
+                            union(p, q);
+                        } else if (core) {
+                            borders.compareAndSet(q, NOISE, p);
+                        } else if (isCore(q)) {
+                            borders.compareAndSet(p, NOISE, q);
+                        }
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            void merge(int[] result) {
+            }
+        });
+        clustered = end;
+    }
+
+    /**
+     * Returns the cluster of a point as the id of a representative point, or {@link #NOISE}.
+     */
+    public int getCluster(int point) {
+        if (point >= clustered) {
+            return NOISE;
+        }
+        if (isCore(point)) {
+            return find(point);
+        }
+        int border = borders.get(point);
+        return border == NOISE ? NOISE : find(border);
+    }
+
+    /**
+     * Fills {@code labels} with dense cluster numbers in order of first appearance, {@link #NOISE} for noise,
+     * and returns the number of clusters.
+     */
+    public int label(int[] labels) {
+        int[] ids = new int[clustered];
+        Arrays.fill(ids, NOISE);
+        int count = 0;
+        for (int p = 0; p < clustered; p++) {
+            int cluster = getCluster(p);
+            if (cluster == NOISE) {
+                labels[p] = NOISE;
+            } else {
+                if (ids[cluster] == NOISE) {
+                    ids[cluster] = count++;
+                }
+                labels[p] = ids[cluster];
+            }
+        }
+        return count;
+    }
+
+    private boolean isCore(int p) {
+        return counts.get(p) >= minPoints;
+    }
+
+    private int find(int p) {
+        while (true) {
+            int parent = parents.get(p);
+            if (parent == p) {
+                return p;
+            }
+            int grandparent = parents.get(parent);
+            if (parent != grandparent) {
+                parents.compareAndSet(p, parent, grandparent);
+            }
+            p = grandparent;
+        }
+    }
+
+    private void union(int a, int b) {
+        while (true) {
+            a = find(a);
+            b = find(b);
+            if (a == b) {
+                return;
+            }
+            // always link the larger root under the smaller, and only while it is still a root
+            if (a < b) {
+                int t = a;
+                a = b;
+                b = t;
+            }
+            if (parents.compareAndSet(a, a, b)) {
+                return;
+            }
+        }
+    }
+
+    private void collect(int p, Neighbours out) {
+        int cx = cellX(p);
+        int cy = cellY(p);
+        int cz = cellZ(p);
+        long ct = cellT(p);
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dy = -1; dy <= 1; dy++) {
+                for (int dz = -1; dz <= 1; dz++) {
+                    for (int dt = -1; dt <= 1; dt++) {
+                        int cell = cells.get(cx + dx, cy + dy, cz + dz, ct + dt);
+                        if (cell < 0) {
+                            continue;
+                        }
+                        for (int q = cells.heads[cell]; q >= 0; q = next[q]) {
+                            if (isNeighbour(p, q)) {
+                                out.add(q);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private boolean isNeighbour(int p, int q) {
+        long dt = times[p] - times[q];
+        if (dt > epsMillis || dt < -epsMillis) {
+            return false;
+        }
+        double dx = xs[p] - xs[q];
+        double dy = ys[p] - ys[q];
+        double dz = zs[p] - zs[q];
+        return dx * dx + dy * dy + dz * dz <= chordSquared;
+    }
+
+    private int cellX(int p) {
+        return (int) Math.floor(xs[p] / chord);
+    }
+
+    private int cellY(int p) {
+        return (int) Math.floor(ys[p] / chord);
+    }
+
+    private int cellZ(int p) {
+        return (int) Math.floor(zs[p] / chord);
+    }
+
+    private long cellT(int p) {
+        long t = times[p];
+        return t >= 0 ? t / epsMillis : (t + 1) / epsMillis - 1;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= counts.length()) {
+            return;
+        }
+        capacity = Math.max(capacity, counts.length() + (counts.length() >> 1));
+        counts = grow(counts, capacity);
+        parents = grow(parents, capacity);
+        borders = grow(borders, capacity);
+    }
+
+    private AtomicIntegerArray grow(AtomicIntegerArray array, int capacity) {
+        AtomicIntegerArray grown = new AtomicIntegerArray(capacity);
+        for (int i = 0; i < clustered; i++) {
+            grown.set(i, array.get(i));
+        }
+        return grown;
+    }
+
+    private static void run(ExecutorService executor, int parallelism, int from, int to, final Phase phase)
+            throws InterruptedException {
+        int length = to - from;
+        if (executor == null || parallelism <= 1 || length < 1024) {
+            phase.merge(phase.run(from, to));
+            return;
+        }
+        int chunk = (length + parallelism - 1) / parallelism;
+        List<Future<int[]>> futures = new ArrayList<Future<int[]>>(parallelism);
+        for (int start = from; start < to; start += chunk) {
+            final int a = start;
+            final int b = Math.min(start + chunk, to);
+            futures.add(executor.submit(new Callable<int[]>() {
+                @Override
+                public int[] call() {
+                    return phase.run(a, b);
+                }
+            }));
+        }
+        for (Future<int[]> future : futures) {
+            try {
+                phase.merge(future.get());
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw (Error) cause;
+            }
+        }
+    }
+
+    private static int[] concat(int[] a, int[] b) {
+        int[] c = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, c, a.length, b.length);
+        return c;
+    }
+
+    private abstract static class Phase {
+        abstract int[] run(int from, int to);
+
+        abstract void merge(int[] result);
+    }
+
+    private static class Neighbours {
+        int[] items = new int[64];
+        int size;
+
+        void add(int item) {
+            if (size == items.length) {
+                items = Arrays.copyOf(items, size * 2);
+            }
+            items[size++] = item;
+        }
+    }
+
+    /**
+     * Open-addressing map from grid cell coordinates to a dense cell id; only written between parallel phases.
+     */
+    private static class CellMap {
+        private int[] table = new int[1024];
+        private int[] keysX = new int[512];
+        private int[] keysY = new int[512];
+        private int[] keysZ = new int[512];
+        private long[] keysT = new long[512];
+        int[] heads = new int[512];
+        private int size;
+
+        CellMap() {
+            Arrays.fill(table, -1);
+        }
+
+        int get(int x, int y, int z, long t) {
+            int mask = table.length - 1;
+            for (int i = hash(x, y, z, t) & mask; ; i = (i + 1) & mask) {
+                int cell = table[i];
+                if (cell < 0 || keysX[cell] == x && keysY[cell] == y && keysZ[cell] == z && keysT[cell] == t) {
+                    return cell;
+                }
+            }
+        }
+
+        int put(int x, int y, int z, long t) {
+            int cell = get(x, y, z, t);
+            if (cell >= 0) {
+                return cell;
+            }
+            if (size == keysX.length) {
+                int capacity = size * 2;
+                keysX = Arrays.copyOf(keysX, capacity);
+                keysY = Arrays.copyOf(keysY, capacity);
+                keysZ = Arrays.copyOf(keysZ, capacity);
+                keysT = Arrays.copyOf(keysT, capacity);
+                heads = Arrays.copyOf(heads, capacity);
+                rehash(capacity * 2);
+            }
+            cell = size++;
+            keysX[cell] = x;
+            keysY[cell] = y;
+            keysZ[cell] = z;
+            keysT[cell] = t;
+            heads[cell] = -1;
+            insert(cell);
+            return cell;
+        }
+
+        private void rehash(int capacity) {
+            table = new int[capacity];
+            Arrays.fill(table, -1);
+            for (int cell = 0; cell < size; cell++) {
+                insert(cell);
+            }
+        }
+
+        private void insert(int cell) {
+            int mask = table.length - 1;
+            int i = hash(keysX[cell], keysY[cell], keysZ[cell], keysT[cell]) & mask;
+            while (table[i] >= 0) {
+                i = (i + 1) & mask;
+            }
+            table[i] = cell;
+        }
+
+        private static int hash(int x, int y, int z, long t) {
+            int h = x * 0x9e3779b1 + y * 0x85ebca77 + z * 0xc2b2ae3d + (int) (t ^ (t >>> 32)) * 0x27d4eb2f;
+            return h ^ (h >>> 15);
+        }
+    }
+}
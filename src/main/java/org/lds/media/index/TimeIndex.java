@@ -0,0 +1,105 @@
+package org.lds.media.index;
+
+import java.util.Arrays;
+
+public class TimeIndex {
+
+    public static class Builder {
+        private long[] times;
+        private int[] fileIds;
+        private int size;
+
+        public Builder() {
+            this(1024);
+        }
+
+        public Builder(int capacity) {
+            times = new long[Math.max(capacity, 16)];
+            fileIds = new int[times.length];
+        }
+
+        public Builder add(long time, int fileId) {
+            if (size == times.length) {
+                int capacity = size + (size >> 1);
+                times = Arrays.copyOf(times, capacity);
+                fileIds = Arrays.copyOf(fileIds, capacity);
+            }
+            times[size] = time;
+            fileIds[size] = fileId;
+            size++;
+            return this;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public TimeIndex build() {
+            long[] sortedTimes = Arrays.copyOf(times, size);
+            int[] sortedFileIds = Arrays.copyOf(fileIds, size);
+            LongRadixSort.sort(sortedTimes, sortedFileIds, size);
+            return new TimeIndex(sortedTimes, sortedFileIds);
+        }
+    }
+
+    private final long[] times;
+    private final int[] fileIds;
+
+    private TimeIndex(long[] times, int[] fileIds) {
+        this.times = times;
+        this.fileIds = fileIds;
+    }
+
+    public int size() {
+        return times.length;
+    }
+
+    public long getTime(int index) {
+        return times[index];
+    }
+
+    public int getFileId(int index) {
+        return fileIds[index];
+    }
+
+    /**
+     * Returns the index of the first entry whose time is not less than {@code time}.
+     */
+    public int lowerBound(long time) {
+        int low = 0;
+        int high = times.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (times[mid] < time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns the number of entries in [start, end).
+     */
+    public int count(long start, long end) {
+        if (end <= start) {
+            return 0;
+        }
+        return lowerBound(end) - lowerBound(start);
+    }
+
+    /**
+     * Copies the file ids in [start, end) into {@code out} in time order and returns how many were copied.
+     */
+    public int query(long start, long end, int[] out, int off) {
+        if (end <= start) {
+            return 0;
+        }
+        int from = lowerBound(start);
+        int n = Math.min(lowerBound(end) - from, out.length - off);
+        System.arraycopy(fileIds, from, out, off, n);
+        return n;
+    }
+
+}
@@ -0,0 +1,107 @@
+package org.lds.media.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+public class HttpRangeFetcher implements RangeFetcher {
+    private final URL url;
+    private int connectTimeout = 10000;
+    private int readTimeout = 30000;
+    private long length = -1;
+
+    public HttpRangeFetcher(URL url) {
+        this.url = url;
+    }
+
+    public void setConnectTimeout(int connectTimeout) {
+        this.connectTimeout = connectTimeout;
+    }
+
+    public void setReadTimeout(int readTimeout) {
+        this.readTimeout = readTimeout;
+    }
+
+    @Override
+    public long getLength() {
+        return length;
+    }
+
+    @Override
+    public int fetch(long offset, byte[] buf, int off, int len) throws IOException {
+        if (length >= 0 && offset >= length) {
+            return 0;
+        }
+        // never disconnect(): closing the stream after reading the whole body returns the connection to the
+        // JDK's keep-alive pool, so the next range request skips the TCP and TLS handshakes
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setConnectTimeout(connectTimeout);
+        connection.setReadTimeout(readTimeout);
+        connection.setRequestProperty("Range", "bytes=" + offset + "-" + (offset + len - 1));
+        int status = connection.getResponseCode();
+        long skip;
+        if (status == HttpURLConnection.HTTP_PARTIAL) {
+            length = parseTotal(connection.getHeaderField("Content-Range"));
+            skip = 0;
+        } else if (status == HttpURLConnection.HTTP_OK) {
+            length = parseLength(connection.getHeaderField("Content-Length"));
+            skip = offset;
+        } else {
+            InputStream error = connection.getErrorStream();
+            if (error != null) {
+                error.close();
+            }
+            if (status == 416) {
+                length = parseTotal(connection.getHeaderField("Content-Range"));
+                return 0;
+            }
+            throw new IOException("unexpected HTTP status " + status + " for " + url);
+        }
+        InputStream in = connection.getInputStream();
+        try {
+            while (skip > 0) {
+                long n = in.skip(skip);
+                if (n <= 0) {
+                    return 0;
+                }
+                skip -= n;
+            }
+            int n = 0;
+            while (n < len) {
+                int count = in.read(buf, off + n, len - n);
+                if (count < 0) {
+                    break;
+                }
+                n += count;
+            }
+            return n;
+        } finally {
+            in.close();
+        }
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private long parseTotal(String contentRange) {
+        if (contentRange != null) {
+            int index = contentRange.lastIndexOf('/');
+            if (index >= 0) {
+                return parseLength(contentRange.substring(index + 1).trim());
+            }
+        }
+        return length;
+    }
+
+    private long parseLength(String value) {
+        if (value != null) {
+            try {
+                return Long.parseLong(value.trim());
+            } catch (NumberFormatException ignored) {
+            }
+        }
+        return length;
+    }
+}
@@ -0,0 +1,147 @@
+package org.lds.media.io;
+
+import org.lds.io.AbstractSeekableBinaryReader;
+import org.lds.media.ParseLimitException;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Presents a raw deflate stream as a seekable reader. The first {@code prefixSize} inflated bytes are kept, so
+ * seeking inside them is free; seeking backwards past them restarts inflation from the beginning. The total number
+ * of bytes inflated is capped by {@code maxInflated}.
+ */
+public class InflaterBinaryReader extends AbstractSeekableBinaryReader {
+    public static final int DEFAULT_PREFIX_SIZE = 256 * 1024;
+    public static final long DEFAULT_MAX_INFLATED = 64L << 20;
+
+    private final AbstractSeekableBinaryReader source;
+    private final long length;
+    private final long maxInflated;
+    private final byte[] prefix;
+    private final byte[] input = new byte[8192];
+    private final byte[] discard = new byte[8192];
+    private Inflater inflater;
+    private boolean padded;
+    private long streamPosition;
+    private long position;
+    private long inflated;
+
+    public InflaterBinaryReader(AbstractSeekableBinaryReader source, long length) {
+        this(source, length, DEFAULT_PREFIX_SIZE, DEFAULT_MAX_INFLATED);
+    }
+
+    public InflaterBinaryReader(AbstractSeekableBinaryReader source, long length, int prefixSize, long maxInflated) {
+        this.source = source;
+        this.length = length;
+        this.maxInflated = maxInflated;
+        this.prefix = new byte[(int) Math.min(prefixSize, length)];
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (position >= length) {
+            throw new EOFException();
+        }
+        len = (int) Math.min(len, length - position);
+        int n = 0;
+        while (n < len) {
+            if (position < Math.min(streamPosition, prefix.length)) {
+                int count = (int) Math.min(len - n, Math.min(streamPosition, prefix.length) - position);
+                System.arraycopy(prefix, (int) position, b, off + n, count);
+                n += count;
+                position += count;
+                continue;
+            }
+            if (position < streamPosition) {
+                restart();
+            }
+            while (streamPosition < position) {
+                inflate(discard, 0, (int) Math.min(discard.length, position - streamPosition));
+            }
+            int count = inflate(b, off + n, len - n);
+            n += count;
+            position += count;
+        }
+        return n;
+    }
+
+    @Override
+    public void seek(long position) throws IOException {
+        if (position < 0 || position > length) {
+            throw new EOFException();
+        }
+        this.position = position;
+    }
+
+    @Override
+    public long getPosition() {
+        return position;
+    }
+
+    @Override
+    public long getLength() {
+        return length;
+    }
+
+    @Override
+    public void close() {
+        if (inflater != null) {
+            inflater.end();
+            inflater = null;
+        }
+    }
+
+    private void restart() throws IOException {
+        close();
+        source.seek(0);
+        padded = false;
+        streamPosition = 0;
+    }
+
+    private int inflate(byte[] b, int off, int len) throws IOException {
+        if (inflater == null) {
+            inflater = new Inflater(true);
+        }
+        try {
+            while (true) {
+                int count = inflater.inflate(b, off, len);
+                if (count > 0) {
+                    if (streamPosition < prefix.length) {
+                        System.arraycopy(b, off, prefix, (int) streamPosition, (int) Math.min(count, prefix.length - streamPosition));
+                    }
+                    streamPosition += count;
+                    inflated += count;
+                    if (inflated > maxInflated) {
+                        throw new ParseLimitException(ParseLimitException.BYTES_READ,
+                                "more than " + maxInflated + " bytes inflated");
+                    }
+                    return count;
+                }
+                if (inflater.finished() || inflater.needsDictionary()) {
+                    throw new EOFException();
+                }
+                if (inflater.needsInput()) {
+                    long remaining = source.getLength() - source.getPosition();
+                    if (remaining > 0) {
+                        int n = source.read(input, 0, (int) Math.min(input.length, remaining));
+                        inflater.setInput(input, 0, n);
+                    } else if (!padded) {
+                        padded = true;
+                        input[0] = 0;
+                        inflater.setInput(input, 0, 1);
+                    } else {
+                        throw new EOFException();
+                    }
+                }
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("invalid deflate data", e);
+        }
+    }
+}
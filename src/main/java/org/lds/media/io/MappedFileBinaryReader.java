@@ -0,0 +1,61 @@
+package org.lds.media.io;
+
+import org.lds.io.AbstractSeekableBinaryReader;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+public class MappedFileBinaryReader extends AbstractSeekableBinaryReader {
+    private final MappedByteBuffer buffer;
+
+    public MappedFileBinaryReader(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            if (raf.length() > Integer.MAX_VALUE) {
+                throw new IOException("file too large to map: " + file);
+            }
+            buffer = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+        } finally {
+            raf.close();
+        }
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        int n = Math.min(len, buffer.remaining());
+        if (n <= 0) {
+            throw new EOFException();
+        }
+        buffer.get(b, off, n);
+        return n;
+    }
+
+    @Override
+    public void seek(long position) throws IOException {
+        if (position < 0 || position > buffer.limit()) {
+            throw new EOFException();
+        }
+        buffer.position((int) position);
+    }
+
+    @Override
+    public long getPosition() {
+        return buffer.position();
+    }
+
+    @Override
+    public long getLength() {
+        return buffer.limit();
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,180 @@
+package org.lds.media.io;
+
+import org.lds.io.AbstractSeekableBinaryReader;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class RangeBinaryReader extends AbstractSeekableBinaryReader {
+    public static final int DEFAULT_BLOCK_SIZE = 64 * 1024;
+    public static final int DEFAULT_CACHE_BLOCKS = 64;
+    public static final int DEFAULT_MAX_READ_AHEAD = 16;
+
+    private final RangeFetcher fetcher;
+    private final int blockSize;
+    private final int cacheBlocks;
+    private final int maxReadAhead;
+    private final Map<Long, byte[]> blocks;
+    private long length = -1;
+    private long position;
+    private int readAhead = 1;
+    private long nextSequentialBlock = -1;
+    private int requestCount;
+    private long bytesFetched;
+
+    public RangeBinaryReader(RangeFetcher fetcher) {
+        this(fetcher, DEFAULT_BLOCK_SIZE, DEFAULT_CACHE_BLOCKS, DEFAULT_MAX_READ_AHEAD);
+    }
+
+    public RangeBinaryReader(RangeFetcher fetcher, int blockSize, final int cacheBlocks, int maxReadAhead) {
+        this.fetcher = fetcher;
+        this.blockSize = blockSize;
+        this.cacheBlocks = cacheBlocks;
+        this.maxReadAhead = Math.max(1, Math.min(maxReadAhead, cacheBlocks));
+        this.blocks = new LinkedHashMap<Long, byte[]>(cacheBlocks * 2, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, byte[]> eldest) {
+                return size() > cacheBlocks;
+            }
+        };
+    }
+
+    public int getRequestCount() {
+        return requestCount;
+    }
+
+    public long getBytesFetched() {
+        return bytesFetched;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (position >= getLength()) {
+            throw new EOFException();
+        }
+        len = (int) Math.min(len, getLength() - position);
+        int n = 0;
+        while (n < len) {
+            long index = position / blockSize;
+            int count;
+            byte[] block = blocks.get(index);
+            if (block == null) {
+                // the run of uncached blocks this read still needs
+                long last = (position + len - n - 1) / blockSize;
+                long end = index + 1;
+                while (end <= last && !blocks.containsKey(end)) {
+                    end++;
+                }
+                if (end - index > cacheBlocks) {
+                    // more than the cache holds: caching it would evict its own first blocks, so fetch it in place
+                    count = (int) Math.min(len - n, end * blockSize - position);
+                    fetchFully(position, b, off + n, count);
+                    nextSequentialBlock = end;
+                    n += count;
+                    position += count;
+                    continue;
+                }
+                block = load(index, end - 1);
+            }
+            int blockOffset = (int) (position - index * blockSize);
+            count = Math.min(len - n, block.length - blockOffset);
+            if (count <= 0) {
+                throw new EOFException();
+            }
+            System.arraycopy(block, blockOffset, b, off + n, count);
+            n += count;
+            position += count;
+        }
+        return n;
+    }
+
+    @Override
+    public void seek(long position) throws IOException {
+        if (position < 0) {
+            throw new EOFException();
+        }
+        this.position = position;
+    }
+
+    @Override
+    public long getPosition() {
+        return position;
+    }
+
+    @Override
+    public long getLength() throws IOException {
+        if (length < 0) {
+            length = fetcher.getLength();
+            if (length < 0) {
+                load(0, 0);
+                length = fetcher.getLength();
+            }
+        }
+        return length;
+    }
+
+    @Override
+    public void close() throws IOException {
+        blocks.clear();
+        fetcher.close();
+    }
+
+    /**
+     * Fetches blocks {@code first} to {@code last}, none of them cached, plus read-ahead up to the next cached block,
+     * caches them and returns the first.
+     */
+    private byte[] load(long first, long last) throws IOException {
+        if (first == nextSequentialBlock) {
+            readAhead = Math.min(readAhead * 2, maxReadAhead);
+        } else {
+            readAhead = 1;
+        }
+        long end = Math.max(last + 1, first + readAhead);
+        if (length >= 0) {
+            end = Math.min(end, (length + blockSize - 1) / blockSize);
+        }
+        for (long index = last + 1; index < end; index++) {
+            if (blocks.containsKey(index)) {
+                end = index;
+                break;
+            }
+        }
+        byte[] buf = new byte[(int) ((end - first) * blockSize)];
+        int n = fetch(first * blockSize, buf, 0, buf.length);
+        byte[] firstBlock = null;
+        for (int blockOffset = 0; blockOffset < n; blockOffset += blockSize) {
+            byte[] block = new byte[Math.min(blockSize, n - blockOffset)];
+            System.arraycopy(buf, blockOffset, block, 0, block.length);
+            blocks.put(first + blockOffset / blockSize, block);
+            if (firstBlock == null) {
+                firstBlock = block;
+            }
+        }
+        if (firstBlock == null) {
+            throw new EOFException();
+        }
+        nextSequentialBlock = first + (n + blockSize - 1) / blockSize;
+        return firstBlock;
+    }
+
+    private void fetchFully(long offset, byte[] b, int off, int len) throws IOException {
+        if (fetch(offset, b, off, len) < len) {
+            throw new EOFException();
+        }
+    }
+
+    /**
+     * Fetches up to {@code len} bytes in one request; fewer only at the end of the object.
+     */
+    private int fetch(long offset, byte[] b, int off, int len) throws IOException {
+        int n = Math.max(0, fetcher.fetch(offset, b, off, len));
+        requestCount++;
+        bytesFetched += n;
+        return n;
+    }
+}
@@ -0,0 +1,19 @@
+package org.lds.media.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+public interface RangeFetcher extends Closeable {
+
+    /**
+     * Returns the object length, or -1 while it is not known yet. It must be known after the first fetch.
+     */
+    long getLength() throws IOException;
+
+    /**
+     * Fetches {@code len} bytes starting at {@code offset} in a single request. Returns fewer bytes only at the end
+     * of the object.
+     */
+    int fetch(long offset, byte[] buf, int off, int len) throws IOException;
+
+}
@@ -0,0 +1,58 @@
+package org.lds.media.io;
+
+import org.lds.io.AbstractSeekableBinaryReader;
+
+import java.io.EOFException;
+import java.io.IOException;
+
+public class SliceBinaryReader extends AbstractSeekableBinaryReader {
+    private final AbstractSeekableBinaryReader parent;
+    private final long offset;
+    private final long length;
+    private long position;
+
+    public SliceBinaryReader(AbstractSeekableBinaryReader parent, long offset, long length) {
+        this.parent = parent;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (position >= length) {
+            throw new EOFException();
+        }
+        parent.seek(offset + position);
+        int n = parent.read(b, off, (int) Math.min(len, length - position));
+        position += n;
+        return n;
+    }
+
+    @Override
+    public void seek(long position) throws IOException {
+        if (position < 0 || position > length) {
+            throw new EOFException();
+        }
+        this.position = position;
+    }
+
+    @Override
+    public long getPosition() {
+        return position;
+    }
+
+    @Override
+    public long getLength() {
+        return length;
+    }
+
+    /**
+     * Does not close the parent reader.
+     */
+    @Override
+    public void close() {
+    }
+}
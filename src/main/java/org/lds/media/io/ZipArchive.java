@@ -0,0 +1,196 @@
+package org.lds.media.io;
+
+import org.lds.io.AbstractSeekableBinaryReader;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class ZipArchive {
+    public static final int STORED = 0;
+    public static final int DEFLATED = 8;
+
+    private static final int END_OF_CENTRAL_DIRECTORY = 0x06054b50;
+    private static final int ZIP64_END_OF_CENTRAL_DIRECTORY = 0x06064b50;
+    private static final int ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR = 0x07064b50;
+    private static final int CENTRAL_DIRECTORY_HEADER = 0x02014b50;
+    private static final int LOCAL_FILE_HEADER = 0x04034b50;
+    private static final int ZIP64_EXTRA = 0x0001;
+    private static final int MAX_COMMENT_LENGTH = 0xffff;
+    private static final int MAX_CENTRAL_DIRECTORY_SIZE = 256 << 20;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final Charset CP437 = Charset.isSupported("IBM437") ? Charset.forName("IBM437") : Charset.forName("ISO-8859-1");
+
+    public static class Entry {
+        private final String name;
+        private final int method;
+        private final boolean encrypted;
+        private final long compressedSize;
+        private final long size;
+        private final long localHeaderOffset;
+
+        private Entry(String name, int method, boolean encrypted, long compressedSize, long size, long localHeaderOffset) {
+            this.name = name;
+            this.method = method;
+            this.encrypted = encrypted;
+            this.compressedSize = compressedSize;
+            this.size = size;
+            this.localHeaderOffset = localHeaderOffset;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getMethod() {
+            return method;
+        }
+
+        public boolean isEncrypted() {
+            return encrypted;
+        }
+
+        public boolean isDirectory() {
+            return name.endsWith("/");
+        }
+
+        public long getCompressedSize() {
+            return compressedSize;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public long getLocalHeaderOffset() {
+            return localHeaderOffset;
+        }
+    }
+
+    public static ZipArchive read(AbstractSeekableBinaryReader reader) throws IOException {
+        long length = reader.getLength();
+        int tailLength = (int) Math.min(length, 22 + MAX_COMMENT_LENGTH);
+        ByteBuffer tail = read(reader, length - tailLength, tailLength);
+        int eocd = -1;
+        for (int i = tailLength - 22; i >= 0; i--) {
+            if (tail.getInt(i) == END_OF_CENTRAL_DIRECTORY) {
+                eocd = i;
+                break;
+            }
+        }
+        if (eocd < 0) {
+            throw new IOException("end of central directory not found");
+        }
+        long entryCount = tail.getShort(eocd + 10) & 0xffff;
+        long directorySize = tail.getInt(eocd + 12) & 0xffffffffL;
+        long directoryOffset = tail.getInt(eocd + 16) & 0xffffffffL;
+        if ((entryCount == 0xffff || directorySize == 0xffffffffL || directoryOffset == 0xffffffffL) && eocd >= 20
+                && tail.getInt(eocd - 20) == ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR) {
+            ByteBuffer zip64 = read(reader, tail.getLong(eocd - 20 + 8), 56);
+            if (zip64.getInt(0) != ZIP64_END_OF_CENTRAL_DIRECTORY) {
+                throw new IOException("invalid zip64 end of central directory");
+            }
+            entryCount = zip64.getLong(32);
+            directorySize = zip64.getLong(40);
+            directoryOffset = zip64.getLong(48);
+        }
+        if (directorySize < 0 || directorySize > MAX_CENTRAL_DIRECTORY_SIZE || directoryOffset < 0
+                || directoryOffset + directorySize > length || entryCount > directorySize / 46) {
+            throw new IOException("invalid central directory");
+        }
+        ByteBuffer directory = read(reader, directoryOffset, (int) directorySize);
+        List<Entry> entries = new ArrayList<Entry>((int) entryCount);
+        int position = 0;
+        for (long i = 0; i < entryCount; i++) {
+            if (position + 46 > directory.limit() || directory.getInt(position) != CENTRAL_DIRECTORY_HEADER) {
+                throw new IOException("invalid central directory entry");
+            }
+            int flags = directory.getShort(position + 8) & 0xffff;
+            int method = directory.getShort(position + 10) & 0xffff;
+            long compressedSize = directory.getInt(position + 20) & 0xffffffffL;
+            long size = directory.getInt(position + 24) & 0xffffffffL;
+            int nameLength = directory.getShort(position + 28) & 0xffff;
+            int extraLength = directory.getShort(position + 30) & 0xffff;
+            int commentLength = directory.getShort(position + 32) & 0xffff;
+            long localHeaderOffset = directory.getInt(position + 42) & 0xffffffffL;
+            int next = position + 46 + nameLength + extraLength + commentLength;
+            if (next > directory.limit()) {
+                throw new IOException("invalid central directory entry");
+            }
+            byte[] name = new byte[nameLength];
+            directory.position(position + 46);
+            directory.get(name);
+            for (int extra = position + 46 + nameLength; extra + 4 <= position + 46 + nameLength + extraLength; ) {
+                int id = directory.getShort(extra) & 0xffff;
+                int dataLength = directory.getShort(extra + 2) & 0xffff;
+                if (id == ZIP64_EXTRA) {
+                    int field = extra + 4;
+                    if (size == 0xffffffffL && field + 8 <= extra + 4 + dataLength) {
+                        size = directory.getLong(field);
+                        field += 8;
+                    }
+                    if (compressedSize == 0xffffffffL && field + 8 <= extra + 4 + dataLength) {
+                        compressedSize = directory.getLong(field);
+                        field += 8;
+                    }
+                    if (localHeaderOffset == 0xffffffffL && field + 8 <= extra + 4 + dataLength) {
+                        localHeaderOffset = directory.getLong(field);
+                    }
+                }
+                extra += 4 + dataLength;
+            }
+            entries.add(new Entry(new String(name, (flags & 0x800) != 0 ? UTF_8 : CP437), method, (flags & 1) != 0,
+                    compressedSize, size, localHeaderOffset));
+            position = next;
+        }
+        return new ZipArchive(entries);
+    }
+
+    private static ByteBuffer read(AbstractSeekableBinaryReader reader, long offset, int length) throws IOException {
+        reader.seek(offset);
+        ByteBuffer buffer = ByteBuffer.wrap(reader.readByteArray(length));
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        return buffer;
+    }
+
+    private final List<Entry> entries;
+
+    private ZipArchive(List<Entry> entries) {
+        this.entries = Collections.unmodifiableList(entries);
+    }
+
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    /**
+     * Opens an entry on top of {@code reader}, which must be positioned over the same archive. STORED entries are
+     * random access; DEFLATED entries are inflated on demand. The returned reader does not close {@code reader}.
+     */
+    public AbstractSeekableBinaryReader open(AbstractSeekableBinaryReader reader, Entry entry) throws IOException {
+        if (entry.isEncrypted()) {
+            throw new IOException("encrypted entry: " + entry.getName());
+        }
+        ByteBuffer header = read(reader, entry.getLocalHeaderOffset(), 30);
+        if (header.getInt(0) != LOCAL_FILE_HEADER) {
+            throw new IOException("invalid local file header: " + entry.getName());
+        }
+        long dataOffset = entry.getLocalHeaderOffset() + 30 + (header.getShort(26) & 0xffff) + (header.getShort(28) & 0xffff);
+        if (dataOffset + entry.getCompressedSize() > reader.getLength()) {
+            throw new IOException("truncated entry: " + entry.getName());
+        }
+        switch (entry.getMethod()) {
+            case STORED:
+                return new SliceBinaryReader(reader, dataOffset, entry.getSize());
+            case DEFLATED:
+                return new InflaterBinaryReader(new SliceBinaryReader(reader, dataOffset, entry.getCompressedSize()),
+                        entry.getSize());
+            default:
+                throw new IOException("unsupported compression method " + entry.getMethod() + ": " + entry.getName());
+        }
+    }
+}
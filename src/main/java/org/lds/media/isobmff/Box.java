@@ -1,15 +1,17 @@
 package org.lds.media.isobmff;
 
-import org.lds.io.AbstractBinaryReader;
 import org.lds.io.AbstractSeekableBinaryReader;
 
 import java.io.IOException;
+import java.nio.charset.Charset;
 
 public class Box {
 
+    private static final Charset TYPE_CHARSET = Charset.forName("ISO-8859-1");
+
     public static Box read(AbstractSeekableBinaryReader r) throws IOException {
-        long size = r.readIntValue() & 0xffff;
-        String type = r.readString(4);
+        long size = r.readUnsignedIntValue();
+        String type = new String(r.readByteArray(4), TYPE_CHARSET);
         if ("ftyp".equals(type)) {
             return new FileTypeBox(r, size, type);
         } else if ("meta".equals(type)) {
@@ -20,12 +22,19 @@ public class Box {
             return new ItemInfoEntry(r, size, type);
         } else if ("iloc".equals(type)) {
             return new ItemLocationBox(r, size, type);
+        } else if ("mvhd".equals(type)) {
+            return new MovieHeaderBox(r, size, type);
+        } else if ("keys".equals(type)) {
+            return new KeysBox(r, size, type);
+        } else if ("data".equals(type)) {
+            return new DataBox(r, size, type);
         } else {
             return new Box(r, size, type);
         }
     }
 
-    private final AbstractBinaryReader r;
+    private final AbstractSeekableBinaryReader r;
+    private final long offset;
     protected long dataOffset;
     private long size;
     private String type;
@@ -33,6 +42,7 @@ public class Box {
 
     protected Box(AbstractSeekableBinaryReader r, long size, String type) throws IOException {
         this.r = r;
+        offset = r.getPosition() - 8;
         dataOffset = 8;
         this.size = size;
         this.type = type;
@@ -40,12 +50,19 @@ public class Box {
             this.size = r.readLongValue();
             dataOffset += 8;
         } else if (size == 0) {
-            this.size = r.getLength() - r.getPosition() + 8;
+            this.size = r.getLength() - offset;
         }
         if ("uuid".equals(type)) {
             this.userType = r.readString(16);
             dataOffset += 16;
         }
+        if (this.size < dataOffset) {
+            throw new IOException("invalid box size");
+        }
+    }
+
+    public long getOffset() {
+        return offset;
     }
 
     public long getDataOffset() {
@@ -65,6 +82,6 @@ public class Box {
     }
 
     public void skip() throws IOException {
-        r.skip(getSize() - dataOffset);
+        r.seek(offset + size);
     }
 }
@@ -0,0 +1,47 @@
+package org.lds.media.isobmff;
+
+import org.lds.Encoding;
+import org.lds.io.AbstractSeekableBinaryReader;
+
+import java.io.IOException;
+
+public class DataBox extends Box {
+    public static final int TYPE_UTF_8 = 1;
+
+    private final AbstractSeekableBinaryReader r;
+    private int dataType;
+    private int locale;
+
+    public DataBox(AbstractSeekableBinaryReader r, long size, String type) throws IOException {
+        super(r, size, type);
+        this.r = r;
+        dataType = r.readIntValue() & 0xffffff;
+        dataOffset += 4;
+        locale = r.readIntValue();
+        dataOffset += 4;
+    }
+
+    public int getDataType() {
+        return dataType;
+    }
+
+    public int getLocale() {
+        return locale;
+    }
+
+    public long getValueLength() {
+        return getSize() - dataOffset;
+    }
+
+    public byte[] readValue() throws IOException {
+        r.seek(getOffset() + dataOffset);
+        return r.readByteArray((int) getValueLength());
+    }
+
+    public String readString() throws IOException {
+        if (dataType != TYPE_UTF_8) {
+            return null;
+        }
+        return Encoding.UTF_8.decode(readValue());
+    }
+}
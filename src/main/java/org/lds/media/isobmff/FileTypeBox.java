@@ -5,6 +5,8 @@ import org.lds.io.AbstractSeekableBinaryReader;
 import java.io.IOException;
 
 public class FileTypeBox extends Box {
+    private static final int MAX_COMPATIBLE_BRANDS = 256;
+
     private final String majorBrand;
     private final int minorVersion;
     private final String[] compatibleBrands;
@@ -15,7 +17,10 @@ public class FileTypeBox extends Box {
         dataOffset += 4;
         minorVersion = r.readIntValue();
         dataOffset += 4;
-        compatibleBrands = new String[(int) (this.getSize() - dataOffset) / 4];
+        if (getSize() - dataOffset > MAX_COMPATIBLE_BRANDS * 4) {
+            throw new IOException("invalid box size");
+        }
+        compatibleBrands = new String[(int) (getSize() - dataOffset) / 4];
         for (int i = 0; i < compatibleBrands.length; i++) {
             compatibleBrands[i] = r.readString(4);
             dataOffset += 4;
@@ -0,0 +1,69 @@
+package org.lds.media.isobmff;
+
+import org.lds.io.AbstractSeekableBinaryReader;
+import org.lds.media.ParseBudget;
+
+import java.io.IOException;
+
+/**
+ * Finds metadata items in the top-level {@code meta} box of a HEIF file.
+ */
+public class HeifItems {
+
+    /**
+     * Returns the first extent of the first item of {@code itemType} (and, for "mime" items, of
+     * {@code contentType}), or null.
+     */
+    public static ItemLocationBox.Extent find(AbstractSeekableBinaryReader reader, ParseBudget.Tracker tracker,
+                                              String itemType, String contentType) throws IOException {
+        reader.seek(0);
+        Box box = readBox(reader, tracker);
+        if (!(box instanceof FileTypeBox)) {
+            return null;
+        }
+        box.skip();
+        box = readBox(reader, tracker);
+        if (!(box instanceof MetaBox)) {
+            return null;
+        }
+        MetaBox meta = (MetaBox) box;
+        long end = meta.getOffset() + meta.getSize();
+        int itemId = -1;
+        ItemLocationBox iloc = null;
+        for (long position = meta.getOffset() + meta.getDataOffset(); position + 8 <= end && (itemId < 0 || iloc == null); ) {
+            reader.seek(position);
+            box = readBox(reader, tracker);
+            if (box instanceof ItemInfoBox) {
+                ItemInfoBox iinf = (ItemInfoBox) box;
+                for (int i = 0; i < iinf.getEntryCount() && itemId < 0; i++) {
+                    Box entry = readBox(reader, tracker);
+                    if (!(entry instanceof ItemInfoEntry)) {
+                        return null;
+                    }
+                    ItemInfoEntry infe = (ItemInfoEntry) entry;
+                    if (itemType.equals(infe.getItemType())
+                            && (contentType == null || contentType.equals(infe.getContentType()))) {
+                        itemId = infe.getItemId();
+                    }
+                    infe.skip();
+                }
+            } else if (box instanceof ItemLocationBox) {
+                iloc = (ItemLocationBox) box;
+            }
+            position = box.getOffset() + box.getSize();
+        }
+        if (itemId < 0 || iloc == null) {
+            return null;
+        }
+        ItemLocationBox.Item item = iloc.getItemById(itemId);
+        return item == null || item.getExtentCount() == 0 ? null : item.getExtent(0);
+    }
+
+    private static Box readBox(AbstractSeekableBinaryReader reader, ParseBudget.Tracker tracker) throws IOException {
+        tracker.segment();
+        long position = reader.getPosition();
+        Box box = Box.read(reader);
+        tracker.read(reader.getPosition() - position);
+        return box;
+    }
+}
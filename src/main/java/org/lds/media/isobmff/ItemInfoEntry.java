@@ -9,6 +9,8 @@ public class ItemInfoEntry extends FullBox {
     private int itemId;
     private String itemType;
     private String itemName;
+    private String contentType;
+    private String contentEncoding;
 
     public ItemInfoEntry(AbstractSeekableBinaryReader r, long size, String type) throws IOException {
         super(r, size, type);
@@ -27,6 +29,16 @@ public class ItemInfoEntry extends FullBox {
             byte[] data = r.readByteArrayUntil((byte) 0);
             dataOffset += data.length + 1;
             itemName = Encoding.UTF_8.decode(data);
+            if ("mime".equals(itemType) && dataOffset < getSize()) {
+                data = r.readByteArrayUntil((byte) 0);
+                dataOffset += data.length + 1;
+                contentType = Encoding.UTF_8.decode(data);
+                if (dataOffset < getSize()) {
+                    data = r.readByteArrayUntil((byte) 0);
+                    dataOffset += data.length + 1;
+                    contentEncoding = Encoding.UTF_8.decode(data);
+                }
+            }
         }
     }
 
@@ -41,4 +53,15 @@ public class ItemInfoEntry extends FullBox {
     public String getItemName() {
         return itemName;
     }
+
+    /**
+     * Returns the MIME type of a "mime" item, such as "application/rdf+xml" for XMP.
+     */
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getContentEncoding() {
+        return contentEncoding;
+    }
 }
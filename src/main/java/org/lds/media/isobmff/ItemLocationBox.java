@@ -26,8 +26,11 @@ public class ItemLocationBox extends FullBox {
             box.dataOffset += 2;
             r.skip(box.baseOffsetSize);
             box.dataOffset += box.baseOffsetSize;
-            extentCount = r.readShortValue();
+            extentCount = r.readUnsignedShortValue();
             box.dataOffset += 2;
+            if (extentCount > (box.getSize() - box.dataOffset) / Math.max(1, box.offsetSize + box.lengthSize)) {
+                throw new IOException("invalid extent count");
+            }
             extents = new Extent[extentCount];
             for (int i = 0; i < extentCount; i++) {
                 extents[i] = new Extent(box, r);
@@ -114,12 +117,15 @@ public class ItemLocationBox extends FullBox {
             indexSize = sizes & 0xf;
         }
         if (getVersion() < 2) {
-            itemCount = r.readShortValue();
+            itemCount = r.readUnsignedShortValue();
             dataOffset += 2;
         } else if (getVersion() == 2) {
             itemCount = r.readIntValue();
             dataOffset += 4;
         }
+        if (itemCount < 0 || itemCount > (getSize() - dataOffset) / 4) {
+            throw new IOException("invalid item count");
+        }
         items = new Item[itemCount];
         for (int i = 0; i < itemCount; i++) {
             items[i] = new Item(this, r);
@@ -0,0 +1,38 @@
+package org.lds.media.isobmff;
+
+import org.lds.Encoding;
+import org.lds.io.AbstractSeekableBinaryReader;
+
+import java.io.IOException;
+
+public class KeysBox extends FullBox {
+    private int entryCount;
+    private String[] keys;
+
+    public KeysBox(AbstractSeekableBinaryReader r, long size, String type) throws IOException {
+        super(r, size, type);
+        entryCount = r.readIntValue();
+        dataOffset += 4;
+        if (entryCount < 0 || entryCount > (getSize() - dataOffset) / 8) {
+            throw new IOException("invalid entry count");
+        }
+        keys = new String[entryCount];
+        for (int i = 0; i < entryCount; i++) {
+            long keySize = r.readUnsignedIntValue();
+            if (keySize < 8 || keySize > getSize() - dataOffset) {
+                throw new IOException("invalid key size");
+            }
+            r.skip(4);
+            keys[i] = Encoding.UTF_8.decode(r.readByteArray((int) keySize - 8));
+            dataOffset += keySize;
+        }
+    }
+
+    public int getEntryCount() {
+        return entryCount;
+    }
+
+    public String getKey(int index) {
+        return keys[index];
+    }
+}
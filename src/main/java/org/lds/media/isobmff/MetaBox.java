@@ -5,8 +5,20 @@ import org.lds.io.AbstractSeekableBinaryReader;
 import java.io.IOException;
 
 public class MetaBox extends FullBox {
+    private boolean fullBox = true;
+
     public MetaBox(AbstractSeekableBinaryReader r, long size, String type) throws IOException {
         super(r, size, type);
+        // QuickTime writes meta as a plain box, so the version and flags are really the size of the first child.
+        if (getVersion() != 0 || getFlags() != 0) {
+            r.seek(r.getPosition() - 4);
+            dataOffset -= 4;
+            fullBox = false;
+        }
+    }
+
+    public boolean isFullBox() {
+        return fullBox;
     }
 
 }
@@ -0,0 +1,45 @@
+package org.lds.media.isobmff;
+
+import org.lds.io.AbstractSeekableBinaryReader;
+
+import java.io.IOException;
+
+public class MovieHeaderBox extends FullBox {
+    private long creationTime;
+    private long modificationTime;
+    private long timescale;
+    private long duration;
+
+    public MovieHeaderBox(AbstractSeekableBinaryReader r, long size, String type) throws IOException {
+        super(r, size, type);
+        if (getVersion() == 1) {
+            creationTime = r.readLongValue();
+            modificationTime = r.readLongValue();
+            timescale = r.readUnsignedIntValue();
+            duration = r.readLongValue();
+            dataOffset += 28;
+        } else {
+            creationTime = r.readUnsignedIntValue();
+            modificationTime = r.readUnsignedIntValue();
+            timescale = r.readUnsignedIntValue();
+            duration = r.readUnsignedIntValue();
+            dataOffset += 16;
+        }
+    }
+
+    public long getCreationTime() {
+        return creationTime;
+    }
+
+    public long getModificationTime() {
+        return modificationTime;
+    }
+
+    public long getTimescale() {
+        return timescale;
+    }
+
+    public long getDuration() {
+        return duration;
+    }
+}
@@ -0,0 +1,65 @@
+package org.lds.media.tiff;
+
+import java.nio.ByteOrder;
+
+/**
+ * Decodes primitives from a byte array in a fixed byte order. A TIFF picks its decoder once, so per-tag
+ * decoding never tests the order again. The Java 9+ build replaces this class with a VarHandle version.
+ */
+abstract class ByteOrderDecoder {
+
+    static final ByteOrderDecoder BIG_ENDIAN = new BigEndian();
+    static final ByteOrderDecoder LITTLE_ENDIAN = new LittleEndian();
+
+    static ByteOrderDecoder of(ByteOrder order) {
+        return order == ByteOrder.LITTLE_ENDIAN ? LITTLE_ENDIAN : BIG_ENDIAN;
+    }
+
+    abstract short getShort(byte[] b, int off);
+
+    abstract int getInt(byte[] b, int off);
+
+    abstract long getLong(byte[] b, int off);
+
+    final int getUnsignedShort(byte[] b, int off) {
+        return getShort(b, off) & 0xffff;
+    }
+
+    final long getUnsignedInt(byte[] b, int off) {
+        return getInt(b, off) & 0xffffffffL;
+    }
+
+    private static final class BigEndian extends ByteOrderDecoder {
+        @Override
+        short getShort(byte[] b, int off) {
+            return (short) (b[off] << 8 | b[off + 1] & 0xff);
+        }
+
+        @Override
+        int getInt(byte[] b, int off) {
+            return b[off] << 24 | (b[off + 1] & 0xff) << 16 | (b[off + 2] & 0xff) << 8 | b[off + 3] & 0xff;
+        }
+
+        @Override
+        long getLong(byte[] b, int off) {
+            return (long) getInt(b, off) << 32 | getInt(b, off + 4) & 0xffffffffL;
+        }
+    }
+
+    private static final class LittleEndian extends ByteOrderDecoder {
+        @Override
+        short getShort(byte[] b, int off) {
+            return (short) (b[off] & 0xff | b[off + 1] << 8);
+        }
+
+        @Override
+        int getInt(byte[] b, int off) {
+            return b[off] & 0xff | (b[off + 1] & 0xff) << 8 | (b[off + 2] & 0xff) << 16 | b[off + 3] << 24;
+        }
+
+        @Override
+        long getLong(byte[] b, int off) {
+            return getInt(b, off) & 0xffffffffL | (long) getInt(b, off + 4) << 32;
+        }
+    }
+}
@@ -1,6 +1,12 @@
 package org.lds.media.tiff;
 
+import org.lds.math.Fraction;
+
 import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 public class DE {
 
@@ -42,6 +48,10 @@ public class DE {
     }
 
     public int getTypeLength() throws IOException {
+        return getTypeLength(type);
+    }
+
+    static int getTypeLength(int type) {
         switch (type) {
             case TYPE_BYTE:
             case TYPE_ASCII:
@@ -68,4 +78,85 @@ public class DE {
         return valueOffset;
     }
 
+    /**
+     * Decodes {@code count} values of {@code type} from a value block that has already been read in full.
+     */
+    static Object decode(int type, int count, byte[] b, ByteOrderDecoder decoder, Charset charset) {
+        switch (type) {
+            case TYPE_BYTE:
+            case TYPE_SBYTE:
+            case TYPE_UNDEFINED:
+                return b.length == count ? b : Arrays.copyOf(b, count);
+            case TYPE_ASCII: {
+                List<String> list = new ArrayList<String>();
+                int start = 0;
+                for (int i = 0; i < count; i++) {
+                    if (b[i] == 0) {
+                        list.add(new String(b, start, i - start, charset));
+                        start = i + 1;
+                    }
+                }
+                return list.toArray(new String[list.size()]);
+            }
+            case TYPE_SHORT: {
+                int[] array = new int[count];
+                for (int i = 0; i < count; i++) {
+                    array[i] = decoder.getUnsignedShort(b, i * 2);
+                }
+                return array;
+            }
+            case TYPE_LONG: {
+                long[] array = new long[count];
+                for (int i = 0; i < count; i++) {
+                    array[i] = decoder.getUnsignedInt(b, i * 4);
+                }
+                return array;
+            }
+            case TYPE_RATIONAL: {
+                Fraction[] array = new Fraction[count];
+                for (int i = 0; i < count; i++) {
+                    array[i] = new Fraction(decoder.getUnsignedInt(b, i * 8), decoder.getUnsignedInt(b, i * 8 + 4));
+                }
+                return array;
+            }
+            case TYPE_SSHORT: {
+                short[] array = new short[count];
+                for (int i = 0; i < count; i++) {
+                    array[i] = decoder.getShort(b, i * 2);
+                }
+                return array;
+            }
+            case TYPE_SLONG: {
+                int[] array = new int[count];
+                for (int i = 0; i < count; i++) {
+                    array[i] = decoder.getInt(b, i * 4);
+                }
+                return array;
+            }
+            case TYPE_SRATIONAL: {
+                Fraction[] array = new Fraction[count];
+                for (int i = 0; i < count; i++) {
+                    array[i] = new Fraction(decoder.getInt(b, i * 8), decoder.getInt(b, i * 8 + 4));
+                }
+                return array;
+            }
+            case TYPE_FLOAT: {
+                float[] array = new float[count];
+                for (int i = 0; i < count; i++) {
+                    array[i] = Float.intBitsToFloat(decoder.getInt(b, i * 4));
+                }
+                return array;
+            }
+            case TYPE_DOUBLE: {
+                double[] array = new double[count];
+                for (int i = 0; i < count; i++) {
+                    array[i] = Double.longBitsToDouble(decoder.getLong(b, i * 8));
+                }
+                return array;
+            }
+            default:
+                return null;
+        }
+    }
+
 }
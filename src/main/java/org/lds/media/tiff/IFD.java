@@ -1,26 +1,32 @@
 package org.lds.media.tiff;
 
-import org.lds.ByteArrayUtil;
 import org.lds.Util;
 import org.lds.io.AbstractSeekableBinaryReader;
 import org.lds.math.Fraction;
 
+import java.io.EOFException;
 import java.io.IOException;
 import java.lang.reflect.Array;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Map;
 
 public class IFD {
     private final TIFF tiff;
     private final int entryCount;
-    private final Map<Integer, DE> entries;
+    // sorted by tag so lookups binary search a primitive array instead of boxing the tag
+    private final int[] tags;
+    private final DE[] values;
+    private final int size;
     private final long offsetOfNextIFD;
+    private Map<Integer, DE> entries;
 
-    IFD(TIFF tiff, int entryCount, Map<Integer, DE> entries, long offsetOfNextIFD) {
+    IFD(TIFF tiff, int entryCount, int[] tags, DE[] values, int size, long offsetOfNextIFD) {
         this.tiff = tiff;
         this.entryCount = entryCount;
-        this.entries = entries;
+        this.tags = tags;
+        this.values = values;
+        this.size = size;
         this.offsetOfNextIFD = offsetOfNextIFD;
     }
 
@@ -29,6 +35,13 @@ public class IFD {
     }
 
     public Map<Integer, DE> getEntries() {
+        if (entries == null) {
+            Map<Integer, DE> map = new HashMap<Integer, DE>(size);
+            for (int i = 0; i < size; i++) {
+                map.put(tags[i], values[i]);
+            }
+            entries = map;
+        }
         return entries;
     }
 
@@ -36,115 +49,58 @@ public class IFD {
         return offsetOfNextIFD;
     }
 
+    private DE get(int tag) {
+        int i = Arrays.binarySearch(tags, 0, size, tag);
+        return i < 0 ? null : values[i];
+    }
+
     public Long getValueOffset(int tag) {
-        DE entry = entries.get(tag);
+        DE entry = get(tag);
         if (entry != null) {
-            return ByteArrayUtil.toUnsignedIntValue(entry.getValueOffset(), tiff.getOrder());
+            return tiff.getDecoder().getUnsignedInt(entry.getValueOffset(), 0);
         }
         return null;
     }
 
+    public int read(int tag, byte[] buf) throws IOException {
+        DE entry = get(tag);
+        if (entry == null) {
+            return -1;
+        }
+        long length = (long) entry.getTypeLength() * entry.getCount();
+        if (length <= 0) {
+            return -1;
+        }
+        int n = (int) Math.min(length, buf.length);
+        if (length <= 4) {
+            System.arraycopy(entry.getValueOffset(), 0, buf, 0, n);
+            return n;
+        }
+        readFully(seekValue(entry, n), buf, n);
+        return n;
+    }
+
     public Object getValue(int tag) throws IOException {
-        DE entry = entries.get(tag);
+        DE entry = get(tag);
         if (entry == null) {
             return null;
         }
-        int length = entry.getTypeLength() * entry.getCount();
-        if (length <= 0) {
+        long size = (long) entry.getTypeLength() * entry.getCount();
+        if (size <= 0) {
             return null;
         }
+        tiff.getTracker().checkValueSize(size);
+        int length = (int) size;
+        byte[] block;
         if (length <= 4) {
-            byte[] value = new byte[length];
-            System.arraycopy(entry.getValueOffset(), 0, value, 0, length);
-            return value;
-        }
-        long offset = ByteArrayUtil.toUnsignedIntValue(entry.getValueOffset(), tiff.getOrder());
-        AbstractSeekableBinaryReader reader = tiff.getReader();
-        reader.seek(tiff.getOffset() + offset);
-        switch (entry.getType()) {
-            case DE.TYPE_BYTE:
-            case DE.TYPE_SBYTE:
-            case DE.TYPE_UNDEFINED: {
-                byte[] value = new byte[length];
-                reader.read(value);
-                return value;
-            }
-            case DE.TYPE_ASCII: {
-                List<String> list = new ArrayList<String>();
-                byte[] buf = new byte[entry.getCount()];
-                int off = -1;
-                for (int i = 0; i < entry.getCount(); i++) {
-                    buf[++off] = reader.read();
-                    if (buf[off] == 0) {
-                        list.add(new String(buf, 0, off, reader.getEncoding().getCharset()));
-                        off = -1;
-                    }
-                }
-                return list.toArray(new String[0]);
-            }
-            case DE.TYPE_SHORT: {
-                int[] array = new int[entry.getCount()];
-                for (int i = 0; i < array.length; i++) {
-                    array[i] = reader.readUnsignedShortValue();
-                }
-                return array;
-            }
-            case DE.TYPE_LONG: {
-                long[] array = new long[entry.getCount()];
-                for (int i = 0; i < array.length; i++) {
-                    array[i] = reader.readUnsignedIntValue();
-                }
-                return array;
-            }
-            case DE.TYPE_RATIONAL: {
-                Fraction[] array = new Fraction[entry.getCount()];
-                for (int i = 0; i < array.length; i++) {
-                    long numerator = reader.readUnsignedIntValue();
-                    long denominator = reader.readUnsignedIntValue();
-                    array[i] = new Fraction(numerator, denominator);
-                }
-                return array;
-            }
-            case DE.TYPE_SSHORT: {
-                short[] array = new short[entry.getCount()];
-                for (int i = 0; i < array.length; i++) {
-                    array[i] = reader.readShortValue();
-                }
-                return array;
-            }
-            case DE.TYPE_SLONG: {
-                int[] array = new int[entry.getCount()];
-                for (int i = 0; i < array.length; i++) {
-                    array[i] = reader.readIntValue();
-                }
-                return array;
-            }
-            case DE.TYPE_SRATIONAL: {
-                Fraction[] array = new Fraction[entry.getCount()];
-                for (int i = 0; i < array.length; i++) {
-                    int numerator = reader.readIntValue();
-                    int denominator = reader.readIntValue();
-                    array[i] = new Fraction(numerator, denominator);
-                }
-                return array;
-            }
-            case DE.TYPE_FLOAT: {
-                float[] array = new float[entry.getCount()];
-                for (int i = 0; i < array.length; i++) {
-                    array[i] = Float.intBitsToFloat(reader.readIntValue());
-                }
-                return array;
-            }
-            case DE.TYPE_DOUBLE: {
-                double[] array = new double[entry.getCount()];
-                for (int i = 0; i < array.length; i++) {
-                    array[i] = Double.longBitsToDouble(reader.readLongValue());
-                }
-                return array;
-            }
-            default:
-                return null;
+            // BYTE and UNDEFINED values are returned as the block itself, so never hand out the entry's bytes
+            block = Arrays.copyOf(entry.getValueOffset(), length);
+        } else {
+            block = new byte[length];
+            readFully(seekValue(entry, length), block, length);
         }
+        return DE.decode(entry.getType(), entry.getCount(), block, tiff.getDecoder(),
+                tiff.getReader().getEncoding().getCharset());
     }
 
     public String getString(int tag) throws IOException {
@@ -177,4 +133,24 @@ public class IFD {
         return null;
     }
 
+    private AbstractSeekableBinaryReader seekValue(DE entry, int length) throws IOException {
+        long offset = tiff.getOffset() + tiff.getDecoder().getUnsignedInt(entry.getValueOffset(), 0);
+        AbstractSeekableBinaryReader reader = tiff.getReader();
+        tiff.getTracker().checkRange(offset, length, reader.getLength());
+        tiff.getTracker().read(length);
+        reader.seek(offset);
+        reader.setOrder(tiff.getOrder());
+        return reader;
+    }
+
+    static void readFully(AbstractSeekableBinaryReader reader, byte[] b, int length) throws IOException {
+        for (int off = 0; off < length; ) {
+            int n = reader.read(b, off, length - off);
+            if (n <= 0) {
+                throw new EOFException();
+            }
+            off += n;
+        }
+    }
+
 }
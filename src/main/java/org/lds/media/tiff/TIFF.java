@@ -1,11 +1,11 @@
 package org.lds.media.tiff;
 
 import org.lds.io.AbstractSeekableBinaryReader;
+import org.lds.media.ParseBudget;
 
 import java.io.IOException;
 import java.nio.ByteOrder;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
 
 public class TIFF {
 
@@ -14,6 +14,12 @@ public class TIFF {
     private static final int NUMBER_42 = 0x2a;
 
     public static TIFF parse(AbstractSeekableBinaryReader reader, long offset) throws IOException {
+        return parse(reader, offset, ParseBudget.DEFAULT.start());
+    }
+
+    public static TIFF parse(AbstractSeekableBinaryReader reader, long offset, ParseBudget.Tracker tracker) throws IOException {
+        tracker.checkRange(offset, 8, reader.getLength());
+        tracker.read(8);
         reader.seek(offset);
         ByteOrder order;
         switch (reader.readUnsignedShortValue()) {
@@ -31,19 +37,24 @@ public class TIFF {
             return null;
         }
         long offsetOfIFD = reader.readUnsignedIntValue();
-        return new TIFF(reader, offset, order, offsetOfIFD);
+        return new TIFF(reader, offset, order, offsetOfIFD, tracker);
     }
 
     private final AbstractSeekableBinaryReader reader;
     private final long offset;
     private final ByteOrder order;
     private final long offsetOfIFD;
+    private final ParseBudget.Tracker tracker;
+    private final ByteOrderDecoder decoder;
 
-    private TIFF(AbstractSeekableBinaryReader reader, long offset, ByteOrder order, long offsetOfIFD) {
+    private TIFF(AbstractSeekableBinaryReader reader, long offset, ByteOrder order, long offsetOfIFD,
+                 ParseBudget.Tracker tracker) {
         this.reader = reader;
         this.offset = offset;
         this.order = order;
         this.offsetOfIFD = offsetOfIFD;
+        this.tracker = tracker;
+        this.decoder = ByteOrderDecoder.of(order);
     }
 
     public AbstractSeekableBinaryReader getReader() {
@@ -62,22 +73,90 @@ public class TIFF {
         return offsetOfIFD;
     }
 
+    public ParseBudget.Tracker getTracker() {
+        return tracker;
+    }
+
+    ByteOrderDecoder getDecoder() {
+        return decoder;
+    }
+
     public IFD readIFD(long offset) throws IOException {
-        reader.seek(this.offset + offset);
-        int entryCount = reader.readUnsignedShortValue();
-        Map<Integer, DE> entries = new HashMap<Integer, DE>(entryCount);
+        int entryCount = enterIFD(offset);
+        byte[] table = new byte[12 * entryCount + 4];
+        IFD.readFully(reader, table, table.length);
+        int[] tags = new int[entryCount];
+        DE[] entries = new DE[entryCount];
+        int size = 0;
         for (int i = 0; i < entryCount; i++) {
-            int tag = reader.readUnsignedShortValue();
-            int type = reader.readUnsignedShortValue();
-            int count = reader.readIntValue();
+            int position = 12 * i;
+            int tag = decoder.getUnsignedShort(table, position);
+            int type = decoder.getUnsignedShort(table, position + 2);
+            int count = decoder.getInt(table, position + 4);
             if (count < 0) {
                 continue;
             }
-            byte[] valueOffset = reader.readByteArray(4);
-            entries.put(tag, new DE(tag, type, count, valueOffset));
+            byte[] valueOffset = Arrays.copyOfRange(table, position + 8, position + 12);
+            DE entry = new DE(tag, type, count, valueOffset);
+            // tags are normally ascending, so this appends; a repeated tag replaces the earlier entry
+            int index = size == 0 || tags[size - 1] < tag ? -size - 1 : Arrays.binarySearch(tags, 0, size, tag);
+            if (index >= 0) {
+                entries[index] = entry;
+            } else {
+                index = -index - 1;
+                System.arraycopy(tags, index, tags, index + 1, size - index);
+                System.arraycopy(entries, index, entries, index + 1, size - index);
+                tags[index] = tag;
+                entries[index] = entry;
+                size++;
+            }
         }
-        long offsetOfNextIFD = reader.readUnsignedIntValue();
-        return new IFD(this, entryCount, entries, offsetOfNextIFD);
+        long offsetOfNextIFD = decoder.getUnsignedInt(table, 12 * entryCount);
+        return new IFD(this, entryCount, tags, entries, size, offsetOfNextIFD);
+    }
+
+    public long walkIFD(long offset, int directory, TagVisitor visitor, TagValue value) throws IOException {
+        int entryCount = enterIFD(offset);
+        if (visitor.visitIFD(directory, offset, entryCount)) {
+            long position = this.offset + offset + 2;
+            byte[] valueOffset = value.getValueOffsetBuffer();
+            value.moved = false;
+            for (int i = 0; i < entryCount; i++) {
+                if (value.moved) {
+                    reader.seek(position);
+                    reader.setOrder(order);
+                    value.moved = false;
+                }
+                int tag = reader.readUnsignedShortValue();
+                int type = reader.readUnsignedShortValue();
+                int count = reader.readIntValue();
+                reader.read(valueOffset);
+                position += 12;
+                if (count < 0) {
+                    continue;
+                }
+                value.reset(this, tag, type, count);
+                visitor.visitTag(directory, tag, type, count, value);
+            }
+            visitor.endIFD(directory);
+        }
+        reader.seek(this.offset + offset + 2 + 12L * entryCount);
+        reader.setOrder(order);
+        return reader.readUnsignedIntValue();
+    }
+
+    private int enterIFD(long offset) throws IOException {
+        long position = this.offset + offset;
+        tracker.visitIFD(position);
+        tracker.checkRange(position, 2, reader.getLength());
+        reader.seek(position);
+        reader.setOrder(order);
+        int entryCount = reader.readUnsignedShortValue();
+        long length = 2 + 12L * entryCount + 4;
+        tracker.checkRange(position, length, reader.getLength());
+        tracker.read(length);
+        reader.seek(position + 2);
+        return entryCount;
     }
 
 }
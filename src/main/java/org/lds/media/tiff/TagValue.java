@@ -0,0 +1,199 @@
+package org.lds.media.tiff;
+
+import org.lds.io.AbstractSeekableBinaryReader;
+
+import java.io.EOFException;
+import java.io.IOException;
+
+public class TagValue {
+    private final byte[] valueOffset = new byte[4];
+    private final byte[] scratch = new byte[8];
+    private TIFF tiff;
+    private int tag;
+    private int type;
+    private int count;
+    private int typeLength;
+    boolean moved;
+
+    void reset(TIFF tiff, int tag, int type, int count) {
+        this.tiff = tiff;
+        this.tag = tag;
+        this.type = type;
+        this.count = count;
+        this.typeLength = DE.getTypeLength(type);
+    }
+
+    byte[] getValueOffsetBuffer() {
+        return valueOffset;
+    }
+
+    public int getTag() {
+        return tag;
+    }
+
+    public int getType() {
+        return type;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public int getTypeLength() {
+        return typeLength;
+    }
+
+    public long getLength() {
+        return typeLength <= 0 ? 0 : (long) typeLength * count;
+    }
+
+    public boolean isInline() {
+        return getLength() <= 4;
+    }
+
+    public long getValueOffset() {
+        return tiff.getDecoder().getUnsignedInt(valueOffset, 0);
+    }
+
+    public int read(byte[] buf, int off, int len) throws IOException {
+        int n = (int) Math.min(len, getLength());
+        if (n <= 0) {
+            return 0;
+        }
+        if (isInline()) {
+            System.arraycopy(valueOffset, 0, buf, off, n);
+            return n;
+        }
+        AbstractSeekableBinaryReader reader = seek(0, n);
+        for (int done = 0; done < n; ) {
+            int count = reader.read(buf, off + done, n - done);
+            if (count <= 0) {
+                throw new EOFException();
+            }
+            done += count;
+        }
+        return n;
+    }
+
+    public String getString() throws IOException {
+        if (type != DE.TYPE_ASCII || count <= 0) {
+            return null;
+        }
+        tiff.getTracker().checkValueSize(count);
+        byte[] buf = new byte[count];
+        read(buf, 0, count);
+        int length = 0;
+        while (length < count && buf[length] != 0) {
+            length++;
+        }
+        return new String(buf, 0, length, tiff.getReader().getEncoding().getCharset());
+    }
+
+    public long getLong(int index) throws IOException {
+        checkIndex(index);
+        switch (type) {
+            case DE.TYPE_BYTE:
+            case DE.TYPE_ASCII:
+            case DE.TYPE_UNDEFINED:
+                return readByte(index) & 0xff;
+            case DE.TYPE_SBYTE:
+                return readByte(index);
+            case DE.TYPE_SHORT:
+                return readShort(index) & 0xffff;
+            case DE.TYPE_SSHORT:
+                return readShort(index);
+            case DE.TYPE_LONG:
+                return readInt(index) & 0xffffffffL;
+            case DE.TYPE_SLONG:
+                return readInt(index);
+            default:
+                return (long) getDouble(index);
+        }
+    }
+
+    public long getNumerator(int index) throws IOException {
+        checkIndex(index);
+        if (type == DE.TYPE_RATIONAL) {
+            return load(index * 8L, 8).getUnsignedInt(scratch, 0);
+        } else if (type == DE.TYPE_SRATIONAL) {
+            return load(index * 8L, 8).getInt(scratch, 0);
+        }
+        return getLong(index);
+    }
+
+    public long getDenominator(int index) throws IOException {
+        checkIndex(index);
+        if (type == DE.TYPE_RATIONAL) {
+            return load(index * 8L, 8).getUnsignedInt(scratch, 4);
+        } else if (type == DE.TYPE_SRATIONAL) {
+            return load(index * 8L, 8).getInt(scratch, 4);
+        }
+        return 1;
+    }
+
+    public double getDouble(int index) throws IOException {
+        checkIndex(index);
+        switch (type) {
+            case DE.TYPE_RATIONAL:
+                load(index * 8L, 8);
+                return (double) tiff.getDecoder().getUnsignedInt(scratch, 0) / tiff.getDecoder().getUnsignedInt(scratch, 4);
+            case DE.TYPE_SRATIONAL:
+                load(index * 8L, 8);
+                return (double) tiff.getDecoder().getInt(scratch, 0) / tiff.getDecoder().getInt(scratch, 4);
+            case DE.TYPE_FLOAT:
+                return Float.intBitsToFloat(readInt(index));
+            case DE.TYPE_DOUBLE:
+                return Double.longBitsToDouble(load(index * 8L, 8).getLong(scratch, 0));
+            default:
+                return getLong(index);
+        }
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException(Integer.toString(index));
+        }
+    }
+
+    private byte readByte(int index) throws IOException {
+        if (isInline()) {
+            return valueOffset[index];
+        }
+        load(index, 1);
+        return scratch[0];
+    }
+
+    private short readShort(int index) throws IOException {
+        if (isInline()) {
+            return tiff.getDecoder().getShort(valueOffset, index * 2);
+        }
+        return load(index * 2L, 2).getShort(scratch, 0);
+    }
+
+    private int readInt(int index) throws IOException {
+        if (isInline()) {
+            return tiff.getDecoder().getInt(valueOffset, 0);
+        }
+        return load(index * 4L, 4).getInt(scratch, 0);
+    }
+
+    /**
+     * Reads {@code length} bytes of the value block into the scratch buffer and returns the decoder for them.
+     */
+    private ByteOrderDecoder load(long position, int length) throws IOException {
+        IFD.readFully(seek(position, length), scratch, length);
+        return tiff.getDecoder();
+    }
+
+    private AbstractSeekableBinaryReader seek(long position, int length) throws IOException {
+        AbstractSeekableBinaryReader reader = tiff.getReader();
+        long offset = tiff.getOffset() + getValueOffset() + position;
+        tiff.getTracker().checkRange(offset, length, reader.getLength());
+        tiff.getTracker().read(length);
+        reader.seek(offset);
+        reader.setOrder(tiff.getOrder());
+        moved = true;
+        return reader;
+    }
+
+}
@@ -0,0 +1,26 @@
+package org.lds.media.tiff;
+
+import java.io.IOException;
+
+public interface TagVisitor {
+
+    int IFD0 = 0;
+    int IFD1 = 1;
+    int EXIF = 2;
+    int GPS_INFO = 3;
+    int INTEROPERABILITY = 4;
+    int MAKER_NOTE = 5;
+
+    /**
+     * Returns false to skip every entry of the directory.
+     */
+    boolean visitIFD(int directory, long offset, int entryCount) throws IOException;
+
+    /**
+     * The value view is reused for every entry and is only valid until this method returns.
+     */
+    void visitTag(int directory, int tag, int type, int count, TagValue value) throws IOException;
+
+    void endIFD(int directory) throws IOException;
+
+}
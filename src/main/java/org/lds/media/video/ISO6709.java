@@ -0,0 +1,33 @@
+package org.lds.media.video;
+
+class ISO6709 {
+
+    static Double parse(String value, int component) {
+        if (value == null) {
+            return null;
+        }
+        int start = 0;
+        for (int i = 0; i <= component; i++) {
+            if (start >= value.length()) {
+                return null;
+            }
+            char c = value.charAt(start);
+            if (c != '+' && c != '-') {
+                return null;
+            }
+            int end = start + 1;
+            while (end < value.length() && (Character.isDigit(value.charAt(end)) || value.charAt(end) == '.')) {
+                end++;
+            }
+            if (i == component) {
+                try {
+                    return Double.parseDouble(value.substring(start, end));
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+            }
+            start = end;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,243 @@
+package org.lds.media.video;
+
+import org.lds.io.AbstractSeekableBinaryReader;
+import org.lds.io.FileBinaryReader;
+import org.lds.media.FileFormat;
+import org.lds.media.ParseBudget;
+import org.lds.media.isobmff.Box;
+import org.lds.media.isobmff.DataBox;
+import org.lds.media.isobmff.KeysBox;
+import org.lds.media.isobmff.MetaBox;
+import org.lds.media.isobmff.MovieHeaderBox;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+
+public class VideoMetadata {
+    private static final long SECONDS_FROM_1904_TO_1970 = 2082844800L;
+    private static final String KEY_MAKE = "com.apple.quicktime.make";
+    private static final String KEY_MODEL = "com.apple.quicktime.model";
+    private static final String KEY_LOCATION = "com.apple.quicktime.location.ISO6709";
+    private static final String KEY_CREATION_DATE = "com.apple.quicktime.creationdate";
+    private static final String ATOM_MAKE = "\u00a9mak";
+    private static final String ATOM_MODEL = "\u00a9mod";
+    private static final String ATOM_LOCATION = "\u00a9xyz";
+    private static final String ATOM_CREATION_DATE = "\u00a9day";
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    public static VideoMetadata parse(File file) throws IOException {
+        return parse(file, ParseBudget.DEFAULT);
+    }
+
+    public static VideoMetadata parse(File file, ParseBudget budget) throws IOException {
+        FileBinaryReader reader = new FileBinaryReader(file);
+        try {
+            return parse(reader, budget);
+        } finally {
+            reader.close();
+        }
+    }
+
+    public static VideoMetadata parse(AbstractSeekableBinaryReader reader) throws IOException {
+        return parse(reader, ParseBudget.DEFAULT);
+    }
+
+    public static VideoMetadata parse(AbstractSeekableBinaryReader reader, ParseBudget budget) throws IOException {
+        return parse(reader, budget.start());
+    }
+
+    public static VideoMetadata parse(AbstractSeekableBinaryReader reader, ParseBudget.Tracker tracker) throws IOException {
+        reader.setOrder(ByteOrder.BIG_ENDIAN);
+        int format = FileFormat.detect(reader);
+        if (format != FileFormat.MP4 && format != FileFormat.QUICKTIME) {
+            return null;
+        }
+        VideoMetadata metadata = new VideoMetadata(reader, tracker);
+        long length = reader.getLength();
+        for (long position = 0; position + 8 <= length; ) {
+            Box box = metadata.readBox(position);
+            if (box.getSize() < 8) {
+                break;
+            }
+            if ("moov".equals(box.getType())) {
+                metadata.readMovie(box);
+                return metadata;
+            }
+            position = box.getOffset() + box.getSize();
+        }
+        return null;
+    }
+
+    private final AbstractSeekableBinaryReader reader;
+    private final ParseBudget.Tracker tracker;
+    private Long creationTime;
+    private Long duration;
+    private String make;
+    private String model;
+    private String location;
+    private String creationDate;
+
+    private VideoMetadata(AbstractSeekableBinaryReader reader, ParseBudget.Tracker tracker) {
+        this.reader = reader;
+        this.tracker = tracker;
+    }
+
+    public Long getCreationTime() {
+        return creationTime;
+    }
+
+    public Long getDuration() {
+        return duration;
+    }
+
+    public String getMake() {
+        return make;
+    }
+
+    public String getModel() {
+        return model;
+    }
+
+    public String getLocation() {
+        return location;
+    }
+
+    public String getCreationDate() {
+        return creationDate;
+    }
+
+    public Double getGPSLatitude() {
+        return ISO6709.parse(location, 0);
+    }
+
+    public Double getGPSLongitude() {
+        return ISO6709.parse(location, 1);
+    }
+
+    public Double getGPSAltitude() {
+        return ISO6709.parse(location, 2);
+    }
+
+    private void readMovie(Box moov) throws IOException {
+        long end = moov.getOffset() + moov.getSize();
+        for (long position = moov.getOffset() + moov.getDataOffset(); position + 8 <= end; ) {
+            Box box = readBox(position);
+            if (box.getSize() < 8) {
+                break;
+            }
+            if (box instanceof MovieHeaderBox) {
+                MovieHeaderBox mvhd = (MovieHeaderBox) box;
+                if (mvhd.getCreationTime() > 0) {
+                    creationTime = (mvhd.getCreationTime() - SECONDS_FROM_1904_TO_1970) * 1000;
+                }
+                if (mvhd.getTimescale() > 0) {
+                    duration = mvhd.getDuration() * 1000 / mvhd.getTimescale();
+                }
+            } else if ("udta".equals(box.getType())) {
+                readUserData(box);
+            } else if (box instanceof MetaBox) {
+                readMeta(box);
+            }
+            position = box.getOffset() + box.getSize();
+        }
+    }
+
+    private void readUserData(Box udta) throws IOException {
+        long end = udta.getOffset() + udta.getSize();
+        for (long position = udta.getOffset() + udta.getDataOffset(); position + 8 <= end; ) {
+            Box box = readBox(position);
+            if (box.getSize() < 8) {
+                break;
+            }
+            if (box instanceof MetaBox) {
+                readMeta(box);
+            } else if (box.getType().charAt(0) == '\u00a9') {
+                String value = readUserDataText(box);
+                if (value != null) {
+                    put(box.getType(), value);
+                }
+            }
+            position = box.getOffset() + box.getSize();
+        }
+    }
+
+    private void readMeta(Box meta) throws IOException {
+        KeysBox keys = null;
+        long end = meta.getOffset() + meta.getSize();
+        for (long position = meta.getOffset() + meta.getDataOffset(); position + 8 <= end; ) {
+            Box box = readBox(position);
+            if (box.getSize() < 8) {
+                break;
+            }
+            if (box instanceof KeysBox) {
+                keys = (KeysBox) box;
+            } else if ("ilst".equals(box.getType())) {
+                readItemList(box, keys);
+            }
+            position = box.getOffset() + box.getSize();
+        }
+    }
+
+    private void readItemList(Box ilst, KeysBox keys) throws IOException {
+        long end = ilst.getOffset() + ilst.getSize();
+        for (long position = ilst.getOffset() + ilst.getDataOffset(); position + 8 <= end; ) {
+            Box item = readBox(position);
+            if (item.getSize() < 8) {
+                break;
+            }
+            String key = item.getType();
+            if (key.charAt(0) != '\u00a9' && keys != null) {
+                int index = key.charAt(0) << 24 | key.charAt(1) << 16 | key.charAt(2) << 8 | key.charAt(3);
+                key = index > 0 && index <= keys.getEntryCount() ? keys.getKey(index - 1) : null;
+            }
+            if (key != null && item.getSize() >= item.getDataOffset() + 16) {
+                Box box = readBox(reader.getPosition());
+                if (box instanceof DataBox) {
+                    tracker.checkValueSize(((DataBox) box).getValueLength());
+                    tracker.read(((DataBox) box).getValueLength());
+                    String value = ((DataBox) box).readString();
+                    if (value != null) {
+                        put(key, value);
+                    }
+                }
+            }
+            position = item.getOffset() + item.getSize();
+        }
+    }
+
+    private String readUserDataText(Box box) throws IOException {
+        long available = box.getSize() - box.getDataOffset();
+        if (available < 4) {
+            return null;
+        }
+        int length = reader.readUnsignedShortValue();
+        reader.skip(2);
+        if (length > available - 4) {
+            return null;
+        }
+        tracker.checkValueSize(length);
+        tracker.read(length);
+        return new String(reader.readByteArray(length), UTF_8);
+    }
+
+    private Box readBox(long position) throws IOException {
+        tracker.segment();
+        tracker.read(16);
+        reader.seek(position);
+        return Box.read(reader);
+    }
+
+    private void put(String key, String value) {
+        if (KEY_MAKE.equals(key) || ATOM_MAKE.equals(key)) {
+            make = value;
+        } else if (KEY_MODEL.equals(key) || ATOM_MODEL.equals(key)) {
+            model = value;
+        } else if (KEY_LOCATION.equals(key) || ATOM_LOCATION.equals(key)) {
+            location = value;
+        } else if (KEY_CREATION_DATE.equals(key) || ATOM_CREATION_DATE.equals(key)) {
+            creationDate = value;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package org.lds.media.xmp;
+
+import org.lds.io.AbstractSeekableBinaryReader;
+import org.lds.io.FileBinaryReader;
+import org.lds.media.FileFormat;
+import org.lds.media.JpegSegments;
+import org.lds.media.ParseBudget;
+import org.lds.media.isobmff.HeifItems;
+import org.lds.media.isobmff.ItemLocationBox;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Rating, keywords and edit history from the XMP packet of a JPEG (APP1) or HEIF ("mime" item) file.
+ */
+public class Xmp {
+
+    private static final byte[] JPEG_XMP_MARKER = ascii("http://ns.adobe.com/xap/1.0/\0");
+    private static final String HEIF_CONTENT_TYPE = "application/rdf+xml";
+
+    public static class HistoryEvent {
+        private final String action;
+        private final String when;
+        private final String softwareAgent;
+        private final String changed;
+
+        HistoryEvent(String action, String when, String softwareAgent, String changed) {
+            this.action = action;
+            this.when = when;
+            this.softwareAgent = softwareAgent;
+            this.changed = changed;
+        }
+
+        public String getAction() {
+            return action;
+        }
+
+        public String getWhen() {
+            return when;
+        }
+
+        public String getSoftwareAgent() {
+            return softwareAgent;
+        }
+
+        public String getChanged() {
+            return changed;
+        }
+    }
+
+    public static Xmp parse(File file) throws IOException {
+        FileBinaryReader reader = new FileBinaryReader(file);
+        try {
+            return parse(reader, ParseBudget.DEFAULT.start());
+        } finally {
+            reader.close();
+        }
+    }
+
+    public static Xmp parse(AbstractSeekableBinaryReader reader) throws IOException {
+        return parse(reader, ParseBudget.DEFAULT.start());
+    }
+
+    /**
+     * Returns the XMP fields, or null if the file has no XMP packet.
+     */
+    public static Xmp parse(AbstractSeekableBinaryReader reader, ParseBudget.Tracker tracker) throws IOException {
+        byte[] packet = readPacket(reader, tracker);
+        return packet == null ? null : parse(packet, 0, packet.length);
+    }
+
+    public static Xmp parse(byte[] packet, int offset, int length) throws IOException {
+        Xmp xmp = new Xmp();
+        XmpExtractor.extract(packet, offset, length, xmp);
+        return xmp;
+    }
+
+    static byte[] readPacket(AbstractSeekableBinaryReader reader, ParseBudget.Tracker tracker) throws IOException {
+        reader.setOrder(ByteOrder.BIG_ENDIAN);
+        tracker.read(FileFormat.HEADER_LENGTH);
+        int format = FileFormat.detect(reader);
+        long offset = -1;
+        long length = 0;
+        if (format == FileFormat.JPEG) {
+            JpegSegments segments = new JpegSegments(reader, tracker);
+            while (segments.next()) {
+                if (segments.getMarker() == JpegSegments.APP1 && segments.startsWith(JPEG_XMP_MARKER)) {
+                    offset = segments.getDataOffset() + JPEG_XMP_MARKER.length;
+                    length = segments.getDataLength() - JPEG_XMP_MARKER.length;
+                    break;
+                }
+            }
+        } else if (format == FileFormat.HEIF) {
+            ItemLocationBox.Extent extent = HeifItems.find(reader, tracker, "mime", HEIF_CONTENT_TYPE);
+            if (extent != null) {
+                offset = extent.getExtentOffset();
+                length = extent.getExtentLength();
+            }
+        }
+        if (offset < 0 || length <= 0) {
+            return null;
+        }
+        tracker.checkValueSize(length);
+        tracker.checkRange(offset, length, reader.getLength());
+        tracker.read(length);
+        byte[] packet = new byte[(int) length];
+        reader.seek(offset);
+        for (int off = 0; off < packet.length; ) {
+            int n = reader.read(packet, off, packet.length - off);
+            if (n <= 0) {
+                throw new EOFException();
+            }
+            off += n;
+        }
+        return packet;
+    }
+
+    private static byte[] ascii(String value) {
+        byte[] b = new byte[value.length()];
+        for (int i = 0; i < b.length; i++) {
+            b[i] = (byte) value.charAt(i);
+        }
+        return b;
+    }
+
+    Integer rating;
+    final List<String> keywords = new ArrayList<String>();
+    final List<HistoryEvent> history = new ArrayList<HistoryEvent>();
+
+    private Xmp() {
+    }
+
+    /**
+     * Returns xmp:Rating (-1 for rejected, 0 to 5 stars), or null if absent.
+     */
+    public Integer getRating() {
+        return rating;
+    }
+
+    /**
+     * Returns the dc:subject keywords in document order.
+     */
+    public List<String> getKeywords() {
+        return Collections.unmodifiableList(keywords);
+    }
+
+    /**
+     * Returns the xmpMM:History events in document order.
+     */
+    public List<HistoryEvent> getHistory() {
+        return Collections.unmodifiableList(history);
+    }
+}
@@ -0,0 +1,153 @@
+package org.lds.media.xmp;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+/**
+ * Pulls the few fields {@link Xmp} exposes out of an RDF/XML packet with StAX, without building a tree.
+ * Handles both the attribute and the element form of simple properties, and both attribute and nested
+ * element forms of history events.
+ */
+class XmpExtractor {
+
+    private static final String RDF = "http://www.w3.org/1999/02/22-rdf-syntax-ns#";
+    private static final String XMP = "http://ns.adobe.com/xap/1.0/";
+    private static final String DC = "http://purl.org/dc/elements/1.1/";
+    private static final String XMP_MM = "http://ns.adobe.com/xap/1.0/mm/";
+    private static final String ST_EVT = "http://ns.adobe.com/xap/1.0/sType/ResourceEvent#";
+
+    private static final int NONE = 0;
+    private static final int SUBJECT = 1;
+    private static final int HISTORY = 2;
+
+    private static final XMLInputFactory FACTORY = createFactory();
+
+    private static XMLInputFactory createFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.TRUE);
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+        return factory;
+    }
+
+    static void extract(byte[] packet, int offset, int length, Xmp xmp) throws IOException {
+        try {
+            XMLStreamReader reader = FACTORY.createXMLStreamReader(new ByteArrayInputStream(packet, offset, length));
+            try {
+                new XmpExtractor(reader, xmp).run();
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("malformed XMP packet", e);
+        }
+    }
+
+    private final XMLStreamReader reader;
+    private final Xmp xmp;
+    private int mode = NONE;
+    private boolean inEvent;
+    private String action;
+    private String when;
+    private String softwareAgent;
+    private String changed;
+
+    private XmpExtractor(XMLStreamReader reader, Xmp xmp) {
+        this.reader = reader;
+        this.xmp = xmp;
+    }
+
+    private void run() throws XMLStreamException {
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                startElement(reader.getNamespaceURI(), reader.getLocalName());
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                endElement(reader.getNamespaceURI(), reader.getLocalName());
+            }
+        }
+    }
+
+    private void startElement(String namespace, String name) throws XMLStreamException {
+        if (RDF.equals(namespace) && "Description".equals(name)) {
+            if (mode == NONE) {
+                rating(reader.getAttributeValue(XMP, "Rating"));
+            } else if (mode == HISTORY && inEvent) {
+                eventAttributes();
+            }
+        } else if (XMP.equals(namespace) && "Rating".equals(name)) {
+            rating(reader.getElementText());
+        } else if (DC.equals(namespace) && "subject".equals(name)) {
+            mode = SUBJECT;
+        } else if (XMP_MM.equals(namespace) && "History".equals(name)) {
+            mode = HISTORY;
+        } else if (RDF.equals(namespace) && "li".equals(name)) {
+            if (mode == SUBJECT) {
+                String keyword = reader.getElementText().trim();
+                if (keyword.length() > 0) {
+                    xmp.keywords.add(keyword);
+                }
+            } else if (mode == HISTORY) {
+                inEvent = true;
+                action = null;
+                when = null;
+                softwareAgent = null;
+                changed = null;
+                eventAttributes();
+            }
+        } else if (ST_EVT.equals(namespace) && mode == HISTORY && inEvent) {
+            String value = reader.getElementText().trim();
+            if ("action".equals(name)) {
+                action = value;
+            } else if ("when".equals(name)) {
+                when = value;
+            } else if ("softwareAgent".equals(name)) {
+                softwareAgent = value;
+            } else if ("changed".equals(name)) {
+                changed = value;
+            }
+        }
+    }
+
+    private void endElement(String namespace, String name) {
+        if (DC.equals(namespace) && "subject".equals(name) || XMP_MM.equals(namespace) && "History".equals(name)) {
+            mode = NONE;
+        } else if (RDF.equals(namespace) && "li".equals(name) && mode == HISTORY && inEvent) {
+            xmp.history.add(new Xmp.HistoryEvent(action, when, softwareAgent, changed));
+            inEvent = false;
+        }
+    }
+
+    private void eventAttributes() {
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            if (!ST_EVT.equals(reader.getAttributeNamespace(i))) {
+                continue;
+            }
+            String name = reader.getAttributeLocalName(i);
+            String value = reader.getAttributeValue(i);
+            if ("action".equals(name)) {
+                action = value;
+            } else if ("when".equals(name)) {
+                when = value;
+            } else if ("softwareAgent".equals(name)) {
+                softwareAgent = value;
+            } else if ("changed".equals(name)) {
+                changed = value;
+            }
+        }
+    }
+
+    private void rating(String value) {
+        if (value == null) {
+            return;
+        }
+        try {
+            xmp.rating = (int) Math.round(Double.parseDouble(value.trim()));
+        } catch (NumberFormatException ignored) {
+        }
+    }
+}
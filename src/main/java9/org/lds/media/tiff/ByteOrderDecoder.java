@@ -0,0 +1,75 @@
+package org.lds.media.tiff;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * Java 9+ replacement that reads through byte array view VarHandles, which the JIT compiles to single
+ * (byte-swapped where needed) loads. Each order keeps its handles in static finals so they constant-fold.
+ */
+abstract class ByteOrderDecoder {
+
+    static final ByteOrderDecoder BIG_ENDIAN = new BigEndian();
+    static final ByteOrderDecoder LITTLE_ENDIAN = new LittleEndian();
+
+    static ByteOrderDecoder of(ByteOrder order) {
+        return order == ByteOrder.LITTLE_ENDIAN ? LITTLE_ENDIAN : BIG_ENDIAN;
+    }
+
+    abstract short getShort(byte[] b, int off);
+
+    abstract int getInt(byte[] b, int off);
+
+    abstract long getLong(byte[] b, int off);
+
+    final int getUnsignedShort(byte[] b, int off) {
+        return getShort(b, off) & 0xffff;
+    }
+
+    final long getUnsignedInt(byte[] b, int off) {
+        return getInt(b, off) & 0xffffffffL;
+    }
+
+    private static final class BigEndian extends ByteOrderDecoder {
+        private static final VarHandle SHORT = MethodHandles.byteArrayViewVarHandle(short[].class, ByteOrder.BIG_ENDIAN);
+        private static final VarHandle INT = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+        private static final VarHandle LONG = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+        @Override
+        short getShort(byte[] b, int off) {
+            return (short) SHORT.get(b, off);
+        }
+
+        @Override
+        int getInt(byte[] b, int off) {
+            return (int) INT.get(b, off);
+        }
+
+        @Override
+        long getLong(byte[] b, int off) {
+            return (long) LONG.get(b, off);
+        }
+    }
+
+    private static final class LittleEndian extends ByteOrderDecoder {
+        private static final VarHandle SHORT = MethodHandles.byteArrayViewVarHandle(short[].class, ByteOrder.LITTLE_ENDIAN);
+        private static final VarHandle INT = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+        private static final VarHandle LONG = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+        @Override
+        short getShort(byte[] b, int off) {
+            return (short) SHORT.get(b, off);
+        }
+
+        @Override
+        int getInt(byte[] b, int off) {
+            return (int) INT.get(b, off);
+        }
+
+        @Override
+        long getLong(byte[] b, int off) {
+            return (long) LONG.get(b, off);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package org.lds.media.test;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.lds.media.index.DuplicateIndex;
+
+import java.util.Random;
+
+public class DuplicateIndexTest {
+
+    @Test
+    public void testPutIfAbsent() {
+        DuplicateIndex index = new DuplicateIndex(4);
+        Random random = new Random(2);
+        long[] fingerprints = new long[5000];
+        for (int i = 0; i < fingerprints.length; i++) {
+            fingerprints[i] = random.nextLong() | 1;
+            Assert.assertEquals(DuplicateIndex.ABSENT, index.putIfAbsent(fingerprints[i], i));
+        }
+        Assert.assertEquals(fingerprints.length, index.size());
+        for (int i = 0; i < fingerprints.length; i++) {
+            Assert.assertEquals(i, index.putIfAbsent(fingerprints[i], -5));
+            Assert.assertEquals(i, index.get(fingerprints[i]));
+        }
+        Assert.assertEquals(DuplicateIndex.ABSENT, index.get(2));
+    }
+}
@@ -0,0 +1,144 @@
+package org.lds.media.test;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.lds.media.exif.ExifCache;
+import org.lds.media.exif.ExifRecord;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteOrder;
+
+public class ExifCacheTest {
+
+    private static byte[] tiff(String make) {
+        return new Synthetic.Ifd(ByteOrder.BIG_ENDIAN).ascii(0x10f, make).toTIFF();
+    }
+
+    private static File write(File directory, String name, byte[] data) throws IOException {
+        File file = new File(directory, name);
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(data);
+        } finally {
+            out.close();
+        }
+        return file;
+    }
+
+    private static File directory() throws IOException {
+        File directory = File.createTempFile("cache", "");
+        Assert.assertTrue(directory.delete() && directory.mkdir());
+        return directory;
+    }
+
+    private static void delete(File directory) {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    /**
+     * The weight the cache charges for one record: fixed overhead, the path's chars and the record.
+     */
+    private static long weight(File file) {
+        return 64 + 40 + file.getPath().length() * 2 + ExifRecord.SIZE;
+    }
+
+    private static void assertStats(ExifCache cache, long hits, long misses, long evictions, int entries) {
+        ExifCache.Stats stats = cache.getStats();
+        Assert.assertEquals(hits, stats.getHitCount());
+        Assert.assertEquals(misses, stats.getMissCount());
+        Assert.assertEquals(evictions, stats.getEvictionCount());
+        Assert.assertEquals(entries, stats.getEntryCount());
+    }
+
+    @Test
+    public void testEvictionByWeight() throws Exception {
+        File directory = directory();
+        try {
+            File a = write(directory, "a.tif", tiff("Maker A"));
+            File b = write(directory, "b.tif", tiff("Maker B"));
+            File c = write(directory, "c.tif", tiff("Maker C"));
+            File d = write(directory, "d.tif", tiff("Maker D"));
+            long weight = weight(a);
+            ExifCache cache = new ExifCache(3 * weight);
+            Assert.assertEquals("Maker A", cache.get(a).getMake());
+            Assert.assertEquals("Maker B", cache.get(b).getMake());
+            Assert.assertEquals("Maker C", cache.get(c).getMake());
+            assertStats(cache, 0, 3, 0, 3);
+            Assert.assertEquals(3 * weight, cache.getStats().getWeight());
+
+            // a becomes most recently used, so d evicts b
+            Assert.assertEquals("Maker A", cache.get(a).getMake());
+            Assert.assertEquals("Maker D", cache.get(d).getMake());
+            assertStats(cache, 1, 4, 1, 3);
+            cache.get(a);
+            cache.get(d);
+            assertStats(cache, 3, 4, 1, 3);
+            Assert.assertEquals("Maker B", cache.get(b).getMake());
+            assertStats(cache, 3, 5, 2, 3);
+            cache.get(c);
+            assertStats(cache, 3, 6, 3, 3);
+            Assert.assertEquals(3 * weight, cache.getStats().getWeight());
+
+            cache.clear();
+            Assert.assertEquals(0, cache.getStats().getEntryCount());
+            Assert.assertEquals(0, cache.getStats().getWeight());
+        } finally {
+            delete(directory);
+        }
+    }
+
+    @Test
+    public void testFileIdentity() throws Exception {
+        File directory = directory();
+        try {
+            File file = write(directory, "a.tif", tiff("Old camera"));
+            Assert.assertTrue(file.setLastModified(1500000000000L));
+            ExifCache cache = new ExifCache(1 << 20);
+            Assert.assertEquals("Old camera", cache.get(file).getMake());
+            Assert.assertEquals("Old camera", cache.get(file).getMake());
+            assertStats(cache, 1, 1, 0, 1);
+
+            // same size, new modification time
+            write(directory, "a.tif", tiff("New camera"));
+            Assert.assertTrue(file.setLastModified(1500000000000L + 2000));
+            Assert.assertEquals("New camera", cache.get(file).getMake());
+            assertStats(cache, 1, 2, 0, 2);
+
+            // same modification time, new size
+            write(directory, "a.tif", tiff("Newer camera"));
+            Assert.assertTrue(file.setLastModified(1500000000000L + 2000));
+            Assert.assertEquals("Newer camera", cache.get(file).getMake());
+            assertStats(cache, 1, 3, 0, 3);
+
+            cache.invalidate(file);
+            Assert.assertEquals(0, cache.getStats().getEntryCount());
+            Assert.assertEquals(0, cache.getStats().getWeight());
+            Assert.assertEquals("Newer camera", cache.get(file).getMake());
+            assertStats(cache, 1, 4, 0, 1);
+        } finally {
+            delete(directory);
+        }
+    }
+
+    @Test
+    public void testNoExif() throws Exception {
+        File directory = directory();
+        try {
+            File file = write(directory, "notes.txt", Synthetic.bytes("no metadata here"));
+            ExifCache cache = new ExifCache(1 << 20);
+            Assert.assertNull(cache.get(file));
+            Assert.assertNull(cache.get(file));
+            assertStats(cache, 1, 1, 0, 1);
+        } finally {
+            delete(directory);
+        }
+    }
+}
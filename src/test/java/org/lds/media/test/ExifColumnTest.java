@@ -0,0 +1,162 @@
+package org.lds.media.test;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.lds.media.exif.Exif;
+import org.lds.media.exif.ExifColumnReader;
+import org.lds.media.exif.ExifColumnWriter;
+import org.lds.media.exif.ExifDateTime;
+import org.lds.media.exif.ExifRecord;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Random;
+import java.util.zip.Deflater;
+
+public class ExifColumnTest {
+
+    private static ExifRecord[] records() throws Exception {
+        Random random = new Random(45);
+        ExifRecord[] records = new ExifRecord[16];
+        for (int i = 0; i < records.length; i++) {
+            File file = Synthetic.write(Synthetic.photo(random, i));
+            try {
+                records[i] = ExifRecord.of(Exif.parse(file));
+            } finally {
+                file.delete();
+            }
+        }
+        return records;
+    }
+
+    private static void assertRecordEquals(ExifRecord expected, ExifRecord actual) {
+        Assert.assertEquals(expected.getMake(), actual.getMake());
+        Assert.assertEquals(expected.getModel(), actual.getModel());
+        Assert.assertEquals(expected.getLens(), actual.getLens());
+        Assert.assertEquals(expected.getCaptureTime(), actual.getCaptureTime());
+        Assert.assertEquals(expected.getExposureTimeNumerator(), actual.getExposureTimeNumerator());
+        Assert.assertEquals(expected.getExposureTimeDenominator(), actual.getExposureTimeDenominator());
+        Assert.assertEquals(expected.hasFNumber(), actual.hasFNumber());
+        Assert.assertEquals(expected.getFNumber(), actual.getFNumber(), 0);
+        Assert.assertEquals(expected.hasGPS(), actual.hasGPS());
+        Assert.assertEquals(expected.getGPSLatitude(), actual.getGPSLatitude(), 0);
+        Assert.assertEquals(expected.getGPSLongitude(), actual.getGPSLongitude(), 0);
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        ExifRecord[] records = records();
+        Assert.assertNotNull(records[1].getLens());
+        int rows = 1000;
+        File file = File.createTempFile("exif", ".ldsc");
+        try {
+            ExifColumnWriter writer = new ExifColumnWriter(new FileOutputStream(file), 128, Deflater.BEST_SPEED);
+            for (int i = 0; i < rows; i++) {
+                String path = "/photos/2018/IMG_" + i + ".JPG";
+                // every seventh row has no record: in turn no Exif, a failed parse and a video
+                if (i % 21 == 7) {
+                    writer.writeFailed(path);
+                } else if (i % 21 == 14) {
+                    writer.writeNotPhoto(path);
+                } else {
+                    writer.write(path, i % 7 == 0 ? null : records[i % records.length]);
+                }
+            }
+            writer.close();
+            Assert.assertEquals(rows, writer.getRowCount());
+
+            ExifColumnReader reader = ExifColumnReader.open(file);
+            try {
+                Assert.assertEquals(rows, reader.getRowCount());
+                Assert.assertEquals(8, reader.getRowGroupCount());
+                int row = 0;
+                for (int group = 0; group < reader.getRowGroupCount(); group++) {
+                    ExifColumnReader.RowGroup rowGroup = reader.read(group, ExifColumnReader.ALL);
+                    Assert.assertEquals(reader.getRowCount(group), rowGroup.size());
+                    for (int i = 0; i < rowGroup.size(); i++, row++) {
+                        Assert.assertEquals("/photos/2018/IMG_" + row + ".JPG", rowGroup.getPath(i));
+                        Assert.assertEquals(row % 21 == 7, rowGroup.isFailed(i));
+                        Assert.assertEquals(row % 21 == 14, rowGroup.isNotPhoto(i));
+                        if (row % 7 == 0) {
+                            Assert.assertFalse(rowGroup.hasRecord(i));
+                            Assert.assertNull(rowGroup.getRecord(i));
+                            Assert.assertEquals(ExifDateTime.UNKNOWN, rowGroup.getCaptureTime(i));
+                        } else {
+                            assertRecordEquals(records[row % records.length], rowGroup.getRecord(i));
+                        }
+                    }
+                    Assert.assertTrue(reader.overlaps(group, reader.getMinCaptureTime(group),
+                            reader.getMinCaptureTime(group)));
+                }
+                Assert.assertEquals(rows, row);
+                Assert.assertEquals(records[1].getCaptureTime(), reader.getMinCaptureTime(0));
+            } finally {
+                reader.close();
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testProjection() throws Exception {
+        ExifRecord[] records = records();
+        File file = File.createTempFile("exif", ".ldsc");
+        try {
+            ExifColumnWriter writer = new ExifColumnWriter(new FileOutputStream(file));
+            for (int i = 0; i < records.length; i++) {
+                writer.write("IMG_" + i + ".JPG", records[i]);
+            }
+            writer.close();
+
+            ExifColumnReader reader = ExifColumnReader.open(file);
+            try {
+                Assert.assertEquals(1, reader.getRowGroupCount());
+                ExifColumnReader.RowGroup rowGroup = reader.read(0, ExifColumnReader.MAKE | ExifColumnReader.GPS);
+                for (int i = 0; i < records.length; i++) {
+                    Assert.assertEquals(records[i].getMake(), rowGroup.getMake(i));
+                    Assert.assertEquals(records[i].getGPSLatitude(), rowGroup.getGPSLatitude(i), 0);
+                }
+                try {
+                    rowGroup.getPath(0);
+                    Assert.fail();
+                } catch (IllegalStateException expected) {
+                }
+            } finally {
+                reader.close();
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testTrailerMagic() throws Exception {
+        ExifRecord[] records = records();
+        File file = File.createTempFile("exif", ".ldsc");
+        try {
+            ExifColumnWriter writer = new ExifColumnWriter(new FileOutputStream(file));
+            writer.write("IMG_0.JPG", records[0]);
+            writer.close();
+            ExifColumnReader.open(file).close();
+
+            RandomAccessFile raf = new RandomAccessFile(file, "rw");
+            try {
+                raf.seek(raf.length() - 1);
+                raf.write('X');
+            } finally {
+                raf.close();
+            }
+            try {
+                ExifColumnReader.open(file);
+                Assert.fail();
+            } catch (IOException expected) {
+                Assert.assertEquals("not an Exif column file", expected.getMessage());
+            }
+        } finally {
+            file.delete();
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package org.lds.media.test;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.lds.media.exif.Exif;
+
+import java.io.File;
+import java.nio.ByteOrder;
+
+public class ExifContainerTest {
+
+    private static byte[] tiff(ByteOrder order) {
+        Synthetic.Ifd exif = new Synthetic.Ifd(order).rationals(0x829a, 1, 250);
+        return new Synthetic.Ifd(order).ascii(0x10f, "Camera").ascii(0x110, "Model 1").pointer(0x8769, exif).toTIFF();
+    }
+
+    private static Exif parse(byte[] data) throws Exception {
+        File file = Synthetic.write(data);
+        try {
+            return Exif.parse(file);
+        } finally {
+            file.delete();
+        }
+    }
+
+    private static void check(Exif exif) throws Exception {
+        Assert.assertNotNull(exif);
+        Assert.assertEquals("Camera", exif.getMake());
+        Assert.assertEquals("Model 1", exif.getModel());
+        Assert.assertEquals("1/250", exif.getExposureTime());
+    }
+
+    @Test
+    public void testPNG() throws Exception {
+        byte[] text = Synthetic.pngChunk("tEXt", Synthetic.bytes("Comment\0odd"));
+        byte[] idat = Synthetic.pngChunk("IDAT", new byte[7]);
+        check(parse(Synthetic.png(text, Synthetic.pngChunk("eXIf", tiff(ByteOrder.BIG_ENDIAN)), idat)));
+        // eXIf may follow the image data, and some writers keep the JPEG "Exif\0\0" prefix
+        check(parse(Synthetic.png(text, idat, Synthetic.pngChunk("eXIf",
+                Synthetic.concat(Synthetic.bytes("Exif\0\0"), tiff(ByteOrder.LITTLE_ENDIAN))))));
+        Assert.assertNull(parse(Synthetic.png(text, idat)));
+    }
+
+    @Test
+    public void testWebP() throws Exception {
+        byte[] vp8x = Synthetic.riffChunk("VP8X", new byte[10]);
+        byte[] iccp = Synthetic.riffChunk("ICCP", new byte[5]);
+        byte[] vp8l = Synthetic.riffChunk("VP8L", new byte[9]);
+        check(parse(Synthetic.webp(vp8x, iccp, vp8l, Synthetic.riffChunk("EXIF", tiff(ByteOrder.LITTLE_ENDIAN)))));
+        check(parse(Synthetic.webp(vp8x, iccp, vp8l, Synthetic.riffChunk("EXIF",
+                Synthetic.concat(Synthetic.bytes("Exif\0\0"), tiff(ByteOrder.BIG_ENDIAN))))));
+        Assert.assertNull(parse(Synthetic.webp(vp8x, iccp, vp8l)));
+    }
+}
@@ -0,0 +1,99 @@
+package org.lds.media.test;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.lds.media.exif.Exif;
+import org.lds.media.exif.ExifDateTime;
+
+import java.io.File;
+import java.nio.ByteOrder;
+
+public class ExifDateTimeTest {
+
+    private static long parse(String value) {
+        byte[] b = Synthetic.bytes(value);
+        return ExifDateTime.parse(b, 0, b.length);
+    }
+
+    @Test
+    public void testParse() {
+        Assert.assertEquals(1526237764000L, parse("2018:05:13 18:56:04\0"));
+        Assert.assertEquals(-1000L, parse("1969:12:31 23:59:59"));
+        Assert.assertEquals(ExifDateTime.UNKNOWN, parse("0000:00:00 00:00:00"));
+        Assert.assertEquals(ExifDateTime.UNKNOWN, parse("    :  :     :  :  "));
+        Assert.assertEquals(ExifDateTime.UNKNOWN, parse("2018:05:13 18:56"));
+        byte[] b = Synthetic.bytes("45\0");
+        Assert.assertEquals(450, ExifDateTime.parseSubSec(b, 0, b.length));
+        b = Synthetic.bytes("+08:00\0");
+        Assert.assertEquals(480, ExifDateTime.parseOffset(b, 0, b.length));
+        b = Synthetic.bytes("-03:30");
+        Assert.assertEquals(-210, ExifDateTime.parseOffset(b, 0, b.length));
+    }
+
+    @Test
+    public void testSeparators() {
+        Assert.assertEquals(ExifDateTime.UNKNOWN, parse("2018-05-13 18:56:04"));
+        Assert.assertEquals(ExifDateTime.UNKNOWN, parse("2018:05:13T18:56:04"));
+        Assert.assertEquals(ExifDateTime.UNKNOWN, parse("2018:05:13 18.56.04"));
+        Assert.assertEquals(ExifDateTime.UNKNOWN, parse("2018:05:1318:56:04Z"));
+    }
+
+    @Test
+    public void testDayOfMonth() {
+        Assert.assertEquals(ExifDateTime.UNKNOWN, parse("2018:02:31 00:00:00"));
+        Assert.assertEquals(ExifDateTime.UNKNOWN, parse("2018:04:31 00:00:00"));
+        Assert.assertEquals(ExifDateTime.UNKNOWN, parse("2018:02:29 00:00:00"));
+        Assert.assertEquals(ExifDateTime.UNKNOWN, parse("1900:02:29 00:00:00"));
+        Assert.assertEquals(951782400000L, parse("2000:02:29 00:00:00"));
+        Assert.assertEquals(1456704000000L, parse("2016:02:29 00:00:00"));
+        Assert.assertEquals(1514678400000L, parse("2017:12:31 00:00:00"));
+    }
+
+    @Test
+    public void testParseDate() {
+        byte[] b = Synthetic.bytes("2018:05:13\0");
+        Assert.assertEquals(1526169600000L, ExifDateTime.parseDate(b, 0, b.length));
+        b = Synthetic.bytes("2018-05-13");
+        Assert.assertEquals(ExifDateTime.UNKNOWN, ExifDateTime.parseDate(b, 0, b.length));
+        b = Synthetic.bytes("2018:02:30");
+        Assert.assertEquals(ExifDateTime.UNKNOWN, ExifDateTime.parseDate(b, 0, b.length));
+    }
+
+    private static long captureTime(Synthetic.Ifd ifd0) throws Exception {
+        File file = Synthetic.write(Synthetic.jpeg(Synthetic.exifSegment(ifd0.toTIFF())));
+        try {
+            return Exif.parse(file).getCaptureTime();
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testCaptureTime() throws Exception {
+        ByteOrder order = ByteOrder.LITTLE_ENDIAN;
+        // DateTimeOriginal with its sub-seconds and offset; IFD0's DateTime is the later edit time
+        long time = captureTime(new Synthetic.Ifd(order)
+                .ascii(0x132, "2018:06:01 09:00:00")
+                .pointer(0x8769, new Synthetic.Ifd(order)
+                        .ascii(0x9003, "2018:05:13 18:56:04")
+                        .ascii(0x9011, "+08:00")
+                        .ascii(0x9291, "45")));
+        Assert.assertEquals(1526237764000L + 450 - 8 * 3600000L, time);
+
+        // no usable DateTimeOriginal: DateTime with SubSecTime and OffsetTime
+        time = captureTime(new Synthetic.Ifd(order)
+                .ascii(0x132, "2018:05:13 18:56:04")
+                .pointer(0x8769, new Synthetic.Ifd(order)
+                        .ascii(0x9003, "2018:02:31 18:56:04")
+                        .ascii(0x9010, "-03:30")
+                        .ascii(0x9290, "7")));
+        Assert.assertEquals(1526237764000L + 700 + 210 * 60000L, time);
+
+        // no Exif IFD: DateTime as it is
+        time = captureTime(new Synthetic.Ifd(order).ascii(0x132, "2018:05:13 18:56:04"));
+        Assert.assertEquals(1526237764000L, time);
+
+        time = captureTime(new Synthetic.Ifd(order).ascii(0x10f, "Cam"));
+        Assert.assertEquals(ExifDateTime.UNKNOWN, time);
+    }
+}
@@ -0,0 +1,238 @@
+package org.lds.media.test;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.lds.media.ParseBudget;
+import org.lds.media.exif.ExifCache;
+import org.lds.media.exif.ExifExecutor;
+import org.lds.media.exif.ExifFuture;
+import org.lds.media.exif.ExifRecord;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ExifExecutorTest {
+
+    /**
+     * Stands in for the parse: each lookup waits for {@code release} and fails if {@code fail} is set.
+     */
+    private static class BlockingCache extends ExifCache {
+        final CountDownLatch release;
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        final AtomicInteger started = new AtomicInteger();
+        volatile boolean fail;
+
+        BlockingCache(CountDownLatch release) {
+            super(1 << 20);
+            this.release = release;
+        }
+
+        @Override
+        public ExifRecord get(File file) throws IOException {
+            int n = running.incrementAndGet();
+            started.incrementAndGet();
+            try {
+                while (maxRunning.get() < n && !maxRunning.compareAndSet(maxRunning.get(), n)) {
+                    Thread.yield();
+                }
+                if (!release.await(10, TimeUnit.SECONDS)) {
+                    throw new IOException("never released");
+                }
+                if (fail) {
+                    throw new IOException("broken");
+                }
+                return super.get(file);
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            } finally {
+                running.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Records the first completion and counts down.
+     */
+    private static class Recorder implements ExifFuture.Listener {
+        final CountDownLatch done = new CountDownLatch(1);
+        volatile File file;
+        volatile ExifRecord record;
+        volatile Throwable error;
+        volatile Thread thread;
+
+        @Override
+        public void completed(File file, ExifRecord record, Throwable error) {
+            this.file = file;
+            this.record = record;
+            this.error = error;
+            this.thread = Thread.currentThread();
+            done.countDown();
+        }
+    }
+
+    private static File tiff() throws IOException {
+        return Synthetic.write(new Synthetic.Ifd(ByteOrder.BIG_ENDIAN).ascii(0x10f, "Cam").toTIFF());
+    }
+
+    private static void awaitStarted(BlockingCache cache, int count) throws InterruptedException {
+        for (int i = 0; i < 1000 && cache.started.get() < count; i++) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(count, cache.started.get());
+    }
+
+    private static void awaitBlocked(Thread thread) throws InterruptedException {
+        for (int i = 0; i < 1000 && thread.getState() != Thread.State.WAITING; i++) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(Thread.State.WAITING, thread.getState());
+    }
+
+    /**
+     * Submits {@code file} on a new thread, which blocks while the executor is at its cap.
+     */
+    private static Thread submitLater(final ExifExecutor executor, final File file, final ExifFuture[] future) {
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    future[0] = executor.submit(file);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        thread.start();
+        return thread;
+    }
+
+    @Test
+    public void testInFlightCap() throws Exception {
+        File file = tiff();
+        CountDownLatch release = new CountDownLatch(1);
+        BlockingCache cache = new BlockingCache(release);
+        ExifExecutor executor = new ExifExecutor(2, 2, ParseBudget.DEFAULT, cache);
+        try {
+            ExifFuture first = executor.submit(file);
+            ExifFuture second = executor.submit(file);
+            awaitStarted(cache, 2);
+            Assert.assertEquals(2, executor.getInFlight());
+
+            // a third submit waits for a slot
+            ExifFuture[] third = new ExifFuture[1];
+            Thread producer = submitLater(executor, file, third);
+            awaitBlocked(producer);
+            Assert.assertNull(third[0]);
+            Assert.assertEquals(2, cache.started.get());
+
+            release.countDown();
+            producer.join(10000);
+            Assert.assertFalse(producer.isAlive());
+            Assert.assertEquals("Cam", first.get().getMake());
+            Assert.assertEquals("Cam", second.get().getMake());
+            Assert.assertEquals("Cam", third[0].get().getMake());
+            Assert.assertEquals(2, cache.maxRunning.get());
+        } finally {
+            executor.shutdown();
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testPermitReleasedOnFailure() throws Exception {
+        File file = tiff();
+        CountDownLatch release = new CountDownLatch(0);
+        BlockingCache cache = new BlockingCache(release);
+        cache.fail = true;
+        ExifExecutor executor = new ExifExecutor(1, 1, ParseBudget.DEFAULT, cache);
+        try {
+            // with one slot, each submit only returns once the previous failure gave its permit back
+            for (int i = 0; i < 3; i++) {
+                Recorder recorder = new Recorder();
+                ExifFuture future = executor.submit(file, recorder);
+                Assert.assertTrue(recorder.done.await(10, TimeUnit.SECONDS));
+                Assert.assertEquals(0, executor.getInFlight());
+                Assert.assertTrue(recorder.error instanceof IOException);
+                Assert.assertEquals("broken", recorder.error.getMessage());
+                Assert.assertNull(recorder.record);
+                try {
+                    future.get();
+                    Assert.fail();
+                } catch (ExecutionException e) {
+                    Assert.assertTrue(e.getCause() == recorder.error);
+                }
+            }
+        } finally {
+            executor.shutdown();
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testPermitReleasedOnCancel() throws Exception {
+        File file = tiff();
+        CountDownLatch release = new CountDownLatch(1);
+        BlockingCache cache = new BlockingCache(release);
+        ExifExecutor executor = new ExifExecutor(1, 1, ParseBudget.DEFAULT, cache);
+        try {
+            Recorder recorder = new Recorder();
+            ExifFuture first = executor.submit(file, recorder);
+            awaitStarted(cache, 1);
+            ExifFuture[] second = new ExifFuture[1];
+            Thread producer = submitLater(executor, file, second);
+            awaitBlocked(producer);
+
+            Assert.assertTrue(first.cancel(true));
+            Assert.assertTrue(recorder.done.await(10, TimeUnit.SECONDS));
+            Assert.assertTrue(recorder.error instanceof CancellationException);
+            producer.join(10000);
+            Assert.assertFalse(producer.isAlive());
+            Assert.assertNotNull(second[0]);
+
+            release.countDown();
+            Assert.assertEquals("Cam", second[0].get().getMake());
+            try {
+                first.get();
+                Assert.fail();
+            } catch (CancellationException expected) {
+            }
+        } finally {
+            executor.shutdown();
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testListeners() throws Exception {
+        File file = tiff();
+        ExifExecutor executor = new ExifExecutor(4, 2);
+        try {
+            Recorder recorder = new Recorder();
+            ExifFuture future = executor.submit(file, recorder);
+            Assert.assertTrue(recorder.done.await(10, TimeUnit.SECONDS));
+            Assert.assertEquals(file, recorder.file);
+            Assert.assertEquals("Cam", recorder.record.getMake());
+            Assert.assertNull(recorder.error);
+            Assert.assertTrue(recorder.thread != Thread.currentThread());
+
+            // a listener added after completion runs at once on the caller's thread
+            Recorder late = new Recorder();
+            future.addListener(late);
+            Assert.assertEquals(0, late.done.getCount());
+            Assert.assertTrue(late.thread == Thread.currentThread());
+            Assert.assertTrue(late.record == recorder.record);
+            Assert.assertEquals(file, future.getFile());
+        } finally {
+            executor.shutdown();
+            Assert.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+            file.delete();
+        }
+    }
+}
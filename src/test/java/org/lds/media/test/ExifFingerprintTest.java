@@ -0,0 +1,72 @@
+package org.lds.media.test;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.lds.media.exif.Exif;
+import org.lds.media.exif.ExifFingerprint;
+
+import java.io.File;
+import java.nio.ByteOrder;
+
+public class ExifFingerprintTest {
+
+    /**
+     * IFD0 (Make) followed by an IFD1 pointing at {@code thumbnail}, or no IFD1 if null.
+     */
+    private static byte[] tiff(ByteOrder order, byte[] thumbnail) {
+        Synthetic.Ifd ifd0 = new Synthetic.Ifd(order).ascii(0x10f, "Cam");
+        if (thumbnail != null) {
+            ifd0.next(new Synthetic.Ifd(order).blob(0x201, 0x202, thumbnail));
+        }
+        return ifd0.toTIFF();
+    }
+
+    private static Exif parse(byte[] data) throws Exception {
+        File file = Synthetic.write(data);
+        try {
+            return Exif.parse(file);
+        } finally {
+            file.delete();
+        }
+    }
+
+    private static long fnv1a(byte[] b) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte x : b) {
+            hash = (hash ^ (x & 0xff)) * 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static byte[] thumbnail(int seed) {
+        byte[] b = new byte[40];
+        for (int i = 0; i < b.length; i++) {
+            b[i] = (byte) (i * 31 + seed);
+        }
+        return b;
+    }
+
+    @Test
+    public void testThumbnailHash() throws Exception {
+        byte[] thumbnail = thumbnail(0);
+        Exif little = parse(tiff(ByteOrder.LITTLE_ENDIAN, thumbnail));
+        Assert.assertEquals(fnv1a(thumbnail), little.getThumbnailHash());
+        long fingerprint = ExifFingerprint.of(little);
+        Assert.assertTrue(fingerprint != ExifFingerprint.NONE);
+
+        Exif big = parse(tiff(ByteOrder.BIG_ENDIAN, thumbnail));
+        Assert.assertEquals(fnv1a(thumbnail), big.getThumbnailHash());
+        Assert.assertEquals(fingerprint, ExifFingerprint.of(big));
+
+        Exif other = parse(tiff(ByteOrder.BIG_ENDIAN, thumbnail(1)));
+        Assert.assertTrue(fingerprint != ExifFingerprint.of(other));
+    }
+
+    @Test
+    public void testNoTimeNoThumbnail() throws Exception {
+        Exif exif = parse(tiff(ByteOrder.LITTLE_ENDIAN, null));
+        Assert.assertEquals("Cam", exif.getMake());
+        Assert.assertEquals(0, exif.getThumbnailHash());
+        Assert.assertEquals(ExifFingerprint.NONE, ExifFingerprint.of(exif));
+    }
+}
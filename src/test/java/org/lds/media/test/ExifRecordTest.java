@@ -0,0 +1,77 @@
+package org.lds.media.test;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.lds.math.Fraction;
+import org.lds.media.exif.Exif;
+import org.lds.media.exif.ExifDateTime;
+import org.lds.media.exif.ExifRecord;
+
+import java.io.File;
+import java.nio.ByteOrder;
+import java.util.Random;
+
+public class ExifRecordTest {
+
+    private static Exif parse(byte[] data) throws Exception {
+        File file = Synthetic.write(data);
+        try {
+            return Exif.parse(file);
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        Random random = new Random(36);
+        for (int i = 0; i < 6; i++) {
+            Exif exif = parse(Synthetic.photo(random, i));
+            ExifRecord record = ExifRecord.of(exif);
+            Assert.assertEquals(exif.getMake(), record.getMake());
+            Assert.assertEquals(exif.getModel(), record.getModel());
+            Assert.assertEquals(exif.getLens(), record.getLens());
+            Assert.assertTrue(record.getMake() == exif.getMake().intern());
+
+            Assert.assertTrue(record.hasCaptureTime());
+            Assert.assertEquals(exif.getCaptureTime(), record.getCaptureTime());
+            Assert.assertTrue(record.hasExposureTime());
+            Fraction exposure = exif.getExposureTimeValue();
+            Assert.assertEquals(exposure.getNumerator(), record.getExposureTimeNumerator());
+            Assert.assertEquals(exposure.getDenominator(), record.getExposureTimeDenominator());
+            Assert.assertEquals(exposure.doubleValue(), record.getExposureTimeSeconds(), 1e-12);
+            Assert.assertTrue(record.hasFNumber());
+            Assert.assertEquals(exif.getFNumber(), record.getFNumber(), 0);
+            Assert.assertTrue(record.hasGPS());
+            Assert.assertEquals(exif.getGPSLatitude(), record.getGPSLatitude(), 0);
+            Assert.assertEquals(exif.getGPSLongitude(), record.getGPSLongitude(), 0);
+        }
+    }
+
+    @Test
+    public void testAbsentFields() throws Exception {
+        // an exposure time with a zero denominator and a latitude without a longitude count as absent
+        Synthetic.Ifd exif = new Synthetic.Ifd(ByteOrder.LITTLE_ENDIAN).rationals(0x829a, 1, 0);
+        Synthetic.Ifd gps = new Synthetic.Ifd(ByteOrder.LITTLE_ENDIAN)
+                .ascii(0x1, "N")
+                .rationals(0x2, 22, 1, 32, 1, 0, 1);
+        ExifRecord record = ExifRecord.of(parse(new Synthetic.Ifd(ByteOrder.LITTLE_ENDIAN)
+                .ascii(0x10f, "Camera")
+                .pointer(0x8769, exif)
+                .pointer(0x8825, gps)
+                .toTIFF()));
+        Assert.assertEquals("Camera", record.getMake());
+        Assert.assertNull(record.getModel());
+        Assert.assertNull(record.getLens());
+        Assert.assertFalse(record.hasCaptureTime());
+        Assert.assertEquals(ExifDateTime.UNKNOWN, record.getCaptureTime());
+        Assert.assertFalse(record.hasExposureTime());
+        Assert.assertTrue(Double.isNaN(record.getExposureTimeSeconds()));
+        Assert.assertFalse(record.hasFNumber());
+        Assert.assertTrue(Float.isNaN(record.getFNumber()));
+        Assert.assertFalse(record.hasGPS());
+        Assert.assertTrue(Double.isNaN(record.getGPSLatitude()));
+        Assert.assertTrue(Double.isNaN(record.getGPSLongitude()));
+        Assert.assertEquals(ExifRecord.SIZE, record.estimateSize());
+    }
+}
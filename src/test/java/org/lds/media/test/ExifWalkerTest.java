@@ -0,0 +1,102 @@
+package org.lds.media.test;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.lds.media.exif.ExifWalker;
+import org.lds.media.tiff.TagValue;
+import org.lds.media.tiff.TagVisitor;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class ExifWalkerTest {
+
+    /**
+     * Records visitIFD, visitTag and endIFD calls as "ifd 0", "0:10f" and "end 0"; skips the directories in
+     * {@code rejected}.
+     */
+    private static class Recorder implements TagVisitor {
+        final List<String> events = new ArrayList<String>();
+        private final List<Integer> rejected;
+
+        Recorder(Integer... rejected) {
+            this.rejected = Arrays.asList(rejected);
+        }
+
+        @Override
+        public boolean visitIFD(int directory, long offset, int entryCount) {
+            events.add("ifd " + directory);
+            return !rejected.contains(directory);
+        }
+
+        @Override
+        public void visitTag(int directory, int tag, int type, int count, TagValue value) throws IOException {
+            events.add(directory + ":" + Integer.toHexString(tag));
+        }
+
+        @Override
+        public void endIFD(int directory) {
+            events.add("end " + directory);
+        }
+    }
+
+    /**
+     * IFD0 with Exif and GPS pointers and an IFD1; the Exif IFD holds an interoperability pointer and a Nikon maker
+     * note.
+     */
+    private static File tiff(ByteOrder order) throws IOException {
+        Synthetic.Ifd exif = new Synthetic.Ifd(order)
+                .rationals(0x829a, 1, 250)
+                .bytes(0x927c, 7, Synthetic.nikonMakerNote(new Synthetic.Ifd(order)
+                        .rationals(0x84, 24, 1, 70, 1, 28, 10, 28, 10)))
+                .pointer(0xa005, new Synthetic.Ifd(order).ascii(0x1, "R98"));
+        Synthetic.Ifd gps = new Synthetic.Ifd(order).ascii(0x1, "N");
+        return Synthetic.write(new Synthetic.Ifd(order)
+                .ascii(0x10f, "NIKON CORPORATION")
+                .pointer(0x8769, exif)
+                .pointer(0x8825, gps)
+                .next(new Synthetic.Ifd(order).longs(0x103, 6))
+                .toTIFF());
+    }
+
+    @Test
+    public void testVisitOrder() throws Exception {
+        ByteOrder[] orders = {ByteOrder.LITTLE_ENDIAN, ByteOrder.BIG_ENDIAN};
+        for (ByteOrder order : orders) {
+            File file = tiff(order);
+            try {
+                Recorder recorder = new Recorder();
+                Assert.assertTrue(ExifWalker.walk(file, recorder));
+                Assert.assertEquals(Arrays.asList(
+                        "ifd 0", "0:10f", "0:8769", "0:8825", "end 0",
+                        "ifd 1", "1:103", "end 1",
+                        "ifd 2", "2:829a", "2:927c", "2:a005", "end 2",
+                        "ifd 3", "3:1", "end 3",
+                        "ifd 4", "4:1", "end 4",
+                        "ifd 5", "5:84", "end 5"), recorder.events);
+            } finally {
+                file.delete();
+            }
+        }
+    }
+
+    @Test
+    public void testRejectedDirectories() throws Exception {
+        File file = tiff(ByteOrder.BIG_ENDIAN);
+        try {
+            // pointers in rejected IFD0 and Exif IFDs are still followed
+            Recorder recorder = new Recorder(TagVisitor.IFD0, TagVisitor.IFD1, TagVisitor.EXIF, TagVisitor.GPS_INFO);
+            Assert.assertTrue(ExifWalker.walk(file, recorder));
+            Assert.assertEquals(Arrays.asList(
+                    "ifd 0", "ifd 1", "ifd 2", "ifd 3",
+                    "ifd 4", "4:1", "end 4",
+                    "ifd 5", "5:84", "end 5"), recorder.events);
+        } finally {
+            file.delete();
+        }
+    }
+}
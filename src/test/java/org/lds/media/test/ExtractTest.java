@@ -0,0 +1,167 @@
+package org.lds.media.test;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+import org.lds.media.cli.Extract;
+import org.lds.media.exif.ExifColumnReader;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class ExtractTest {
+
+    private static File directory(int photos) throws IOException {
+        File directory = File.createTempFile("extract", "");
+        Assert.assertTrue(directory.delete() && directory.mkdir());
+        Random random = new Random(32);
+        for (int i = 0; i < photos; i++) {
+            Assert.assertTrue(Synthetic.write(Synthetic.photo(random, i)).renameTo(
+                    new File(directory, String.format("IMG_%04d.JPG", i))));
+        }
+        return directory;
+    }
+
+    private static void delete(File directory) {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    private static List<String> lines(File file) throws IOException {
+        List<String> lines = new ArrayList<String>();
+        BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+        try {
+            for (String line = in.readLine(); line != null; line = in.readLine()) {
+                lines.add(line);
+            }
+        } finally {
+            in.close();
+        }
+        return lines;
+    }
+
+    private static Extract parse(List<File> paths, String... args) {
+        return Extract.parse(args, paths);
+    }
+
+    @Test
+    public void testParseArguments() {
+        List<File> paths = new ArrayList<File>();
+        Assert.assertNotNull(parse(paths, "-t", "2", "-io", "mmap", "-f", "csv", "-o", "out.csv", "-z", "-d", "a", "b"));
+        Assert.assertEquals(2, paths.size());
+        Assert.assertNotNull(parse(new ArrayList<File>(), "-f", "columnar", "a"));
+        Assert.assertNull(parse(new ArrayList<File>(), "-f", "xml", "a"));
+        Assert.assertNull(parse(new ArrayList<File>(), "-io", "nio", "a"));
+        Assert.assertNull(parse(new ArrayList<File>(), "-t", "0", "a"));
+        Assert.assertNull(parse(new ArrayList<File>(), "-t", "many", "a"));
+        Assert.assertNull(parse(new ArrayList<File>(), "-x", "a"));
+        Assert.assertNull(parse(new ArrayList<File>(), "-d"));
+    }
+
+    @Test
+    public void testCsv() throws Exception {
+        File directory = directory(6);
+        File output = File.createTempFile("extract", ".csv");
+        try {
+            Assert.assertTrue(Synthetic.write(Synthetic.bytes("not an image")).renameTo(new File(directory, "notes.txt")));
+            byte[] broken = Synthetic.jpeg(Synthetic.exifSegment(Synthetic.bytes("MM\0*\0\0\u00ff\u00ff")));
+            Assert.assertTrue(Synthetic.write(broken).renameTo(new File(directory, "broken.jpg")));
+            List<File> paths = new ArrayList<File>();
+            Extract extract = parse(paths, "-t", "3", "-f", "csv", "-o", output.getPath(), directory.getPath());
+            ByteArrayOutputStream report = new ByteArrayOutputStream();
+            extract.run(paths, new PrintStream(report, true, "UTF-8"));
+
+            List<String> lines = lines(output);
+            Assert.assertEquals(1 + 7, lines.size());
+            Assert.assertTrue(lines.get(0).startsWith("path,size,format,make,model,"));
+            int nikon = 0;
+            int errors = 0;
+            for (String line : lines.subList(1, lines.size())) {
+                nikon += line.contains(",NIKON CORPORATION,NIKON D850,") ? 1 : 0;
+                errors += line.contains("broken.jpg") && line.contains("ParseLimitException") ? 1 : 0;
+            }
+            Assert.assertEquals(4, nikon);
+            Assert.assertEquals(1, errors);
+            Assert.assertTrue(report.toString("UTF-8").startsWith("files: 7, errors: 1,"));
+        } finally {
+            output.delete();
+            delete(directory);
+        }
+    }
+
+    @Test
+    public void testColumnar() throws Exception {
+        File directory = directory(2);
+        File output = File.createTempFile("extract", ".ldsc");
+        try {
+            byte[] broken = Synthetic.jpeg(Synthetic.exifSegment(Synthetic.bytes("MM\0*\0\0\u00ff\u00ff")));
+            Assert.assertTrue(Synthetic.write(broken).renameTo(new File(directory, "broken.jpg")));
+            byte[] video = Synthetic.concat(
+                    Synthetic.box("ftyp", Synthetic.bytes("isom"), new byte[4], Synthetic.bytes("mp41")),
+                    Synthetic.box("free", new byte[8]));
+            Assert.assertTrue(Synthetic.write(video).renameTo(new File(directory, "clip.mp4")));
+            List<File> paths = new ArrayList<File>();
+            parse(paths, "-t", "2", "-f", "columnar", "-o", output.getPath(), directory.getPath())
+                    .run(paths, new PrintStream(new ByteArrayOutputStream()));
+
+            ExifColumnReader reader = ExifColumnReader.open(output);
+            try {
+                Assert.assertEquals(4, reader.getRowCount());
+                ExifColumnReader.RowGroup rows = reader.read(0, ExifColumnReader.ALL);
+                for (int i = 0; i < rows.size(); i++) {
+                    String name = new File(rows.getPath(i)).getName();
+                    Assert.assertEquals(name, name.equals("broken.jpg"), rows.isFailed(i));
+                    Assert.assertEquals(name, name.equals("clip.mp4"), rows.isNotPhoto(i));
+                    Assert.assertEquals(name, name.startsWith("IMG_"), rows.hasRecord(i));
+                }
+            } finally {
+                reader.close();
+            }
+        } finally {
+            output.delete();
+            delete(directory);
+        }
+    }
+
+    @Test
+    public void testWriteFailure() throws Exception {
+        File full = new File("/dev/full");
+        Assume.assumeTrue(full.exists());
+        // enough rows to overflow the writer's buffer mid-run, with a queue far smaller than the input
+        final File directory = directory(1200);
+        try {
+            final List<File> paths = new ArrayList<File>();
+            final Extract extract = parse(paths, "-t", "2", "-f", "jsonl", "-o", full.getPath(), directory.getPath());
+            final Throwable[] thrown = new Throwable[1];
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        extract.run(paths, new PrintStream(new ByteArrayOutputStream()));
+                    } catch (Throwable e) {
+                        thrown[0] = e;
+                    }
+                }
+            });
+            thread.start();
+            thread.join(60000);
+            Assert.assertFalse(thread.isAlive());
+            Assert.assertTrue(String.valueOf(thrown[0]), thrown[0] instanceof IOException);
+        } finally {
+            delete(directory);
+        }
+    }
+}
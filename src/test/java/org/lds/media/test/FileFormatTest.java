@@ -0,0 +1,48 @@
+package org.lds.media.test;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.lds.media.FileFormat;
+
+public class FileFormatTest {
+
+    private static byte[] ftyp(String majorBrand, String... compatibleBrands) {
+        byte[] b = new byte[16 + compatibleBrands.length * 4];
+        b[3] = (byte) b.length;
+        put(b, 4, "ftyp");
+        put(b, 8, majorBrand);
+        for (int i = 0; i < compatibleBrands.length; i++) {
+            put(b, 16 + i * 4, compatibleBrands[i]);
+        }
+        return b;
+    }
+
+    private static void put(byte[] b, int off, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            b[off + i] = (byte) value.charAt(i);
+        }
+    }
+
+    private static int detect(byte[] b) {
+        return FileFormat.detect(b, b.length);
+    }
+
+    @Test
+    public void testDetect() {
+        Assert.assertEquals(FileFormat.JPEG, detect(new byte[]{(byte) 0xff, (byte) 0xd8, (byte) 0xff, (byte) 0xe1}));
+        Assert.assertEquals(FileFormat.TIFF, detect(new byte[]{0x49, 0x49, 0x2a, 0x00, 0x08, 0x00, 0x00, 0x00}));
+        Assert.assertEquals(FileFormat.TIFF, detect(new byte[]{0x4d, 0x4d, 0x00, 0x2a, 0x00, 0x00, 0x00, 0x08}));
+        Assert.assertEquals(FileFormat.PNG, detect(new byte[]{(byte) 0x89, 0x50, 0x4e, 0x47, 0x0d, 0x0a, 0x1a, 0x0a}));
+        byte[] webp = new byte[12];
+        put(webp, 0, "RIFF");
+        put(webp, 8, "WEBP");
+        Assert.assertEquals(FileFormat.WEBP, detect(webp));
+        Assert.assertEquals(FileFormat.HEIF, detect(ftyp("heic", "mif1", "heic")));
+        Assert.assertEquals(FileFormat.HEIF, detect(ftyp("mif1", "heix")));
+        Assert.assertEquals(FileFormat.HEIF, detect(ftyp("msf1", "iso8")));
+        Assert.assertEquals(FileFormat.HEIF, detect(ftyp("iso8", "mif1")));
+        Assert.assertEquals(FileFormat.MP4, detect(ftyp("isom", "iso2", "avc1", "mp41")));
+        Assert.assertEquals(FileFormat.QUICKTIME, detect(ftyp("qt  ", "qt  ")));
+        Assert.assertEquals(FileFormat.UNKNOWN, detect(new byte[]{0x47, 0x49, 0x46, 0x38, 0x39, 0x61}));
+    }
+}
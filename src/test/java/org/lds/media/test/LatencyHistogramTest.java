@@ -0,0 +1,43 @@
+package org.lds.media.test;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.lds.media.cli.LatencyHistogram;
+
+import java.util.Arrays;
+import java.util.Random;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Assert.assertEquals(0, histogram.percentile(50));
+        Random random = new Random(1);
+        long[] values = new long[100000];
+        for (int i = 0; i < values.length; i++) {
+            // from a microsecond to about a second, log-uniform like real per-file latencies
+            values[i] = (long) Math.pow(10, 3 + random.nextDouble() * 6);
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+        Assert.assertEquals(values.length, histogram.getCount());
+        int[] percentiles = {0, 50, 90, 99, 100};
+        for (int p : percentiles) {
+            long exact = values[Math.min(values.length - 1, values.length * p / 100)];
+            long estimate = histogram.percentile(p);
+            Assert.assertTrue(p + ": " + estimate + " vs " + exact, estimate >= exact && estimate <= exact * 1.125);
+        }
+    }
+
+    @Test
+    public void testSmallAndExtremeValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(5);
+        Assert.assertEquals(5, histogram.percentile(50));
+        histogram.record(-1);
+        Assert.assertEquals(0, histogram.percentile(0));
+        histogram.record(Long.MAX_VALUE);
+        Assert.assertEquals(Long.MAX_VALUE, histogram.percentile(100));
+    }
+}
@@ -0,0 +1,222 @@
+package org.lds.media.test;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.lds.media.ParseBudget;
+import org.lds.media.ParseLimitException;
+import org.lds.media.exif.Exif;
+import org.lds.media.exif.ExifWalker;
+import org.lds.media.tiff.TagValue;
+import org.lds.media.tiff.TagVisitor;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ParseBudgetTest {
+
+    @Test
+    public void testTracker() throws Exception {
+        ParseBudget.Tracker tracker = new ParseBudget(100, 3, 10, 2, 0).start();
+        tracker.visitIFD(8);
+        tracker.visitIFD(100);
+        try {
+            tracker.visitIFD(8);
+            Assert.fail();
+        } catch (ParseLimitException e) {
+            Assert.assertEquals(ParseLimitException.CYCLE, e.getReason());
+        }
+        tracker.visitIFD(200);
+        try {
+            tracker.visitIFD(300);
+            Assert.fail();
+        } catch (ParseLimitException e) {
+            Assert.assertEquals(ParseLimitException.IFD_COUNT, e.getReason());
+        }
+        tracker.checkValueSize(10);
+        try {
+            tracker.checkValueSize(11);
+            Assert.fail();
+        } catch (ParseLimitException e) {
+            Assert.assertEquals(ParseLimitException.VALUE_SIZE, e.getReason());
+        }
+        tracker.segment();
+        tracker.segment();
+        try {
+            tracker.segment();
+            Assert.fail();
+        } catch (ParseLimitException e) {
+            Assert.assertEquals(ParseLimitException.SEGMENT_COUNT, e.getReason());
+        }
+        tracker.read(100);
+        try {
+            tracker.read(1);
+            Assert.fail();
+        } catch (ParseLimitException e) {
+            Assert.assertEquals(ParseLimitException.BYTES_READ, e.getReason());
+        }
+        try {
+            tracker.checkRange(90, 12, 100);
+            Assert.fail();
+        } catch (ParseLimitException e) {
+            Assert.assertEquals(ParseLimitException.OUT_OF_BOUNDS, e.getReason());
+        }
+    }
+
+    @Test
+    public void testFreeze() throws Exception {
+        ParseBudget.Tracker tracker = new ParseBudget(100, 3, 10, 2, 1).start();
+        tracker.read(100);
+        tracker.freeze();
+        tracker.read(1000);
+        Assert.assertEquals(1100, tracker.getBytesRead());
+        Thread.sleep(5);
+        tracker.checkTime();
+        try {
+            tracker.checkValueSize(11);
+            Assert.fail();
+        } catch (ParseLimitException e) {
+            Assert.assertEquals(ParseLimitException.VALUE_SIZE, e.getReason());
+        }
+    }
+
+    @Test
+    public void testGettersAfterParse() throws Exception {
+        StringBuilder make = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            make.append('x');
+        }
+        File file = Synthetic.write(new Synthetic.Ifd(ByteOrder.BIG_ENDIAN).ascii(0x10f, make.toString()).toTIFF());
+        try {
+            // the parse fits in 1000 bytes; the getters afterwards read far more than that
+            Exif exif = Exif.parse(file, new ParseBudget(1000, 16, 1 << 16, 100, 0));
+            for (int i = 0; i < 50; i++) {
+                Assert.assertEquals(make.toString(), exif.getMake());
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    private static final ParseBudget SMALL = new ParseBudget(1 << 20, 16, 1 << 16, 100, 0);
+
+    /**
+     * Parses {@code data} and reads the make and exposure time, or returns the reason of the parse limit hit.
+     */
+    private static int parse(byte[] data) throws Exception {
+        File file = Synthetic.write(data);
+        try {
+            Exif exif = Exif.parse(file, SMALL);
+            exif.getMake();
+            exif.getExposureTime();
+            return 0;
+        } catch (ParseLimitException e) {
+            return e.getReason();
+        } finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * IFD0 (Make, Exif pointer) and an Exif IFD, with IFD0's next pointer set to {@code next}.
+     */
+    private static byte[] tiff(long next) {
+        byte[] tiff = new Synthetic.Ifd(ByteOrder.BIG_ENDIAN)
+                .ascii(0x10f, "Camera")
+                .pointer(0x8769, new Synthetic.Ifd(ByteOrder.BIG_ENDIAN).rationals(0x829a, 1, 250))
+                .toTIFF();
+        ByteBuffer b = ByteBuffer.wrap(tiff);
+        b.putInt(8 + 2 + 12 * 2, next < 0 ? b.getInt(8 + 2 + 12 + 8) : (int) next);
+        return tiff;
+    }
+
+    @Test
+    public void testIFD1Cycle() throws Exception {
+        // next pointer back to IFD0, or at the Exif IFD: no IFD1, everything else intact
+        long[] nexts = {8, -1};
+        for (long next : nexts) {
+            File file = Synthetic.write(Synthetic.jpeg(Synthetic.exifSegment(tiff(next))));
+            try {
+                Exif exif = Exif.parse(file);
+                Assert.assertEquals("Camera", exif.getMake());
+                Assert.assertEquals("1/250", exif.getExposureTime());
+                Assert.assertEquals(0, exif.getThumbnailHash());
+
+                final List<Integer> directories = new ArrayList<Integer>();
+                Assert.assertTrue(ExifWalker.walk(file, new TagVisitor() {
+                    @Override
+                    public boolean visitIFD(int directory, long offset, int entryCount) {
+                        directories.add(directory);
+                        return true;
+                    }
+
+                    @Override
+                    public void visitTag(int directory, int tag, int type, int count, TagValue value) {
+                    }
+
+                    @Override
+                    public void endIFD(int directory) {
+                    }
+                }));
+                Assert.assertEquals(2, directories.size());
+                Assert.assertEquals(Integer.valueOf(TagVisitor.IFD0), directories.get(0));
+                Assert.assertEquals(Integer.valueOf(TagVisitor.EXIF), directories.get(1));
+            } finally {
+                file.delete();
+            }
+        }
+    }
+
+    @Test
+    public void testSelfPointingIFD() throws Exception {
+        byte[] tiff = new Synthetic.Ifd(ByteOrder.LITTLE_ENDIAN).ascii(0x10f, "Cam").longs(0x8769, 8).toTIFF();
+        Assert.assertEquals(ParseLimitException.CYCLE, parse(Synthetic.jpeg(Synthetic.exifSegment(tiff))));
+    }
+
+    @Test
+    public void testHugeEntryCount() throws Exception {
+        ByteBuffer b = ByteBuffer.allocate(64);
+        b.put(Synthetic.bytes("MM")).putShort((short) 42).putInt(8).putShort((short) 0xffff);
+        Assert.assertEquals(ParseLimitException.OUT_OF_BOUNDS, parse(b.array()));
+    }
+
+    @Test
+    public void testOutOfRangeValueOffset() throws Exception {
+        ByteBuffer b = ByteBuffer.allocate(64);
+        b.put(Synthetic.bytes("MM")).putShort((short) 42).putInt(8).putShort((short) 2);
+        b.putShort((short) 0x10f).putShort((short) 2).putInt(100).putInt(0x7ffffff0);
+        b.putShort((short) 0x110).putShort((short) 12).putInt(0x40000000).putInt(16);
+        Assert.assertEquals(ParseLimitException.OUT_OF_BOUNDS, parse(b.array()));
+
+        File file = Synthetic.write(b.array());
+        try {
+            // the huge DOUBLE count is refused before any range check or allocation
+            Exif.parse(file, SMALL).getModel();
+            Assert.fail();
+        } catch (ParseLimitException e) {
+            Assert.assertEquals(ParseLimitException.VALUE_SIZE, e.getReason());
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testEndlessSegments() throws Exception {
+        byte[][] segments = new byte[SMALL.getMaxSegmentCount() + 1][];
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = Synthetic.segment(0xe0);
+        }
+        Assert.assertEquals(ParseLimitException.SEGMENT_COUNT, parse(Synthetic.jpeg(segments)));
+
+        // a segment length under 2 would step back onto its own marker
+        File file = Synthetic.write(Synthetic.concat(new byte[]{(byte) 0xff, (byte) 0xd8, (byte) 0xff, (byte) 0xe0, 0, 0},
+                Synthetic.exifSegment(tiff(0))));
+        try {
+            Assert.assertNull(Exif.parse(file, SMALL));
+        } finally {
+            file.delete();
+        }
+    }
+}
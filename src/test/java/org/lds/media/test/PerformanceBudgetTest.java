@@ -0,0 +1,214 @@
+package org.lds.media.test;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+import org.lds.io.AbstractSeekableBinaryReader;
+import org.lds.media.ParseBudget;
+import org.lds.media.exif.Exif;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.nio.ByteOrder;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.Random;
+
+/**
+ * Guards the hot path against quiet regressions: parses a synthetic JPEG corpus, calls the common getters, and
+ * fails if reads, seeks, bytes read or allocated bytes per file exceed the budgets in budgets.properties.
+ */
+public class PerformanceBudgetTest {
+
+    private static final int CORPUS_SIZE = 64;
+    private static final int WARM_UP_ROUNDS = 200;
+    private static final int ROUNDS = 50;
+
+    /**
+     * In-memory reader that counts every read call, seek and byte delivered.
+     */
+    private static class CountingReader extends AbstractSeekableBinaryReader {
+        private final byte[] data;
+        private int position;
+        long reads;
+        long seeks;
+        long bytes;
+
+        CountingReader(byte[] data) {
+            this.data = data;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (position >= data.length) {
+                throw new EOFException();
+            }
+            int n = Math.min(len, data.length - position);
+            System.arraycopy(data, position, b, off, n);
+            position += n;
+            reads++;
+            bytes += n;
+            return n;
+        }
+
+        @Override
+        public void seek(long position) throws IOException {
+            if (position < 0 || position > data.length) {
+                throw new EOFException();
+            }
+            this.position = (int) position;
+            seeks++;
+        }
+
+        @Override
+        public long getPosition() {
+            return position;
+        }
+
+        @Override
+        public long getLength() {
+            return data.length;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static void parse(CountingReader reader) throws IOException {
+        Exif exif = Exif.parse(reader, ParseBudget.DEFAULT.start());
+        Assert.assertNotNull(exif);
+        Assert.assertNotNull(exif.getMake());
+        exif.getModel();
+        Assert.assertTrue(exif.getCaptureTime() != Long.MIN_VALUE);
+        Assert.assertNotNull(exif.getExposureTime());
+        exif.getFNumber();
+        Assert.assertNotNull(exif.getGPSLatitude());
+        exif.getGPSLongitude();
+        exif.getLens();
+    }
+
+    private static long allocatedBytes(ThreadMXBean bean) {
+        try {
+            Method method = Class.forName("com.sun.management.ThreadMXBean")
+                    .getMethod("getThreadAllocatedBytes", long.class);
+            return (Long) method.invoke(bean, Thread.currentThread().getId());
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    private static Properties budgets() throws IOException {
+        Properties properties = new Properties();
+        InputStream in = PerformanceBudgetTest.class.getResourceAsStream("/budgets.properties");
+        Assert.assertTrue("budgets.properties not found", in != null);
+        try {
+            properties.load(in);
+        } finally {
+            in.close();
+        }
+        return properties;
+    }
+
+    private static void check(Properties budgets, String key, double actual) {
+        long budget = Long.parseLong(budgets.getProperty(key).trim());
+        Assert.assertTrue(key + " " + actual + " exceeds budget " + budget, actual <= budget);
+    }
+
+    @Test
+    public void testExifBudgets() throws Exception {
+        Properties budgets = budgets();
+        Random random = new Random(44);
+        byte[][] corpus = new byte[CORPUS_SIZE][];
+        for (int i = 0; i < corpus.length; i++) {
+            corpus[i] = Synthetic.photo(random, i);
+        }
+        CountingReader[] readers = new CountingReader[corpus.length];
+        for (int round = 0; round < WARM_UP_ROUNDS; round++) {
+            for (int i = 0; i < corpus.length; i++) {
+                readers[i] = new CountingReader(corpus[i]);
+                parse(readers[i]);
+            }
+        }
+        long reads = 0;
+        long seeks = 0;
+        long bytes = 0;
+        for (CountingReader reader : readers) {
+            reads += reader.reads;
+            seeks += reader.seeks;
+            bytes += reader.bytes;
+        }
+        check(budgets, "exif.readsPerFile", (double) reads / corpus.length);
+        check(budgets, "exif.seeksPerFile", (double) seeks / corpus.length);
+        check(budgets, "exif.bytesReadPerFile", (double) bytes / corpus.length);
+
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        CountingReader[] fresh = new CountingReader[corpus.length];
+        for (int i = 0; i < corpus.length; i++) {
+            fresh[i] = new CountingReader(corpus[i]);
+        }
+        long before = allocatedBytes(bean);
+        Assume.assumeTrue("com.sun.management.ThreadMXBean is not available", before >= 0);
+        for (int round = 0; round < ROUNDS; round++) {
+            for (int i = 0; i < corpus.length; i++) {
+                fresh[i].seek(0);
+                parse(fresh[i]);
+            }
+        }
+        long allocated = allocatedBytes(bean) - before;
+        check(budgets, "exif.allocatedBytesPerFile", (double) allocated / (ROUNDS * corpus.length));
+    }
+
+    private static Exif nikon(ByteOrder order, long exposureNumerator, long exposureDenominator, long... lens)
+            throws Exception {
+        Synthetic.Ifd exif = new Synthetic.Ifd(order)
+                .rationals(0x829a, exposureNumerator, exposureDenominator)
+                .bytes(0x927c, 7, Synthetic.nikonMakerNote(new Synthetic.Ifd(order).rationals(0x84, lens)));
+        File file = Synthetic.write(new Synthetic.Ifd(order)
+                .ascii(0x10f, "NIKON CORPORATION")
+                .pointer(0x8769, exif)
+                .toTIFF());
+        try {
+            return Exif.parse(file);
+        } finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * The getters format without DecimalFormat, so pin their output: "#0.###" rounding half up and a '.' separator
+     * whatever the default locale.
+     */
+    @Test
+    public void testFormattedGetters() throws Exception {
+        Locale locale = Locale.getDefault();
+        Locale.setDefault(Locale.GERMANY);
+        try {
+            Exif exif = nikon(ByteOrder.BIG_ENDIAN, 5, 2, 24, 1, 70, 1, 28, 10, 28, 10);
+            Assert.assertEquals("2.5", exif.getExposureTime());
+            Assert.assertEquals("24-70mm f/2.8", exif.getLens());
+
+            exif = nikon(ByteOrder.LITTLE_ENDIAN, 1, 250, 50, 1, 50, 1, 14, 10, 56, 10);
+            Assert.assertEquals("1/250", exif.getExposureTime());
+            Assert.assertEquals("50mm f/1.4-5.6", exif.getLens());
+
+            exif = nikon(ByteOrder.BIG_ENDIAN, 41, 16, 105, 1, 105, 1, 45, 16, 4, 1);
+            Assert.assertEquals("2.563", exif.getExposureTime());
+            Assert.assertEquals("105mm f/2.813-4", exif.getLens());
+
+            exif = nikon(ByteOrder.BIG_ENDIAN, 30, 1, 10, 1, 20, 1, 4, 1, 4, 1);
+            Assert.assertEquals("30", exif.getExposureTime());
+            Assert.assertEquals("10-20mm f/4", exif.getLens());
+        } finally {
+            Locale.setDefault(locale);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package org.lds.media.test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.Assert;
+import org.junit.Test;
+import org.lds.media.io.HttpRangeFetcher;
+import org.lds.media.io.RangeBinaryReader;
+import org.lds.media.io.RangeFetcher;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+public class RangeBinaryReaderTest {
+
+    /**
+     * In-memory object that serves every fetch in one call and only reports its length after the first fetch.
+     */
+    private static class ArrayFetcher implements RangeFetcher {
+        private final byte[] data;
+        private boolean fetched;
+        int calls;
+
+        ArrayFetcher(byte[] data) {
+            this.data = data;
+        }
+
+        @Override
+        public long getLength() {
+            return fetched ? data.length : -1;
+        }
+
+        @Override
+        public int fetch(long offset, byte[] buf, int off, int len) {
+            fetched = true;
+            calls++;
+            int n = (int) Math.max(0, Math.min(len, data.length - offset));
+            System.arraycopy(data, (int) Math.min(offset, data.length), buf, off, n);
+            return n;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * Serves {@code data} at /object, adding the address of each client connection to {@code clients}.
+     */
+    private static HttpServer serve(final byte[] data, final Set<InetSocketAddress> clients) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/object", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                clients.add(exchange.getRemoteAddress());
+                String range = exchange.getRequestHeaders().getFirst("Range");
+                int start = 0;
+                int end = data.length - 1;
+                if (range != null && range.startsWith("bytes=")) {
+                    String[] bounds = range.substring(6).split("-");
+                    start = Integer.parseInt(bounds[0]);
+                    end = Math.min(end, Integer.parseInt(bounds[1]));
+                    exchange.getResponseHeaders().set("Content-Range", "bytes " + start + "-" + end + "/" + data.length);
+                    exchange.sendResponseHeaders(206, end - start + 1);
+                } else {
+                    exchange.sendResponseHeaders(200, data.length);
+                }
+                OutputStream out = exchange.getResponseBody();
+                out.write(data, start, end - start + 1);
+                out.close();
+            }
+        });
+        server.start();
+        return server;
+    }
+
+    @Test
+    public void testRead() throws Exception {
+        byte[] data = new byte[1000000];
+        new Random(1).nextBytes(data);
+        Set<InetSocketAddress> clients = Collections.synchronizedSet(new HashSet<InetSocketAddress>());
+        HttpServer server = serve(data, clients);
+        try {
+            URL url = new URL("http://127.0.0.1:" + server.getAddress().getPort() + "/object");
+            RangeBinaryReader reader = new RangeBinaryReader(new HttpRangeFetcher(url), 4096, 16, 8);
+            try {
+                Assert.assertEquals(data.length, reader.getLength());
+                Assert.assertEquals(1, reader.getRequestCount());
+
+                byte[] buf = new byte[100];
+                reader.seek(10);
+                reader.read(buf, 0, buf.length);
+                Assert.assertEquals(1, reader.getRequestCount());
+                assertRange(data, 10, buf);
+
+                buf = new byte[10000];
+                reader.seek(500000);
+                reader.read(buf, 0, buf.length);
+                Assert.assertEquals(2, reader.getRequestCount());
+                assertRange(data, 500000, buf);
+
+                Random random = new Random(2);
+                for (int i = 0; i < 200; i++) {
+                    int offset = random.nextInt(data.length - 1);
+                    buf = new byte[Math.min(data.length - offset, random.nextInt(20000) + 1)];
+                    reader.seek(offset);
+                    Assert.assertEquals(buf.length, reader.read(buf, 0, buf.length));
+                    assertRange(data, offset, buf);
+                }
+                // every range request went over the one kept-alive connection
+                Assert.assertEquals(1, clients.size());
+            } finally {
+                reader.close();
+            }
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void testReadLargerThanCache() throws Exception {
+        byte[] data = new byte[1 << 20];
+        new Random(3).nextBytes(data);
+        ArrayFetcher fetcher = new ArrayFetcher(data);
+        RangeBinaryReader reader = new RangeBinaryReader(fetcher, 4096, 16, 8);
+        Assert.assertEquals(data.length, reader.getLength());
+        Assert.assertEquals(1, reader.getRequestCount());
+        long fetched = reader.getBytesFetched();
+
+        // block 40 cached first; the 64-block read around it fetches the two uncached runs once each
+        reader.seek(40 * 4096 + 10);
+        reader.read(new byte[10], 0, 10);
+        Assert.assertEquals(2, reader.getRequestCount());
+        Assert.assertEquals(fetched + 4096, reader.getBytesFetched());
+        fetched = reader.getBytesFetched();
+
+        byte[] buf = new byte[64 * 4096];
+        reader.seek(4096 + 100);
+        Assert.assertEquals(buf.length, reader.read(buf, 0, buf.length));
+        assertRange(data, 4096 + 100, buf);
+        Assert.assertEquals(4, reader.getRequestCount());
+        Assert.assertEquals(fetched + buf.length - 4096, reader.getBytesFetched());
+
+        // a read far larger than the cache is one request, no matter how many blocks it spans
+        buf = new byte[200 * 4096 - 1];
+        reader.seek(data.length - buf.length);
+        Assert.assertEquals(buf.length, reader.read(buf, 0, buf.length));
+        assertRange(data, data.length - buf.length, buf);
+        Assert.assertEquals(5, reader.getRequestCount());
+        Assert.assertEquals(fetcher.calls, reader.getRequestCount());
+        reader.close();
+    }
+
+    @Test
+    public void testShortObject() throws Exception {
+        byte[] data = new byte[1000];
+        new Random(4).nextBytes(data);
+        ArrayFetcher fetcher = new ArrayFetcher(data);
+        RangeBinaryReader reader = new RangeBinaryReader(fetcher, 4096, 16, 8);
+        // the short first fetch is the end of the object, so nothing is fetched past it
+        Assert.assertEquals(data.length, reader.getLength());
+        Assert.assertEquals(1, reader.getRequestCount());
+        Assert.assertEquals(1, fetcher.calls);
+        Assert.assertEquals(data.length, reader.getBytesFetched());
+        byte[] buf = new byte[data.length];
+        Assert.assertEquals(buf.length, reader.read(buf, 0, buf.length));
+        assertRange(data, 0, buf);
+        Assert.assertEquals(1, reader.getRequestCount());
+        reader.close();
+    }
+
+    private static void assertRange(byte[] data, int offset, byte[] actual) {
+        byte[] expected = new byte[actual.length];
+        System.arraycopy(data, offset, expected, 0, expected.length);
+        Assert.assertArrayEquals(expected, actual);
+    }
+}
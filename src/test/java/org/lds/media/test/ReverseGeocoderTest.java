@@ -0,0 +1,76 @@
+package org.lds.media.test;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.lds.media.gps.GeodeticPoint;
+import org.lds.media.gps.ReverseGeocoder;
+
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+
+public class ReverseGeocoderTest {
+
+    private static final String PLACES = ""
+            + "2147714\tSydney\tSydney\t\t-33.86785\t151.20732\tP\tPPLA\tAU\n"
+            + "5128581\tNew York City\tNew York City\t\t40.71427\t-74.00597\tP\tPPL\tUS\n"
+            + "1816670\tBeijing\tBeijing\t\t39.9075\t116.39723\tP\tPPLC\tCN\n"
+            + "1814991\tTiananmen\tTiananmen\t\t39.9087\t116.3975\tS\tSQR\tCN\n"
+            + "4031637\tSuva\tSuva\t\t-18.14161\t178.44149\tP\tPPLC\tFJ\n"
+            + "bad line\n";
+
+    @Test
+    public void testLookup() throws Exception {
+        File index = File.createTempFile("places", ".idx");
+        try {
+            ReverseGeocoder.build(new BufferedReader(new StringReader(PLACES)), index, ReverseGeocoder.DEFAULT_CELL_SIZE);
+            ReverseGeocoder geocoder = ReverseGeocoder.load(index);
+            Assert.assertEquals(5, geocoder.size());
+            Assert.assertEquals("Sydney", geocoder.lookup(new GeodeticPoint(-33.9, 151.1), GeodeticPoint.WGS84));
+            Assert.assertEquals("New York City", geocoder.lookup(new GeodeticPoint(41.5, -73.0), GeodeticPoint.WGS84));
+            int fiji = geocoder.find(-18.0, -179.9);
+            Assert.assertEquals("Suva", geocoder.getName(fiji));
+            Assert.assertEquals("FJ", geocoder.getCountryCode(fiji));
+
+            GeodeticPoint square = new GeodeticPoint(39.9087, 116.3975);
+            Assert.assertEquals("Tiananmen", geocoder.lookup(square.fromWGS84ToGCJ02(), GeodeticPoint.GCJ02));
+            Assert.assertEquals("Tiananmen", geocoder.lookup(square.fromWGS84ToGCJ02().fromGCJ02ToBD09(), GeodeticPoint.BD09));
+        } finally {
+            index.delete();
+        }
+    }
+
+    @Test
+    public void testCellSizeLimit() throws Exception {
+        File index = File.createTempFile("places", ".idx");
+        try {
+            // 0.01 degree cells need a 2.6 GB offset table, past what an int offset or one mapping can address
+            try {
+                ReverseGeocoder.build(new BufferedReader(new StringReader(PLACES)), index, 10000);
+                Assert.fail();
+            } catch (IllegalArgumentException expected) {
+            }
+            DataOutputStream out = new DataOutputStream(new FileOutputStream(index));
+            try {
+                out.writeInt(0x4c445347);
+                out.writeInt(1);
+                out.writeInt(10000);
+                out.writeInt(36000);
+                out.writeInt(18000);
+                out.writeInt(0);
+            } finally {
+                out.close();
+            }
+            try {
+                ReverseGeocoder.load(index);
+                Assert.fail();
+            } catch (IOException expected) {
+            }
+        } finally {
+            index.delete();
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package org.lds.media.test;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.lds.media.index.SpaceTimeClustering;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class SpaceTimeClusteringTest {
+
+    private static final long HOUR = 3600000L;
+
+    private static void event(SpaceTimeClustering clustering, Random random, long start, double latitude, double longitude, int n) {
+        for (int i = 0; i < n; i++) {
+            clustering.add(start + i * 60000L, latitude + random.nextGaussian() * 1e-4, longitude + random.nextGaussian() * 1e-4);
+        }
+    }
+
+    @Test
+    public void testClusters() throws Exception {
+        SpaceTimeClustering clustering = new SpaceTimeClustering(500, HOUR, 3);
+        Random random = new Random(1);
+        event(clustering, random, 0, 48.8584, 2.2945, 20);
+        event(clustering, random, 30 * 24 * HOUR, 48.8584, 2.2945, 20);
+        event(clustering, random, 10 * HOUR, -33.8568, 151.2153, 20);
+        int noise = clustering.add(5 * HOUR, 0, 0);
+        clustering.update();
+        int[] labels = new int[clustering.size()];
+        Assert.assertEquals(3, clustering.label(labels));
+        Assert.assertEquals(SpaceTimeClustering.NOISE, labels[noise]);
+        Assert.assertEquals(0, labels[19]);
+        Assert.assertEquals(1, labels[20]);
+        Assert.assertEquals(2, labels[59]);
+
+        // a burst of photos bridging the first two events in time merges them
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            for (long t = 19 * 60000L; t <= 30 * 24 * HOUR; t += HOUR / 2) {
+                clustering.add(t, 48.8584, 2.2945);
+                clustering.add(t, 48.8585, 2.2945);
+            }
+            clustering.update(executor, 4);
+        } finally {
+            executor.shutdown();
+        }
+        labels = new int[clustering.size()];
+        Assert.assertEquals(2, clustering.label(labels));
+        Assert.assertEquals(labels[0], labels[39]);
+        Assert.assertEquals(labels[0], labels[labels.length - 1]);
+        Assert.assertTrue(labels[0] != labels[59]);
+    }
+}
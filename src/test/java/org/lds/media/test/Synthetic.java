@@ -0,0 +1,337 @@
+package org.lds.media.test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.CRC32;
+
+/**
+ * Builders for the synthetic TIFF, JPEG and container files the tests parse, so no test depends on sample images.
+ */
+final class Synthetic {
+
+    /**
+     * An IFD under construction. Values of 4 bytes or less are stored inline, larger ones after the entry table;
+     * child IFDs, blobs and the next IFD are laid out after that, and their offsets patched in.
+     */
+    static class Ifd {
+        private final ByteOrder order;
+        private final List<int[]> entries = new ArrayList<int[]>();
+        private final List<byte[]> values = new ArrayList<byte[]>();
+        private final List<Object> targets = new ArrayList<Object>();
+        private Ifd next;
+
+        Ifd(ByteOrder order) {
+            this.order = order;
+        }
+
+        ByteOrder getOrder() {
+            return order;
+        }
+
+        private ByteBuffer buffer(int length) {
+            return ByteBuffer.allocate(length).order(order);
+        }
+
+        Ifd ascii(int tag, String value) {
+            byte[] b = Arrays.copyOf(Synthetic.bytes(value), value.length() + 1);
+            return add(tag, 2, b.length, b, null);
+        }
+
+        Ifd bytes(int tag, int type, byte[] value) {
+            return add(tag, type, value.length, value, null);
+        }
+
+        Ifd shorts(int tag, int... value) {
+            return shorts(tag, 3, value);
+        }
+
+        Ifd sshorts(int tag, int... value) {
+            return shorts(tag, 8, value);
+        }
+
+        private Ifd shorts(int tag, int type, int[] value) {
+            ByteBuffer b = buffer(value.length * 2);
+            for (int v : value) {
+                b.putShort((short) v);
+            }
+            return add(tag, type, value.length, b.array(), null);
+        }
+
+        Ifd longs(int tag, long... value) {
+            return ints(tag, 4, 1, value);
+        }
+
+        Ifd slongs(int tag, long... value) {
+            return ints(tag, 9, 1, value);
+        }
+
+        /**
+         * Numerator, denominator pairs.
+         */
+        Ifd rationals(int tag, long... value) {
+            return ints(tag, 5, 2, value);
+        }
+
+        Ifd srationals(int tag, long... value) {
+            return ints(tag, 10, 2, value);
+        }
+
+        private Ifd ints(int tag, int type, int perValue, long[] value) {
+            ByteBuffer b = buffer(value.length * 4);
+            for (long v : value) {
+                b.putInt((int) v);
+            }
+            return add(tag, type, value.length / perValue, b.array(), null);
+        }
+
+        Ifd floats(int tag, float... value) {
+            ByteBuffer b = buffer(value.length * 4);
+            for (float v : value) {
+                b.putFloat(v);
+            }
+            return add(tag, 11, value.length, b.array(), null);
+        }
+
+        Ifd doubles(int tag, double... value) {
+            ByteBuffer b = buffer(value.length * 8);
+            for (double v : value) {
+                b.putDouble(v);
+            }
+            return add(tag, 12, value.length, b.array(), null);
+        }
+
+        /**
+         * A LONG entry holding the offset of {@code child}, e.g. the Exif or GPS IFD pointer.
+         */
+        Ifd pointer(int tag, Ifd child) {
+            return add(tag, 4, 1, new byte[4], child);
+        }
+
+        /**
+         * A LONG offset entry and a LONG length entry for {@code data}, e.g. the IFD1 thumbnail.
+         */
+        Ifd blob(int offsetTag, int lengthTag, byte[] data) {
+            add(offsetTag, 4, 1, new byte[4], data);
+            return longs(lengthTag, data.length);
+        }
+
+        Ifd next(Ifd next) {
+            this.next = next;
+            return this;
+        }
+
+        private Ifd add(int tag, int type, int count, byte[] value, Object target) {
+            entries.add(new int[]{tag, type, count});
+            values.add(value);
+            targets.add(target);
+            return this;
+        }
+
+        byte[] toTIFF() {
+            ByteBuffer b = buffer(1 << 16);
+            b.put((byte) (order == ByteOrder.LITTLE_ENDIAN ? 'I' : 'M')).put(b.get(0)).putShort((short) 42).putInt(8);
+            write(b);
+            return Arrays.copyOf(b.array(), b.position());
+        }
+
+        private int write(ByteBuffer b) {
+            int start = b.position();
+            int n = entries.size();
+            b.putShort((short) n);
+            int data = start + 2 + 12 * n + 4;
+            int[] patches = new int[n];
+            for (int i = 0; i < n; i++) {
+                int[] entry = entries.get(i);
+                byte[] value = values.get(i);
+                b.putShort((short) entry[0]).putShort((short) entry[1]).putInt(entry[2]);
+                patches[i] = b.position();
+                if (value.length <= 4 || targets.get(i) != null) {
+                    b.put(Arrays.copyOf(value, 4));
+                } else {
+                    b.putInt(data);
+                    data += value.length + (value.length & 1);
+                }
+            }
+            int nextPatch = b.position();
+            b.putInt(0);
+            for (int i = 0; i < n; i++) {
+                byte[] value = values.get(i);
+                if (value.length > 4 && targets.get(i) == null) {
+                    b.put(value);
+                    if ((value.length & 1) != 0) {
+                        b.put((byte) 0);
+                    }
+                }
+            }
+            for (int i = 0; i < n; i++) {
+                Object target = targets.get(i);
+                if (target instanceof byte[]) {
+                    b.putInt(patches[i], b.position());
+                    b.put((byte[]) target);
+                } else if (target instanceof Ifd) {
+                    b.putInt(patches[i], ((Ifd) target).write(b));
+                }
+            }
+            if (next != null) {
+                b.putInt(nextPatch, next.write(b));
+            }
+            return start;
+        }
+    }
+
+    static byte[] bytes(String latin1) {
+        byte[] b = new byte[latin1.length()];
+        for (int i = 0; i < b.length; i++) {
+            b[i] = (byte) latin1.charAt(i);
+        }
+        return b;
+    }
+
+    static byte[] concat(byte[]... parts) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] part : parts) {
+            out.write(part, 0, part.length);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * A JPEG marker segment; the length field covers itself and the parts.
+     */
+    static byte[] segment(int marker, byte[]... parts) {
+        byte[] data = concat(parts);
+        return concat(new byte[]{(byte) 0xff, (byte) marker, (byte) ((data.length + 2) >> 8), (byte) (data.length + 2)},
+                data);
+    }
+
+    /**
+     * SOI, the given segments, then a start of scan with a few bytes of entropy-coded data and EOI.
+     */
+    static byte[] jpeg(byte[]... segments) {
+        return concat(new byte[]{(byte) 0xff, (byte) 0xd8}, concat(segments),
+                segment(0xda, new byte[10]), new byte[]{(byte) 0xff, (byte) 0xd9});
+    }
+
+    static byte[] exifSegment(byte[] tiff) {
+        return segment(0xe1, bytes("Exif\0\0"), tiff);
+    }
+
+    static byte[] xmpSegment(byte[] packet) {
+        return segment(0xe1, bytes("http://ns.adobe.com/xap/1.0/\0"), packet);
+    }
+
+    /**
+     * A PNG chunk: big-endian length, type, data and the CRC of type and data.
+     */
+    static byte[] pngChunk(String type, byte[] data) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes(type));
+        crc.update(data);
+        ByteBuffer b = ByteBuffer.allocate(12 + data.length);
+        b.putInt(data.length).put(bytes(type)).put(data).putInt((int) crc.getValue());
+        return b.array();
+    }
+
+    /**
+     * The PNG signature, an IHDR, the given chunks and IEND.
+     */
+    static byte[] png(byte[]... chunks) {
+        return concat(new byte[]{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'}, pngChunk("IHDR", new byte[13]),
+                concat(chunks), pngChunk("IEND", new byte[0]));
+    }
+
+    /**
+     * A RIFF chunk: fourcc, little-endian length, data and a pad byte if the length is odd.
+     */
+    static byte[] riffChunk(String fourcc, byte[] data) {
+        ByteBuffer b = ByteBuffer.allocate(8 + data.length + (data.length & 1)).order(ByteOrder.LITTLE_ENDIAN);
+        b.put(bytes(fourcc)).putInt(data.length).put(data);
+        return b.array();
+    }
+
+    static byte[] webp(byte[]... chunks) {
+        byte[] data = concat(bytes("WEBP"), concat(chunks));
+        return riffChunk("RIFF", data);
+    }
+
+    /**
+     * An ISO BMFF box with a 32-bit size.
+     */
+    static byte[] box(String type, byte[]... parts) {
+        byte[] data = concat(parts);
+        return concat(ByteBuffer.allocate(8).putInt(8 + data.length).put(bytes(type)).array(), data);
+    }
+
+    /**
+     * An ISO BMFF full box: version and flags, then the parts.
+     */
+    static byte[] fullBox(String type, int version, int flags, byte[]... parts) {
+        return box(type, ByteBuffer.allocate(4).putInt(version << 24 | flags).array(), concat(parts));
+    }
+
+    /**
+     * A Nikon type 2 maker note: the "Nikon" header followed by a TIFF of its own.
+     */
+    static byte[] nikonMakerNote(Ifd ifd) {
+        return concat(bytes("Nikon\0\2\0\0\0"), ifd.toTIFF());
+    }
+
+    /**
+     * A camera JPEG from a varied corpus: both byte orders, IFD0/Exif/GPS/IFD1 directories with a thumbnail, Nikon
+     * type 2 maker notes with a lens on two files in three, and an XMP packet before the Exif on one in five.
+     */
+    static byte[] photo(Random random, int index) {
+        ByteOrder order = index % 2 == 0 ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN;
+        boolean nikon = index % 3 != 0;
+        Ifd exif = new Ifd(order)
+                .rationals(0x829a, 1, 50 + random.nextInt(2000))
+                .rationals(0x829d, 18 + random.nextInt(200), 10)
+                .ascii(0x9003, "2018:05:13 18:56:04")
+                .ascii(0x9011, "+08:00")
+                .ascii(0x9291, "451");
+        if (nikon) {
+            Ifd makerNote = new Ifd(order).rationals(0x84, 24, 1, 70, 1, 28, 10, 28, 10);
+            exif.bytes(0x927c, 7, nikonMakerNote(makerNote));
+        }
+        Ifd gps = new Ifd(order)
+                .ascii(0x1, index % 4 < 2 ? "N" : "S")
+                .rationals(0x2, 22, 1, 32, 1, random.nextInt(6000), 100)
+                .ascii(0x3, "E")
+                .rationals(0x4, 113, 1, 56, 1, random.nextInt(6000), 100)
+                .bytes(0x5, 1, new byte[]{0})
+                .rationals(0x6, random.nextInt(10000), 10);
+        byte[] thumbnail = new byte[160 + random.nextInt(100)];
+        random.nextBytes(thumbnail);
+        Ifd ifd0 = new Ifd(order)
+                .ascii(0x10f, nikon ? "NIKON CORPORATION" : "Apple")
+                .ascii(0x110, nikon ? "NIKON D850" : "iPhone 8 Plus")
+                .ascii(0x132, "2018:05:13 18:56:04")
+                .pointer(0x8769, exif)
+                .pointer(0x8825, gps)
+                .next(new Ifd(order).blob(0x201, 0x202, thumbnail));
+        byte[] xmp = index % 5 == 0 ? xmpSegment(bytes("<x:xmpmeta xmlns:x=\"adobe:ns:meta/\"/>")) : new byte[0];
+        return jpeg(segment(0xe0, new byte[14]), xmp, exifSegment(ifd0.toTIFF()));
+    }
+
+    static File write(byte[] data) throws IOException {
+        File file = File.createTempFile("synthetic", ".bin");
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(data);
+        } finally {
+            out.close();
+        }
+        return file;
+    }
+
+    private Synthetic() {
+    }
+}
@@ -0,0 +1,240 @@
+package org.lds.media.test;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+import org.lds.io.FileBinaryReader;
+import org.lds.math.Fraction;
+import org.lds.media.exif.Exif;
+import org.lds.media.tiff.IFD;
+import org.lds.media.tiff.TIFF;
+import org.lds.media.tiff.TagValue;
+import org.lds.media.tiff.TagVisitor;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+public class TIFFTest {
+
+    /**
+     * IFD0 (Make, GPS pointer) and a GPS IFD with inline S/W and below-sea-level references, in the given byte order.
+     */
+    private static byte[] tiff(ByteOrder order) {
+        Synthetic.Ifd gps = new Synthetic.Ifd(order)
+                .ascii(0x1, "S")
+                .rationals(0x2, 33, 1, 51, 1, 3600, 100)
+                .ascii(0x3, "W")
+                .rationals(0x4, 151, 1, 12, 1, 36, 1)
+                .bytes(0x5, 1, new byte[]{1})
+                .rationals(0x6, 25, 2);
+        return new Synthetic.Ifd(order).ascii(0x10f, "Cam").pointer(0x8825, gps).toTIFF();
+    }
+
+    /**
+     * A single IFD with one entry of every TIFF type, inline (tags 0x100-0x107) and at an offset (0x110-0x118).
+     */
+    private static byte[] valueTypes(ByteOrder order) {
+        return new Synthetic.Ifd(order)
+                .bytes(0x100, 1, new byte[]{1, (byte) 0xff, 7})
+                .ascii(0x101, "ab")
+                .shorts(0x102, 0xffff, 3)
+                .longs(0x103, 0xfffffffeL)
+                .bytes(0x104, 6, new byte[]{-1, 5})
+                .sshorts(0x105, -2, 300)
+                .slongs(0x106, -5)
+                .floats(0x107, 1.5f)
+                .ascii(0x110, "hello")
+                .shorts(0x111, 1, 0x8000, 0xffff)
+                .longs(0x112, 0x80000000L, 5)
+                .rationals(0x113, 0xffffffffL, 2)
+                .bytes(0x114, 7, new byte[]{9, 8, 7, 6, 5})
+                .slongs(0x115, Integer.MIN_VALUE, -1)
+                .srationals(0x116, -3, 4)
+                .floats(0x117, -2.25f, Float.MAX_VALUE)
+                .doubles(0x118, -1e300)
+                .toTIFF();
+    }
+
+    private static Exif parse(byte[] data) throws Exception {
+        File file = Synthetic.write(data);
+        try {
+            return Exif.parse(file);
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testInlineGPSReferences() throws Exception {
+        ByteOrder[] orders = {ByteOrder.LITTLE_ENDIAN, ByteOrder.BIG_ENDIAN};
+        for (ByteOrder order : orders) {
+            Exif exif = parse(tiff(order));
+            Assert.assertEquals("Cam", exif.getMake());
+            Assert.assertEquals(-33.86, exif.getGPSLatitude(), 1e-9);
+            Assert.assertEquals(-151.21, exif.getGPSLongitude(), 1e-9);
+            Assert.assertEquals(-12.5, exif.getGPSAltitude(), 1e-9);
+        }
+    }
+
+    @Test
+    public void testValueTypes() throws Exception {
+        ByteOrder[] orders = {ByteOrder.LITTLE_ENDIAN, ByteOrder.BIG_ENDIAN};
+        for (ByteOrder order : orders) {
+            File file = Synthetic.write(valueTypes(order));
+            FileBinaryReader reader = new FileBinaryReader(file);
+            try {
+                TIFF tiff = TIFF.parse(reader, 0);
+                checkValues(tiff.readIFD(tiff.getOffsetOfIFD()));
+                checkTagValues(TIFF.parse(reader, 0));
+            } finally {
+                reader.close();
+                file.delete();
+            }
+        }
+    }
+
+    @Test
+    public void testTagLookup() throws Exception {
+        // out of order, with a repeated tag; the last entry for a tag wins
+        byte[] data = new Synthetic.Ifd(ByteOrder.BIG_ENDIAN)
+                .ascii(0x9003, "2018:05:13 18:56:04")
+                .ascii(0x10f, "Cam")
+                .shorts(0x112, 6)
+                .ascii(0x110, "First")
+                .ascii(0x110, "Second")
+                .longs(0xa002, 4032)
+                .shorts(0x1, 7)
+                .toTIFF();
+        File file = Synthetic.write(data);
+        FileBinaryReader reader = new FileBinaryReader(file);
+        try {
+            TIFF tiff = TIFF.parse(reader, 0);
+            IFD ifd = tiff.readIFD(tiff.getOffsetOfIFD());
+            Assert.assertEquals(7, ifd.getEntryCount());
+            Assert.assertEquals(6, ifd.getEntries().size());
+            Assert.assertEquals("2018:05:13 18:56:04", ifd.getString(0x9003));
+            Assert.assertEquals("Cam", ifd.getString(0x10f));
+            Assert.assertEquals("Second", ifd.getString(0x110));
+            Assert.assertEquals(Long.valueOf(6), ifd.getLong(0x112));
+            Assert.assertEquals(Long.valueOf(4032), ifd.getLong(0xa002));
+            Assert.assertEquals(Long.valueOf(7), ifd.getLong(0x1));
+            Assert.assertNull(ifd.getValue(0x111));
+            Assert.assertNull(ifd.getValue(0xffff));
+            byte[] buf = new byte[32];
+            Assert.assertEquals(20, ifd.read(0x9003, buf));
+            Assert.assertEquals(-1, ifd.read(0x9004, buf));
+        } finally {
+            reader.close();
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testInlineValueIsCopied() throws Exception {
+        byte[] data = new Synthetic.Ifd(ByteOrder.LITTLE_ENDIAN)
+                .bytes(0x1, 1, new byte[]{2, 3, 0, 0})
+                .bytes(0x9000, 7, Synthetic.bytes("0230"))
+                .toTIFF();
+        File file = Synthetic.write(data);
+        FileBinaryReader reader = new FileBinaryReader(file);
+        try {
+            TIFF tiff = TIFF.parse(reader, 0);
+            IFD ifd = tiff.readIFD(tiff.getOffsetOfIFD());
+            Long valueOffset = ifd.getValueOffset(0x9000);
+            int[] tags = {0x1, 0x9000};
+            for (int tag : tags) {
+                byte[] value = (byte[]) ifd.getValue(tag);
+                byte[] expected = value.clone();
+                Arrays.fill(value, (byte) 0x7f);
+                Assert.assertTrue(Arrays.equals(expected, (byte[]) ifd.getValue(tag)));
+            }
+            Assert.assertTrue(Arrays.equals(Synthetic.bytes("0230"), (byte[]) ifd.getValue(0x9000)));
+            Assert.assertEquals(valueOffset, ifd.getValueOffset(0x9000));
+        } finally {
+            reader.close();
+            file.delete();
+        }
+    }
+
+    /**
+     * Run from the packaged jar on JDK 9+ (the java9 profile sets the property), where the jar's
+     * META-INF/versions/9 ByteOrderDecoder must be the one loaded.
+     */
+    @Test
+    public void testMultiReleaseDecoder() throws Exception {
+        Assume.assumeTrue("not running from the multi-release jar", Boolean.getBoolean("lds.media.multiRelease"));
+        Class<?> bigEndian = Class.forName("org.lds.media.tiff.ByteOrderDecoder$BigEndian");
+        Assert.assertEquals("java.lang.invoke.VarHandle", bigEndian.getDeclaredField("INT").getType().getName());
+    }
+
+    private static void checkValues(IFD ifd) throws Exception {
+        Assert.assertArrayEquals(new byte[]{1, -1, 7}, (byte[]) ifd.getValue(0x100));
+        Assert.assertEquals("ab", ifd.getString(0x101));
+        Assert.assertArrayEquals(new int[]{0xffff, 3}, (int[]) ifd.getValue(0x102));
+        Assert.assertArrayEquals(new long[]{0xfffffffeL}, (long[]) ifd.getValue(0x103));
+        Assert.assertArrayEquals(new byte[]{-1, 5}, (byte[]) ifd.getValue(0x104));
+        Assert.assertTrue(Arrays.equals(new short[]{-2, 300}, (short[]) ifd.getValue(0x105)));
+        Assert.assertArrayEquals(new int[]{-5}, (int[]) ifd.getValue(0x106));
+        Assert.assertTrue(Arrays.equals(new float[]{1.5f}, (float[]) ifd.getValue(0x107)));
+        Assert.assertEquals("hello", ifd.getString(0x110));
+        Assert.assertArrayEquals(new int[]{1, 0x8000, 0xffff}, (int[]) ifd.getValue(0x111));
+        Assert.assertArrayEquals(new long[]{0x80000000L, 5}, (long[]) ifd.getValue(0x112));
+        Fraction rational = ifd.getRational(0x113);
+        Assert.assertEquals(0xffffffffL, rational.getNumerator());
+        Assert.assertEquals(2, rational.getDenominator());
+        Assert.assertArrayEquals(new byte[]{9, 8, 7, 6, 5}, (byte[]) ifd.getValue(0x114));
+        Assert.assertArrayEquals(new int[]{Integer.MIN_VALUE, -1}, (int[]) ifd.getValue(0x115));
+        Fraction signed = ((Fraction[]) ifd.getValue(0x116))[0];
+        Assert.assertEquals(-3, signed.getNumerator());
+        Assert.assertEquals(4, signed.getDenominator());
+        Assert.assertTrue(Arrays.equals(new float[]{-2.25f, Float.MAX_VALUE}, (float[]) ifd.getValue(0x117)));
+        Assert.assertTrue(Arrays.equals(new double[]{-1e300}, (double[]) ifd.getValue(0x118)));
+    }
+
+    /**
+     * The streaming view must decode the same numbers as {@link IFD#getValue}.
+     */
+    private static void checkTagValues(TIFF tiff) throws Exception {
+        final Map<Integer, Double> first = new HashMap<Integer, Double>();
+        final Map<Integer, Double> last = new HashMap<Integer, Double>();
+        tiff.walkIFD(tiff.getOffsetOfIFD(), TagVisitor.IFD0, new TagVisitor() {
+            @Override
+            public boolean visitIFD(int directory, long offset, int entryCount) {
+                return true;
+            }
+
+            @Override
+            public void visitTag(int directory, int tag, int type, int count, TagValue value) throws IOException {
+                if (type != 2) {
+                    first.put(tag, value.getDouble(0));
+                    last.put(tag, value.getDouble(count - 1));
+                }
+            }
+
+            @Override
+            public void endIFD(int directory) {
+            }
+        }, new TagValue());
+        Assert.assertEquals(1, first.get(0x100), 0);
+        Assert.assertEquals(7, last.get(0x100), 0);
+        Assert.assertEquals(0xffff, first.get(0x102), 0);
+        Assert.assertEquals(0xfffffffeL, first.get(0x103), 0);
+        Assert.assertEquals(-1, first.get(0x104), 0);
+        Assert.assertEquals(-2, first.get(0x105), 0);
+        Assert.assertEquals(300, last.get(0x105), 0);
+        Assert.assertEquals(-5, first.get(0x106), 0);
+        Assert.assertEquals(1.5, first.get(0x107), 0);
+        Assert.assertEquals(0xffff, last.get(0x111), 0);
+        Assert.assertEquals(0x80000000L, first.get(0x112), 0);
+        Assert.assertEquals(0xffffffffL / 2.0, first.get(0x113), 0);
+        Assert.assertEquals(5, last.get(0x114), 0);
+        Assert.assertEquals(Integer.MIN_VALUE, first.get(0x115), 0);
+        Assert.assertEquals(-0.75, first.get(0x116), 0);
+        Assert.assertEquals(Float.MAX_VALUE, last.get(0x117), 0);
+        Assert.assertEquals(-1e300, first.get(0x118), 0);
+    }
+}
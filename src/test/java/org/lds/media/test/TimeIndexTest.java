@@ -0,0 +1,34 @@
+package org.lds.media.test;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.lds.media.index.TimeIndex;
+
+import java.util.Random;
+
+public class TimeIndexTest {
+
+    @Test
+    public void testTimeIndex() {
+        TimeIndex.Builder builder = new TimeIndex.Builder(4);
+        Random random = new Random(1);
+        for (int i = 0; i < 10000; i++) {
+            builder.add(random.nextInt(2000000) - 1000000L, i);
+        }
+        TimeIndex index = builder.build();
+        Assert.assertEquals(10000, index.size());
+        for (int i = 1; i < index.size(); i++) {
+            Assert.assertTrue(index.getTime(i - 1) <= index.getTime(i));
+        }
+        int expected = 0;
+        for (int i = 0; i < index.size(); i++) {
+            if (index.getTime(i) >= -1000 && index.getTime(i) < 250000) {
+                expected++;
+            }
+        }
+        Assert.assertEquals(expected, index.count(-1000, 250000));
+        int[] out = new int[expected];
+        Assert.assertEquals(expected, index.query(-1000, 250000, out, 0));
+        Assert.assertEquals(0, index.count(5, 5));
+    }
+}
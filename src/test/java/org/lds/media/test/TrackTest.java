@@ -0,0 +1,38 @@
+package org.lds.media.test;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.lds.media.gps.Track;
+import org.lds.media.gps.TrackWriter;
+
+import java.io.StringWriter;
+
+public class TrackTest {
+
+    @Test
+    public void testTrack() throws Exception {
+        Track.Builder builder = new Track.Builder(2);
+        builder.add(1526237764500L, -33.8688, 151.2093, 58.0, Float.NaN, Float.NaN, 2);
+        builder.add(1526237700000L, 40.7128, -74.006, 1);
+        builder.add(Track.NO_TIME, 0, 0, 3);
+        builder.add(1526237800000L, Double.NaN, 0, 4);
+        Track track = builder.build();
+        Assert.assertEquals(3, track.size());
+        Assert.assertEquals(3, track.getFileId(0));
+        Assert.assertEquals(1, track.getFileId(1));
+        Assert.assertEquals(-74.006, track.getLongitude(1), 0);
+        Assert.assertEquals(2, track.getFileId(2));
+        Assert.assertEquals(58.0, track.getAltitude(2), 0);
+
+        StringWriter gpx = new StringWriter();
+        new TrackWriter(gpx).writeGPX(track, "a & b");
+        Assert.assertTrue(gpx.toString().contains("<name>a &amp; b</name>"));
+        Assert.assertTrue(gpx.toString().contains(
+                "<trkpt lat=\"-33.8688\" lon=\"151.2093\"><ele>58.0</ele><time>2018-05-13T18:56:04.500Z</time></trkpt>"));
+
+        StringWriter json = new StringWriter();
+        new TrackWriter(json).writeGeoJSON(track);
+        Assert.assertTrue(json.toString().contains("[[0.0,0.0],[-74.006,40.7128],[151.2093,-33.8688,58.0]]"));
+        Assert.assertTrue(json.toString().contains("\"coordTimes\":[null,\"2018-05-13T18:55:00.000Z\",\"2018-05-13T18:56:04.500Z\"]"));
+    }
+}
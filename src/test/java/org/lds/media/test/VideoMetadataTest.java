@@ -0,0 +1,144 @@
+package org.lds.media.test;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.lds.media.video.VideoMetadata;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+public class VideoMetadataTest {
+
+    /**
+     * 2018-05-13T10:56:04Z in seconds since 1904, past 2^31 so it only decodes as unsigned.
+     */
+    private static final long CREATION_TIME = 1526208964L + 2082844800L;
+
+    private static byte[] ftyp(String majorBrand, String compatibleBrand) {
+        return Synthetic.box("ftyp", Synthetic.bytes(majorBrand), new byte[4], Synthetic.bytes(compatibleBrand));
+    }
+
+    private static byte[] mvhd(int version, long timescale, long duration) {
+        ByteBuffer b = ByteBuffer.allocate(96 + (version == 1 ? 12 : 0));
+        if (version == 1) {
+            b.putLong(CREATION_TIME).putLong(CREATION_TIME).putInt((int) timescale).putLong(duration);
+        } else {
+            b.putInt((int) CREATION_TIME).putInt((int) CREATION_TIME).putInt((int) timescale).putInt((int) duration);
+        }
+        return Synthetic.fullBox("mvhd", version, 0, b.array());
+    }
+
+    /**
+     * A QuickTime user data text atom: 16-bit length, language, UTF-8 text.
+     */
+    private static byte[] text(String type, String value) throws Exception {
+        byte[] b = value.getBytes("UTF-8");
+        return Synthetic.box(type, ByteBuffer.allocate(4).putShort((short) b.length).putShort((short) 0x15c7).array(), b);
+    }
+
+    /**
+     * A QuickTime meta box (no version and flags) with Apple mdta keys and their UTF-8 values.
+     */
+    private static byte[] meta(String... keysAndValues) throws Exception {
+        int count = keysAndValues.length / 2;
+        byte[] keys = ByteBuffer.allocate(4).putInt(count).array();
+        byte[] items = new byte[0];
+        for (int i = 0; i < count; i++) {
+            byte[] key = Synthetic.bytes(keysAndValues[2 * i]);
+            keys = Synthetic.concat(keys, ByteBuffer.allocate(4).putInt(8 + key.length).array(),
+                    Synthetic.bytes("mdta"), key);
+            byte[] data = Synthetic.box("data", ByteBuffer.allocate(8).putInt(1).putInt(0).array(),
+                    keysAndValues[2 * i + 1].getBytes("UTF-8"));
+            byte[] item = Synthetic.box("key#", data);
+            ByteBuffer.wrap(item).putInt(4, i + 1);
+            items = Synthetic.concat(items, item);
+        }
+        byte[] hdlr = Synthetic.fullBox("hdlr", 0, 0, new byte[4], Synthetic.bytes("mdta"), new byte[13]);
+        return Synthetic.box("meta", hdlr, Synthetic.fullBox("keys", 0, 0, keys), Synthetic.box("ilst", items));
+    }
+
+    /**
+     * Writes {@code head}, then an mdat of {@code mdatSize} bytes (a 64-bit largesize if it does not fit in 32 bits),
+     * then {@code tail}. The mdat payload is left as a hole in a sparse file.
+     */
+    private static File write(byte[] head, long mdatSize, byte[] tail) throws Exception {
+        ByteBuffer header = ByteBuffer.allocate(16);
+        if (mdatSize > 0xffffffffL) {
+            header.putInt(1).put(Synthetic.bytes("mdat")).putLong(mdatSize);
+        } else {
+            header.putInt((int) mdatSize).put(Synthetic.bytes("mdat"));
+        }
+        File file = Synthetic.write(Synthetic.concat(head, Arrays.copyOf(header.array(), header.position())));
+        RandomAccessFile out = new RandomAccessFile(file, "rw");
+        try {
+            out.seek(head.length + mdatSize);
+            out.write(tail);
+        } finally {
+            out.close();
+        }
+        return file;
+    }
+
+    @Test
+    public void testQuickTime() throws Exception {
+        byte[] moov = Synthetic.box("moov", mvhd(0, 600, 7500),
+                Synthetic.box("trak", new byte[32]),
+                meta("com.apple.quicktime.make", "Apple",
+                        "com.apple.quicktime.model", "iPhone 8 Plus",
+                        "com.apple.quicktime.creationdate", "2018-05-13T18:56:04+0800",
+                        "com.apple.quicktime.location.ISO6709", "-33.8688+151.2093+012.500/"));
+        // an mdat of 2^31 + 16 bytes, whose 32-bit size is negative as a signed int
+        File file = write(ftyp("qt  ", "qt  "), 0x80000010L, moov);
+        try {
+            VideoMetadata metadata = VideoMetadata.parse(file);
+            Assert.assertNotNull(metadata);
+            Assert.assertEquals(Long.valueOf(1526208964000L), metadata.getCreationTime());
+            Assert.assertEquals(Long.valueOf(12500), metadata.getDuration());
+            Assert.assertEquals("Apple", metadata.getMake());
+            Assert.assertEquals("iPhone 8 Plus", metadata.getModel());
+            Assert.assertEquals("2018-05-13T18:56:04+0800", metadata.getCreationDate());
+            Assert.assertEquals(-33.8688, metadata.getGPSLatitude(), 1e-9);
+            Assert.assertEquals(151.2093, metadata.getGPSLongitude(), 1e-9);
+            Assert.assertEquals(12.5, metadata.getGPSAltitude(), 1e-9);
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testMP4() throws Exception {
+        byte[] udta = Synthetic.box("udta",
+                text("\u00a9mak", "Samsung"),
+                text("\u00a9mod", "SM-G950F"),
+                text("\u00a9xyz", "+22.5400-114.0100/"));
+        byte[] moov = Synthetic.box("moov", mvhd(1, 90000, 90000L * 3600 * 30), udta);
+        // a largesize mdat past 4 GB
+        File file = write(ftyp("isom", "mp41"), (1L << 32) + 32, moov);
+        try {
+            VideoMetadata metadata = VideoMetadata.parse(file);
+            Assert.assertNotNull(metadata);
+            Assert.assertEquals(Long.valueOf(1526208964000L), metadata.getCreationTime());
+            Assert.assertEquals(Long.valueOf(3600L * 30 * 1000), metadata.getDuration());
+            Assert.assertEquals("Samsung", metadata.getMake());
+            Assert.assertEquals("SM-G950F", metadata.getModel());
+            Assert.assertNull(metadata.getCreationDate());
+            Assert.assertEquals(22.54, metadata.getGPSLatitude(), 1e-9);
+            Assert.assertEquals(-114.01, metadata.getGPSLongitude(), 1e-9);
+            Assert.assertNull(metadata.getGPSAltitude());
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testNoMovie() throws Exception {
+        File file = write(ftyp("isom", "mp41"), 64, Synthetic.box("free", new byte[8]));
+        try {
+            Assert.assertNull(VideoMetadata.parse(file));
+        } finally {
+            file.delete();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package org.lds.media.test;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.lds.media.exif.Exif;
+import org.lds.media.xmp.Xmp;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+public class XmpTest {
+
+    private static final String PACKET = "<?xpacket begin=\"\ufeff\" id=\"W5M0MpCehiHzreSzNTczkc9d\"?>"
+            + "<x:xmpmeta xmlns:x=\"adobe:ns:meta/\"><rdf:RDF xmlns:rdf=\"http://www.w3.org/1999/02/22-rdf-syntax-ns#\">"
+            + "<rdf:Description rdf:about=\"\" xmlns:xmp=\"http://ns.adobe.com/xap/1.0/\""
+            + " xmlns:dc=\"http://purl.org/dc/elements/1.1/\" xmlns:xmpMM=\"http://ns.adobe.com/xap/1.0/mm/\""
+            + " xmlns:stEvt=\"http://ns.adobe.com/xap/1.0/sType/ResourceEvent#\" xmp:Rating=\"4\">"
+            + "<dc:subject><rdf:Bag><rdf:li>beach</rdf:li><rdf:li> family </rdf:li></rdf:Bag></dc:subject>"
+            + "<xmpMM:History><rdf:Seq>"
+            + "<rdf:li stEvt:action=\"created\" stEvt:when=\"2018-05-13T18:56:04+08:00\"/>"
+            + "<rdf:li rdf:parseType=\"Resource\"><stEvt:action>saved</stEvt:action>"
+            + "<stEvt:softwareAgent>Lightroom</stEvt:softwareAgent><stEvt:changed>/metadata</stEvt:changed></rdf:li>"
+            + "</rdf:Seq></xmpMM:History></rdf:Description></rdf:RDF></x:xmpmeta><?xpacket end=\"w\"?>";
+
+    private static byte[] jpeg() throws Exception {
+        return Synthetic.jpeg(
+                Synthetic.segment(0xe0, Synthetic.bytes("JFIF\0"), new byte[9]),
+                Synthetic.xmpSegment(PACKET.getBytes("UTF-8")),
+                Synthetic.segment(0xe2, Synthetic.bytes("ICC_PROFILE\0"), new byte[16]),
+                Synthetic.exifSegment(new Synthetic.Ifd(ByteOrder.BIG_ENDIAN).ascii(0x10f, "Cam").toTIFF()));
+    }
+
+    private static byte[] heic() throws Exception {
+        byte[] xmp = PACKET.getBytes("UTF-8");
+        ByteBuffer b = ByteBuffer.allocate(512 + xmp.length);
+        b.putInt(20).put("ftypheic".getBytes("ISO-8859-1")).putInt(0).put("mif1".getBytes("ISO-8859-1"));
+        int meta = b.position();
+        b.putInt(0).put("meta".getBytes("ISO-8859-1")).putInt(0);
+        byte[] contentType = "application/rdf+xml\0".getBytes("ISO-8859-1");
+        int infeSize = 12 + 4 + 4 + 1 + contentType.length;
+        b.putInt(14 + infeSize).put("iinf".getBytes("ISO-8859-1")).putInt(0).putShort((short) 1);
+        b.putInt(infeSize).put("infe".getBytes("ISO-8859-1")).putInt(2 << 24).putShort((short) 7).putShort((short) 0);
+        b.put("mime".getBytes("ISO-8859-1")).put((byte) 0).put(contentType);
+        b.putInt(30).put("iloc".getBytes("ISO-8859-1")).putInt(0).putShort((short) 0x4400).putShort((short) 1);
+        b.putShort((short) 7).putShort((short) 0).putShort((short) 1);
+        int extent = b.position();
+        b.putInt(0).putInt(xmp.length);
+        b.putInt(meta, b.position() - meta);
+        b.putInt(extent, b.position() + 8);
+        b.putInt(8 + xmp.length).put("mdat".getBytes("ISO-8859-1")).put(xmp);
+        return Arrays.copyOf(b.array(), b.position());
+    }
+
+    private static void check(Xmp xmp) {
+        Assert.assertEquals(Integer.valueOf(4), xmp.getRating());
+        Assert.assertEquals(Arrays.asList("beach", "family"), xmp.getKeywords());
+        Assert.assertEquals(2, xmp.getHistory().size());
+        Assert.assertEquals("created", xmp.getHistory().get(0).getAction());
+        Assert.assertEquals("2018-05-13T18:56:04+08:00", xmp.getHistory().get(0).getWhen());
+        Assert.assertEquals("saved", xmp.getHistory().get(1).getAction());
+        Assert.assertEquals("Lightroom", xmp.getHistory().get(1).getSoftwareAgent());
+        Assert.assertEquals("/metadata", xmp.getHistory().get(1).getChanged());
+    }
+
+    @Test
+    public void testJPEG() throws Exception {
+        File file = Synthetic.write(jpeg());
+        try {
+            check(Xmp.parse(file));
+            Assert.assertEquals("Cam", Exif.parse(file).getMake());
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testHEIC() throws Exception {
+        File file = Synthetic.write(heic());
+        try {
+            check(Xmp.parse(file));
+        } finally {
+            file.delete();
+        }
+    }
+}
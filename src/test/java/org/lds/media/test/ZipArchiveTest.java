@@ -0,0 +1,84 @@
+package org.lds.media.test;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.lds.io.AbstractSeekableBinaryReader;
+import org.lds.io.FileBinaryReader;
+import org.lds.media.io.ZipArchive;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+public class ZipArchiveTest {
+
+    @Test
+    public void testEntries() throws Exception {
+        byte[] stored = new byte[100000];
+        new Random(1).nextBytes(stored);
+        byte[] deflated = new byte[1000000];
+        Random random = new Random(2);
+        for (int i = 0; i < deflated.length; i++) {
+            deflated[i] = (byte) (random.nextInt(16) + 'a');
+        }
+        File file = File.createTempFile("media", ".zip");
+        try {
+            ZipOutputStream out = new ZipOutputStream(new FileOutputStream(file));
+            try {
+                ZipEntry entry = new ZipEntry("stored.jpg");
+                entry.setMethod(ZipEntry.STORED);
+                entry.setSize(stored.length);
+                CRC32 crc = new CRC32();
+                crc.update(stored);
+                entry.setCrc(crc.getValue());
+                out.putNextEntry(entry);
+                out.write(stored);
+                out.putNextEntry(new ZipEntry("dir/deflated.heic"));
+                out.write(deflated);
+                out.closeEntry();
+            } finally {
+                out.close();
+            }
+
+            FileBinaryReader reader = new FileBinaryReader(file);
+            try {
+                ZipArchive archive = ZipArchive.read(reader);
+                Assert.assertEquals(2, archive.getEntries().size());
+                ZipArchive.Entry entry = archive.getEntries().get(0);
+                Assert.assertEquals("stored.jpg", entry.getName());
+                Assert.assertEquals(ZipArchive.STORED, entry.getMethod());
+                assertContent(stored, archive.open(reader, entry));
+                entry = archive.getEntries().get(1);
+                Assert.assertEquals("dir/deflated.heic", entry.getName());
+                Assert.assertEquals(ZipArchive.DEFLATED, entry.getMethod());
+                Assert.assertEquals(deflated.length, entry.getSize());
+                assertContent(deflated, archive.open(reader, entry));
+            } finally {
+                reader.close();
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    private static void assertContent(byte[] expected, AbstractSeekableBinaryReader reader) throws Exception {
+        try {
+            Assert.assertEquals(expected.length, reader.getLength());
+            Random random = new Random(3);
+            for (int i = 0; i < 50; i++) {
+                int offset = random.nextInt(expected.length);
+                byte[] actual = new byte[Math.min(expected.length - offset, random.nextInt(5000) + 1)];
+                reader.seek(offset);
+                Assert.assertEquals(actual.length, reader.read(actual, 0, actual.length));
+                for (int j = 0; j < actual.length; j++) {
+                    Assert.assertEquals(expected[offset + j], actual[j]);
+                }
+            }
+        } finally {
+            reader.close();
+        }
+    }
+}